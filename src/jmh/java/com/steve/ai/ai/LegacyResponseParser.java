@@ -0,0 +1,148 @@
+package com.steve.ai.ai;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.steve.ai.action.Task;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The regex-based parser ResponseParser replaced, kept as the benchmark baseline: a dozen replaceAll
+ * passes over the whole response, then a full Gson tree walked into tasks. Failures return null
+ * without logging, so the benchmark never touches the mod's logger.
+ */
+class LegacyResponseParser {
+
+    static ResponseParser.ParsedResponse parseAIResponse(String response) {
+        if (response == null || response.isEmpty()) {
+            return null;
+        }
+
+        try {
+            JsonObject json = JsonParser.parseString(extractJSON(response)).getAsJsonObject();
+
+            String reasoning = json.has("reasoning") ? json.get("reasoning").getAsString() : "";
+            String plan = json.has("plan") ? json.get("plan").getAsString() : "";
+            List<Task> tasks = new ArrayList<>();
+
+            if (json.has("tasks") && json.get("tasks").isJsonArray()) {
+                JsonArray tasksArray = json.getAsJsonArray("tasks");
+                for (JsonElement taskElement : tasksArray) {
+                    if (taskElement.isJsonObject()) {
+                        Task task = parseTask(taskElement.getAsJsonObject());
+                        if (task != null) {
+                            tasks.add(task);
+                        }
+                    }
+                }
+            }
+
+            return new ResponseParser.ParsedResponse(reasoning, plan, tasks);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private static String extractJSON(String response) {
+        String cleaned = response.trim();
+
+        cleaned = cleaned.replaceAll("(?s)<think>.*?</think>", "");
+        cleaned = cleaned.replaceAll("(?s)<think>.*?</think>", "");
+        cleaned = cleaned.replaceAll("(?s)<reasoning>.*?</reasoning>", "");
+
+        int jsonStart = cleaned.indexOf("{");
+        if (jsonStart != -1) {
+            cleaned = cleaned.substring(jsonStart);
+
+            int depth = 0;
+            int jsonEnd = -1;
+            for (int i = 0; i < cleaned.length(); i++) {
+                char c = cleaned.charAt(i);
+                if (c == '{') depth++;
+                if (c == '}') {
+                    depth--;
+                    if (depth == 0) {
+                        jsonEnd = i + 1;
+                        break;
+                    }
+                }
+            }
+
+            if (jsonEnd != -1) {
+                cleaned = cleaned.substring(0, jsonEnd);
+            }
+        }
+
+        if (cleaned.startsWith("```json")) {
+            cleaned = cleaned.substring(7);
+        } else if (cleaned.startsWith("```")) {
+            cleaned = cleaned.substring(3);
+        }
+
+        if (cleaned.endsWith("```")) {
+            cleaned = cleaned.substring(0, cleaned.length() - 3);
+        }
+
+        cleaned = cleaned.trim();
+
+        int firstBrace = cleaned.indexOf("{");
+        if (firstBrace > 0) {
+            cleaned = cleaned.substring(firstBrace);
+        }
+
+        cleaned = cleaned.replaceAll("\\n\\s*", " ");
+
+        cleaned = cleaned.replaceAll("}\\s+\\{", "},{");
+        cleaned = cleaned.replaceAll("}\\s+\\[", "},[");
+        cleaned = cleaned.replaceAll("]\\s+\\{", "],{");
+        cleaned = cleaned.replaceAll("]\\s+\\[", "],[");
+
+        return cleaned;
+    }
+
+    private static Task parseTask(JsonObject taskObj) {
+        if (!taskObj.has("action")) {
+            return null;
+        }
+
+        String action = taskObj.get("action").getAsString();
+        Map<String, Object> parameters = new HashMap<>();
+
+        if (taskObj.has("parameters") && taskObj.get("parameters").isJsonObject()) {
+            JsonObject paramsObj = taskObj.getAsJsonObject("parameters");
+
+            for (String key : paramsObj.keySet()) {
+                JsonElement value = paramsObj.get(key);
+
+                if (value.isJsonPrimitive()) {
+                    if (value.getAsJsonPrimitive().isNumber()) {
+                        parameters.put(key, value.getAsNumber());
+                    } else if (value.getAsJsonPrimitive().isBoolean()) {
+                        parameters.put(key, value.getAsBoolean());
+                    } else {
+                        parameters.put(key, value.getAsString());
+                    }
+                } else if (value.isJsonArray()) {
+                    List<Object> list = new ArrayList<>();
+                    for (JsonElement element : value.getAsJsonArray()) {
+                        if (element.isJsonPrimitive()) {
+                            if (element.getAsJsonPrimitive().isNumber()) {
+                                list.add(element.getAsNumber());
+                            } else {
+                                list.add(element.getAsString());
+                            }
+                        }
+                    }
+                    parameters.put(key, list);
+                }
+            }
+        }
+
+        return new Task(action, parameters);
+    }
+}
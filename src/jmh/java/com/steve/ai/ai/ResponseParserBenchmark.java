@@ -0,0 +1,107 @@
+package com.steve.ai.ai;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * ResponseParser against the regex parser it replaced, on the same responses.
+ *
+ * The bundled datasets are model responses in src/jmh/resources/responses. "replay" reads the raw
+ * responses from a replay corpus (see ReplayClient) given with -Psteve.replayCorpus=<file>.
+ * Run with ./gradlew jmh; both parsers must return the same number of tasks or setup fails.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseParserBenchmark {
+    @Param({"plain", "fenced", "think", "missing-commas"})
+    public String dataset;
+
+    private String[] responses;
+
+    @Setup
+    public void load() throws IOException {
+        List<String> loaded = dataset.equals("replay") ? loadCorpus() : List.of(loadResource(dataset));
+        List<String> comparable = new ArrayList<>();
+        for (String response : loaded) {
+            ResponseParser.ParsedResponse legacy = LegacyResponseParser.parseAIResponse(response);
+            if (legacy == null) {
+                continue;  // The old parser can't read it at all, nothing to compare
+            }
+            ResponseParser.ParsedResponse current = ResponseParser.parseAIResponse(response);
+            if (current == null || current.getTasks().size() != legacy.getTasks().size()) {
+                throw new IllegalStateException("Parsers disagree on a " + dataset + " response: " + response);
+            }
+            comparable.add(response);
+        }
+        if (comparable.isEmpty()) {
+            throw new IllegalStateException("No usable responses in dataset " + dataset);
+        }
+        responses = comparable.toArray(new String[0]);
+    }
+
+    @Benchmark
+    public void legacy(Blackhole blackhole) {
+        for (String response : responses) {
+            blackhole.consume(LegacyResponseParser.parseAIResponse(response));
+        }
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        for (String response : responses) {
+            blackhole.consume(ResponseParser.parseAIResponse(response));
+        }
+    }
+
+    private static String loadResource(String name) throws IOException {
+        try (InputStream in = ResponseParserBenchmark.class.getResourceAsStream("/responses/" + name + ".txt")) {
+            if (in == null) {
+                throw new IllegalStateException("Missing benchmark response " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static List<String> loadCorpus() throws IOException {
+        String file = System.getProperty("steve.replayCorpus");
+        if (file == null) {
+            throw new IllegalStateException("Set -Psteve.replayCorpus=<file> for the replay dataset");
+        }
+        List<String> responses = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(Path.of(file))), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    JsonObject entry = JsonParser.parseString(line).getAsJsonObject();
+                    if (entry.has("r")) {
+                        responses.add(entry.get("r").getAsString());
+                    }
+                }
+            }
+        }
+        return responses;
+    }
+}
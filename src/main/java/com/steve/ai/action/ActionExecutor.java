@@ -1,77 +1,589 @@
 package com.steve.ai.action;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
 import com.steve.ai.SteveMod;
 import com.steve.ai.action.actions.*;
+import com.steve.ai.ai.IncrementalPlanParser;
+import com.steve.ai.ai.IntentCompiler;
+import com.steve.ai.ai.PlanningExecutor;
 import com.steve.ai.ai.ResponseParser;
 import com.steve.ai.ai.TaskPlanner;
 import com.steve.ai.config.SteveConfig;
 import com.steve.ai.entity.SteveEntity;
+import com.steve.ai.journal.EventJournal;
+import com.steve.ai.memory.WorldKnowledge;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.StringTag;
+import net.minecraft.nbt.Tag;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
 
-import java.util.LinkedList;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
 
 public class ActionExecutor {
+    private static final Gson GSON = new GsonBuilder().create();
+    private static final Type PARAMETERS_TYPE = new TypeToken<Map<String, Object>>() {}.getType();
+    private static final String PLANNING_ERROR_MESSAGE = "Sorry, something went wrong while I was planning that.";
+
     private final SteveEntity steve;
     private TaskPlanner taskPlanner;  // Lazy-initialized to avoid loading dependencies on entity creation
     private final Queue<Task> taskQueue;
     
     private BaseAction currentAction;
+    private Task currentTask;
     private String currentGoal;
     private int ticksSinceLastAction;
-    private BaseAction idleFollowAction;  // Follow player when idle
+    private final IdleFollowAction idleFollowAction;  // Follow player when idle, reused for the Steve's whole life
+    private final Queue<PlanDelivery> planInbox = new ConcurrentLinkedQueue<>();  // Written by planning workers
+    private int planGeneration;  // Server thread only
+    private int streamedGeneration = -1;  // Generation whose tasks are arriving incrementally
+    private final Map<Task, Task> streamedTasks = new IdentityHashMap<>();  // Streamed task -> the task queued for it
+    private int replanAttempts;  // Background replans started for the current generation
+    private int lodInterval = 1;  // Server ticks between logic ticks, see TickLod
+    private TaskGraph taskGraph = new TaskGraph();  // Dependencies of the queued tasks
+    private TaskGraph nextGraph = taskGraph;  // Graph for the plan being generated, shared by a group plan
+    private final List<Task> awaitingRepair = new ArrayList<>();  // Failed tasks with a replan in flight
+    private final Deque<SuspendedWork> suspended = new ArrayDeque<>();  // Put aside for newer commands, newest first
+    private boolean planPending;  // A command's plan has not arrived yet
+    private Task nextTask;  // Next ready task, its action created ahead by prepareNextAction
+    private BaseAction nextAction;
+    private final Map<Task, CompoundTag> restoredCheckpoints = new IdentityHashMap<>();  // Saved progress of tasks from NBT
+
+    /**
+     * An action put aside for a new command, with the rest of its plan. Resumed once Steve is done
+     * with the newer command. Work loaded from NBT has no action yet, only the task and its checkpoint.
+     */
+    private static class SuspendedWork {
+        final BaseAction action;
+        final CompoundTag checkpoint;
+        final Task task;
+        final List<Task> queue;
+        final TaskGraph graph;
+        final String goal;
+        final long suspendedAt;  // Game time
+
+        SuspendedWork(BaseAction action, CompoundTag checkpoint, Task task, List<Task> queue, TaskGraph graph,
+                      String goal, long suspendedAt) {
+            this.action = action;
+            this.checkpoint = checkpoint;
+            this.task = task;
+            this.queue = queue;
+            this.graph = graph;
+            this.goal = goal;
+            this.suspendedAt = suspendedAt;
+        }
+
+        String describe() {
+            return action != null ? action.getDescription() : task.getAction();
+        }
+    }
 
     public ActionExecutor(SteveEntity steve) {
         this.steve = steve;
         this.taskPlanner = null;  // Will be initialized when first needed
-        this.taskQueue = new LinkedList<>();
+        this.taskQueue = new ArrayDeque<>();
         this.ticksSinceLastAction = 0;
-        this.idleFollowAction = null;
+        this.idleFollowAction = new IdleFollowAction(steve);
     }
     
     private TaskPlanner getTaskPlanner() {
         if (taskPlanner == null) {
             SteveMod.LOGGER.info("Initializing TaskPlanner for Steve '{}'", steve.getSteveName());
             taskPlanner = new TaskPlanner();
+            if (SteveConfig.CONVERSATION_SUMMARIZE.get()) {
+                steve.getMemory().getConversation().setSummarizer(taskPlanner::summarizeConversation, job -> {
+                    if (!PlanningExecutor.submitBackground(job)) {
+                        throw new RejectedExecutionException("Background planning queue is full");
+                    }
+                });
+            }
         }
         return taskPlanner;
     }
 
+    /**
+     * Handle a player command. Must be called on the server thread: the world snapshot is taken
+     * here and the LLM round trip runs on a {@link PlanningExecutor} worker. The finished plan
+     * comes back through {@link #planInbox} and is applied in {@link #tick()}.
+     */
     public void processNaturalLanguageCommand(String command) {
         SteveMod.LOGGER.info("Steve '{}' processing command: {}", steve.getSteveName(), command);
         
-        if (currentAction != null) {            currentAction.cancel();
-            currentAction = null;
+        int generation = beginNewPlan();
+        
+        TaskPlanner planner;
+        WorldKnowledge worldKnowledge;
+        try {
+            planner = getTaskPlanner();
+            worldKnowledge = new WorldKnowledge(steve);
+        } catch (NoClassDefFoundError e) {
+            SteveMod.LOGGER.error("Failed to initialize AI components", e);
+            planPending = false;
+            sendToGUI(steve.getSteveName(), "Sorry, I'm having trouble with my AI systems!");
+            return;
+        }
+        
+        ResponseParser.ParsedResponse compiled = IntentCompiler.compile(command, worldKnowledge);
+        if (compiled != null) {
+            applyCompiledIntent(generation, command, compiled);
+            return;
         }
         
-        if (idleFollowAction != null) {
-            idleFollowAction.cancel();
-            idleFollowAction = null;
+        IncrementalPlanParser.Listener streamListener = new IncrementalPlanParser.Listener() {
+            @Override
+            public void onPlanText(String planText, boolean complete) {
+                planInbox.offer(PlanDelivery.planText(generation, command, planText, complete));
+            }
+
+            @Override
+            public void onTask(Task task) {
+                planInbox.offer(PlanDelivery.task(generation, command, task));
+            }
+
+            @Override
+            public void onTasksRetracted(List<Task> drafts) {
+                drafts.forEach(draft -> planInbox.offer(PlanDelivery.retracted(generation, command, draft)));
+            }
+        };
+        
+        String steveName = steve.getSteveName();
+        boolean queued = PlanningExecutor.submit(() -> {
+            ResponseParser.ParsedResponse response;
+            try {
+                response = planner.planTasks(steve, command, worldKnowledge, streamListener);
+            } catch (Throwable t) {
+                SteveMod.LOGGER.error("Planning failed for Steve '{}': {}", steveName, command, t);
+                planInbox.offer(PlanDelivery.failed(generation, command, PLANNING_ERROR_MESSAGE));
+                return;
+            }
+            if (response != null) {
+                planInbox.offer(PlanDelivery.completed(generation, command, response));
+            } else {
+                planInbox.offer(PlanDelivery.failed(generation, command, "I couldn't understand that command."));
+            }
+        });
+        
+        if (!queued) {
+            planPending = false;
+            sendToGUI(steve.getSteveName(), "I'm too busy thinking right now, try again in a moment.");
+        }
+    }
+    
+    /**
+     * Handle one command for several Steves with a single planning request ("all ..." in the GUI).
+     * Must be called on the server thread. Each Steve still gets its own task list, delivered
+     * through its own inbox.
+     */
+    public static void processGroupCommand(List<SteveEntity> steves, String command) {
+        if (steves.size() == 1) {
+            steves.get(0).getActionExecutor().processNaturalLanguageCommand(command);
+            return;
         }
         
+        List<ActionExecutor> executors = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        List<WorldKnowledge> snapshots = new ArrayList<>();
+        int[] generations = new int[steves.size()];
+        TaskGraph graph = new TaskGraph();
+        
+        TaskPlanner planner;
         try {
-            ResponseParser.ParsedResponse response = getTaskPlanner().planTasks(steve, command);
-            
-            if (response == null) {
-                sendToGUI(steve.getSteveName(), "I couldn't understand that command.");
+            for (int i = 0; i < steves.size(); i++) {
+                SteveEntity member = steves.get(i);
+                ActionExecutor executor = member.getActionExecutor();
+                generations[i] = executor.beginNewPlan();
+                executor.nextGraph = graph;
+                executors.add(executor);
+                names.add(member.getSteveName());
+                snapshots.add(new WorldKnowledge(member));
+            }
+            planner = executors.get(0).getTaskPlanner();
+        } catch (NoClassDefFoundError e) {
+            SteveMod.LOGGER.error("Failed to initialize AI components", e);
+            executors.forEach(executor -> executor.planPending = false);
+            return;
+        }
+        
+        ResponseParser.ParsedResponse compiled = IntentCompiler.compile(command, snapshots.get(0));
+        if (compiled != null) {
+            for (int i = 0; i < executors.size(); i++) {
+                executors.get(i).applyCompiledIntent(generations[i], command, compiled.copy());
+            }
+            return;
+        }
+        SteveMod.LOGGER.info("Planning for {} Steves in one request: {}", names.size(), command);
+        
+        boolean queued = PlanningExecutor.submit(() -> {
+            Map<String, ResponseParser.ParsedResponse> groupPlans;
+            try {
+                groupPlans = planner.planGroupTasks(names, snapshots, command);
+            } catch (Throwable t) {
+                SteveMod.LOGGER.error("Group planning failed: {}", command, t);
+                for (int i = 0; i < executors.size(); i++) {
+                    executors.get(i).planInbox.offer(PlanDelivery.failed(generations[i], command, PLANNING_ERROR_MESSAGE));
+                }
                 return;
             }
-
-            currentGoal = response.getPlan();
-            steve.getMemory().setCurrentGoal(currentGoal);
-            
-            taskQueue.clear();
-            taskQueue.addAll(response.getTasks());
-            
-            // Send response to GUI pane only
+            Map<String, ResponseParser.ParsedResponse> plans = new HashMap<>();
+            // Add every Steve's tasks before any Steve starts, so cross-Steve dependencies are known
+            groupPlans.forEach((name, plan) -> plans.put(name,
+                new ResponseParser.ParsedResponse(plan.getReasoning(), plan.getPlan(), graph.addAll(plan.getTasks()))));
+            for (int i = 0; i < executors.size(); i++) {
+                ResponseParser.ParsedResponse plan = plans.get(names.get(i));
+                executors.get(i).planInbox.offer(plan != null
+                    ? PlanDelivery.completed(generations[i], command, plan, graph)
+                    : PlanDelivery.failed(generations[i], command, "I didn't get a part in that plan."));
+            }
+        });
+        
+        if (!queued) {
+            for (ActionExecutor executor : executors) {
+                executor.planPending = false;
+                executor.sendToGUI(executor.steve.getSteveName(), "I'm too busy thinking right now, try again in a moment.");
+            }
+        }
+    }
+    
+    /**
+     * Apply a plan the {@link IntentCompiler} built locally. It is ready right away, so it skips the
+     * inbox; an empty plan means stop.
+     */
+    private void applyCompiledIntent(int generation, String command, ResponseParser.ParsedResponse compiled) {
+        if (compiled.getTasks().isEmpty()) {
+            stopCurrentAction();
+            steve.getMemory().getConversation().addUserMessage(command);
+            steve.getMemory().getConversation().addAssistantMessage("Stopping.");
             if (SteveConfig.ENABLE_CHAT_RESPONSES.get()) {
-                sendToGUI(steve.getSteveName(), "Okay! " + currentGoal);
+                sendToGUI(steve.getSteveName(), "Okay! Stopping.");
+            }
+            return;
+        }
+        applyCompletedPlan(PlanDelivery.completed(generation, command, compiled));
+    }
+    
+    /**
+     * Put aside or cancel whatever Steve is doing and start a new plan generation, so plans still
+     * being generated for older commands are dropped when they arrive. Server thread only.
+     */
+    private int beginNewPlan() {
+        if (currentAction != null) {
+            if (!suspendCurrentAction()) {
+                currentAction.cancel();
+            }
+            currentAction = null;
+        }
+        
+        idleFollowAction.stop();
+        discardNextAction();
+        if (currentTask != null) {
+            taskGraph.fail(currentTask);
+            currentTask = null;
+        }
+        
+        replanAttempts = 0;
+        lodInterval = 1;
+        nextGraph = new TaskGraph();
+        planPending = true;
+        return ++planGeneration;
+    }
+    
+    /**
+     * Suspend the current action together with the rest of its plan, if it supports that. The new
+     * command's plan then gets a queue and graph of its own.
+     */
+    private boolean suspendCurrentAction() {
+        if (!SteveConfig.SUSPEND_ENABLED.get() || currentAction.isComplete() || !currentAction.canSuspend()) {
+            return false;
+        }
+        
+        currentAction.suspend();
+        discardNextAction();
+        suspended.push(new SuspendedWork(currentAction, null, currentTask, new ArrayList<>(taskQueue), taskGraph,
+            currentGoal, steve.level().getGameTime()));
+        taskQueue.clear();
+        currentTask = null;
+        SteveMod.LOGGER.info("Steve '{}' suspended {} ({} suspended)", 
+            steve.getSteveName(), currentAction.getDescription(), suspended.size());
+        if (SteveConfig.ENABLE_CHAT_RESPONSES.get()) {
+            sendToGUI(steve.getSteveName(), "Pausing: " + currentAction.getDescription() + ". I'll get back to it.");
+        }
+        
+        while (suspended.size() > SteveConfig.SUSPEND_MAX_DEPTH.get()) {
+            discardSuspended(suspended.removeLast());
+        }
+        return true;
+    }
+    
+    /**
+     * Continue the most recently suspended action once the commands after it are done. Work
+     * suspended for longer than suspend.maxSeconds is dropped instead.
+     */
+    private void resumeSuspended() {
+        SuspendedWork work = suspended.pop();
+        long ageTicks = steve.level().getGameTime() - work.suspendedAt;
+        if (ageTicks > SteveConfig.SUSPEND_MAX_SECONDS.get() * 20L) {
+            SteveMod.LOGGER.info("Steve '{}' dropping {}, suspended for {}s", 
+                steve.getSteveName(), work.describe(), ageTicks / 20);
+            discardSuspended(work);
+            return;
+        }
+        
+        taskGraph = nextGraph = work.graph;
+        if (work.action == null) {
+            // Loaded from NBT: start the task again from its checkpoint
+            restoredCheckpoints.put(work.task, work.checkpoint);
+            taskQueue.add(work.task);
+        }
+        taskQueue.addAll(work.queue);
+        currentGoal = work.goal;
+        steve.getMemory().setCurrentGoal(currentGoal);
+        lodInterval = 1;
+        if (work.action != null) {
+            currentTask = work.task;
+            currentAction = work.action;
+            currentAction.resume();
+        }
+        SteveMod.LOGGER.info("Steve '{}' resumed {}", steve.getSteveName(), work.describe());
+        if (SteveConfig.ENABLE_CHAT_RESPONSES.get()) {
+            sendToGUI(steve.getSteveName(), "Back to: " + work.describe());
+        }
+    }
+    
+    private void discardSuspended(SuspendedWork work) {
+        if (work.action != null) {
+            work.action.cancel();
+        }
+        if (work.task != null) {
+            work.graph.fail(work.task);
+        }
+        work.queue.forEach(work.graph::fail);
+    }
+    
+    /**
+     * Apply plan updates delivered by planning workers. Runs on the server thread.
+     * Streamed tasks are queued as they arrive, so the first one can start while the model is
+     * still writing the rest; the final delivery only adds tasks the stream didn't already hand out.
+     */
+    private void drainPlanInbox() {
+        PlanDelivery delivery;
+        while ((delivery = planInbox.poll()) != null) {
+            if (delivery.generation != planGeneration) {
+                if (delivery.kind == PlanDelivery.Kind.COMPLETED || delivery.kind == PlanDelivery.Kind.FAILED) {
+                    SteveMod.LOGGER.info("Steve '{}' dropping stale plan for: {}", steve.getSteveName(), delivery.command);
+                }
+                failStale(delivery);
+                continue;
             }
+            
+            switch (delivery.kind) {
+                case PLAN_TEXT -> {
+                    if (SteveConfig.ENABLE_CHAT_RESPONSES.get()) {
+                        streamToGUI(steve.getSteveName(), "Okay! " + delivery.text, delivery.complete);
+                    }
+                }
+                case TASK -> {
+                    if (streamedGeneration != delivery.generation) {
+                        streamedGeneration = delivery.generation;
+                        streamedTasks.clear();
+                        replaceQueue(List.of());
+                        currentGoal = delivery.command;
+                    }
+                    Task queued = taskGraph.add(delivery.task);
+                    taskQueue.add(queued);
+                    streamedTasks.put(delivery.task, queued);
+                    SteveMod.LOGGER.info("Steve '{}' queued streamed task {}: {}", 
+                        steve.getSteveName(), streamedTasks.size(), delivery.task.getAction());
+                }
+                case RETRACTED -> {
+                    if (streamedGeneration == delivery.generation) {
+                        retractStreamedTask(delivery.task);
+                    }
+                }
+                case FAILED -> {
+                    planPending = false;
+                    steve.getMemory().getConversation().addUserMessage(delivery.command);
+                    steve.getMemory().getConversation().addAssistantMessage(delivery.text);
+                    sendToGUI(steve.getSteveName(), delivery.text);
+                }
+                case COMPLETED -> applyCompletedPlan(delivery);
+                case REPAIRED -> applyRepair(delivery);
+            }
+        }
+    }
+    
+    /**
+     * Take back a streamed task that was part of the model's reasoning: unqueue it, or cancel it if it
+     * already started. Its id is released rather than failed, the real plan usually reuses it.
+     */
+    private void retractStreamedTask(Task draft) {
+        Task queued = streamedTasks.remove(draft);
+        if (queued == null) {
+            return;
+        }
+        SteveMod.LOGGER.info("Steve '{}' retracting draft task: {}", steve.getSteveName(), queued.getAction());
+        if (queued == nextTask) {
+            discardNextAction();
+        }
+        if (queued == currentTask) {
+            if (currentAction != null) {
+                currentAction.cancel();
+                currentAction = null;
+            }
+            currentTask = null;
+        } else {
+            taskQueue.remove(queued);
+        }
+        taskGraph.discard(queued);
+    }
+    
+    /**
+     * Tasks of a dropped delivery that are already in a shared graph are failed there, so other
+     * Steves waiting on them give up instead of staying blocked.
+     */
+    private static void failStale(PlanDelivery delivery) {
+        if (delivery.graph == null) {
+            return;
+        }
+        if (delivery.kind == PlanDelivery.Kind.COMPLETED && delivery.response != null) {
+            delivery.response.getTasks().forEach(delivery.graph::fail);
+        } else if (delivery.kind == PlanDelivery.Kind.REPAIRED) {
+            delivery.graph.fail(delivery.task);
+        }
+    }
+    
+    private void applyCompletedPlan(PlanDelivery delivery) {
+        planPending = false;
+        ResponseParser.ParsedResponse response = delivery.response;
+        currentGoal = response.getPlan();
+        steve.getMemory().setCurrentGoal(currentGoal);
+        
+        List<Task> tasks = response.getTasks();
+        if (streamedGeneration == delivery.generation) {
+            // Streamed tasks are already queued (some may have started); the planner hands back the same
+            // objects, so append only the tasks the stream didn't deliver
+            for (Task task : tasks) {
+                if (!streamedTasks.containsKey(task)) {
+                    taskQueue.add(taskGraph.add(task));
+                }
+            }
+        } else {
+            replaceQueue(tasks);
+        }
+        streamedGeneration = -1;
+        streamedTasks.clear();
+        steve.getMemory().getConversation().addUserMessage(delivery.command);
+        steve.getMemory().getConversation().addAssistantMessage(currentGoal);
+        
+        // Send response to GUI pane only
+        if (SteveConfig.ENABLE_CHAT_RESPONSES.get()) {
+            sendToGUI(steve.getSteveName(), "Okay! " + currentGoal);
+        }
+        
+        SteveMod.LOGGER.info("Steve '{}' queued {} tasks", steve.getSteveName(), tasks.size());
+    }
+    
+    /**
+     * Ask a planning worker for tasks replacing {@code failedTask} while Steve carries on with the rest
+     * of the queue. Only the failed task, its error, the queued tasks and a trimmed situation are sent.
+     * Server thread only. Returns false if replanning is off or this command used up its attempts.
+     */
+    private boolean requestReplan(Task failedTask, String error) {
+        if (!SteveConfig.REPLAN_ENABLED.get() || replanAttempts >= SteveConfig.REPLAN_MAX_ATTEMPTS.get()) {
+            return false;
+        }
+        
+        TaskPlanner planner;
+        WorldKnowledge worldKnowledge;
+        try {
+            planner = getTaskPlanner();
+            worldKnowledge = new WorldKnowledge(steve);
         } catch (NoClassDefFoundError e) {
             SteveMod.LOGGER.error("Failed to initialize AI components", e);
-            sendToGUI(steve.getSteveName(), "Sorry, I'm having trouble with my AI systems!");
+            return false;
+        }
+        
+        int generation = planGeneration;
+        String command = currentGoal;
+        String steveName = steve.getSteveName();
+        List<Task> remainingTasks = new ArrayList<>(taskQueue);
+        TaskGraph graph = taskGraph;
+        boolean queued;
+        try {
+            queued = PlanningExecutor.submitBackground(() -> {
+                // Always answer, or the failed task would wait in awaitingRepair forever
+                ResponseParser.ParsedResponse response = null;
+                try {
+                    response = planner.replan(steveName, failedTask, error, remainingTasks, worldKnowledge);
+                } catch (Throwable t) {
+                    SteveMod.LOGGER.error("Replanning failed for Steve '{}': {}", steveName, failedTask, t);
+                } finally {
+                    planInbox.offer(PlanDelivery.repaired(generation, command, response, failedTask, graph));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            SteveMod.LOGGER.warn("Could not queue replan for Steve '{}'", steveName, e);
+            queued = false;
+        }
+        if (queued) {
+            replanAttempts++;
+            awaitingRepair.add(failedTask);
+            EventJournal.replan(steveName, failedTask.getAction(), replanAttempts);
+        }
+        return queued;
+    }
+    
+    /**
+     * Splice replacement tasks in front of the queue, so they run next. Tasks queued meanwhile stay
+     * after them in their original order.
+     */
+    private void applyRepair(PlanDelivery delivery) {
+        awaitingRepair.remove(delivery.task);
+        if (delivery.response == null) {
+            taskGraph.fail(delivery.task);
+            String message = "I couldn't find another way to " + delivery.task.getAction() + ".";
+            steve.getMemory().getConversation().addAssistantMessage(message);
+            sendToGUI(steve.getSteveName(), message);
+            return;
+        }
+        
+        List<Task> tasks = delivery.response.getTasks();
+        steve.getMemory().getConversation().addAssistantMessage(
+            "Replanned failed " + delivery.task.getAction() + ": " + delivery.response.getPlan());
+        if (tasks.isEmpty()) {
+            SteveMod.LOGGER.info("Steve '{}' skipping failed task: {}", steve.getSteveName(), delivery.task.getAction());
+            taskGraph.complete(delivery.task);
+            return;
         }
         
-        SteveMod.LOGGER.info("Steve '{}' queued {} tasks", steve.getSteveName(), taskQueue.size());
+        // The replacements take over the failed task's id, so its dependents wait for them instead
+        List<Task> queued = new ArrayList<>(taskQueue);
+        taskQueue.clear();
+        for (Task task : tasks) {
+            String id = delivery.task.getId() != null ? delivery.task.getId() : task.getId();
+            taskQueue.add(taskGraph.add(task.withDependencies(id, task.getDependsOn())));
+        }
+        taskQueue.addAll(queued);
+        taskGraph.complete(delivery.task);
+        
+        if (SteveConfig.ENABLE_CHAT_RESPONSES.get()) {
+            sendToGUI(steve.getSteveName(), "New plan: " + delivery.response.getPlan());
+        }
+        SteveMod.LOGGER.info("Steve '{}' spliced {} replacement tasks for failed {}", 
+            steve.getSteveName(), tasks.size(), delivery.task.getAction());
     }
     
     /**
@@ -83,9 +595,73 @@ public class ActionExecutor {
         }
     }
 
+    /**
+     * Update the in-progress plan message in the GUI pane while the plan is streaming.
+     * The integrated server shares the JVM with the client, so the panel can be updated
+     * directly; on a dedicated server there is no panel and this does nothing.
+     */
+    private void streamToGUI(String steveName, String text, boolean complete) {
+        DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () ->
+            com.steve.ai.client.SteveGUI.updateStreamingMessage(steveName, text, complete));
+    }
+
     public void tick() {
+        if (!isLogicTick()) {
+            TickBudget.skip(steve.getSteveName());
+            return;
+        }
+
+        TickBudget.begin();
+        try {
+            tickActions();
+        } finally {
+            TickBudget.end(steve.getSteveName(), currentAction);
+        }
+    }
+
+    /**
+     * Idle Steves and Steves far from players run their logic only every few ticks (TickLod);
+     * a delivered plan is always applied right away.
+     */
+    private boolean isLogicTick() {
+        if (!planInbox.isEmpty()) {
+            return true;
+        }
+        if (TickLod.phase(steve) % TickLod.REFRESH_TICKS == 0) {
+            lodInterval = TickLod.intervalFor(steve, isIdle());
+        }
+        return TickLod.isPhase(steve, lodInterval);
+    }
+
+    private boolean isIdle() {
+        return currentAction == null && taskQueue.isEmpty() && currentGoal == null;
+    }
+
+    /**
+     * Whether this Steve can take a shard of another Steve's job: idle and no plan on its way.
+     */
+    public boolean isAvailableForJobs() {
+        return isIdle() && planInbox.isEmpty() && !planPending && suspended.isEmpty();
+    }
+
+    /**
+     * Start helping with another Steve's shared job. Server thread only.
+     */
+    public void helpWithJob(JobPool.Job job) {
+        idleFollowAction.stop();
+        currentTask = null;
+        lodInterval = 1;
+        currentAction = new MineBlockAction(steve, job);
+        currentAction.start();
+    }
+
+    private void tickActions() {
         ticksSinceLastAction++;
         
+        if (!planInbox.isEmpty()) {
+            drainPlanInbox();
+        }
+        
         if (currentAction != null) {
             if (currentAction.isComplete()) {
                 ActionResult result = currentAction.getResult();
@@ -94,62 +670,164 @@ public class ActionExecutor {
                 
                 steve.getMemory().addAction(currentAction.getDescription());
                 
-                if (!result.isSuccess() && result.requiresReplanning()) {
-                    // Action failed, need to replan
-                    if (SteveConfig.ENABLE_CHAT_RESPONSES.get()) {
-                        sendToGUI(steve.getSteveName(), "Problem: " + result.getMessage());
+                if (result.isSuccess()) {
+                    if (currentTask != null) {
+                        taskGraph.complete(currentTask);
+                    }
+                } else {
+                    // Action failed: replan it in the background, the rest of the queue keeps going
+                    boolean replanning = currentTask != null && result.requiresReplanning()
+                        && requestReplan(currentTask, result.getMessage());
+                    if (!replanning && currentTask != null) {
+                        taskGraph.fail(currentTask);
+                    }
+                    if (result.requiresReplanning() && SteveConfig.ENABLE_CHAT_RESPONSES.get()) {
+                        sendToGUI(steve.getSteveName(), "Problem: " + result.getMessage()
+                            + (replanning ? " Looking for another way..." : ""));
                     }
                 }
                 
                 currentAction = null;
+                currentTask = null;
             } else {
-                if (ticksSinceLastAction % 100 == 0) {
-                    SteveMod.LOGGER.info("Steve '{}' - Ticking action: {}", 
+                if (ticksSinceLastAction % 100 == 0 && SteveMod.LOGGER.isDebugEnabled()) {
+                    SteveMod.LOGGER.debug("Steve '{}' - Ticking action: {}", 
                         steve.getSteveName(), currentAction.getDescription());
                 }
                 currentAction.tick();
+                prepareNextAction();
                 return;
             }
         }
 
-        if (ticksSinceLastAction >= SteveConfig.ACTION_TICK_DELAY.get()) {
-            if (!taskQueue.isEmpty()) {
-                Task nextTask = taskQueue.poll();
-                executeTask(nextTask);
+        if (ticksSinceLastAction >= SteveConfig.ACTION_TICK_DELAY.get() || nextAction != null) {
+            Task readyTask = pollReadyTask();
+            if (readyTask != null) {
+                executeTask(readyTask);
                 ticksSinceLastAction = 0;
                 return;
             }
         }
         
+        if (!suspended.isEmpty() && taskQueue.isEmpty() && awaitingRepair.isEmpty() && !planPending) {
+            resumeSuspended();
+            return;
+        }
+        
+        if (currentGoal != null && taskQueue.isEmpty() && awaitingRepair.isEmpty() && suspended.isEmpty() && !planPending) {
+            // The command is done: Steve is idle again (job pool, idle LOD, follow the player)
+            SteveMod.LOGGER.info("Steve '{}' finished: {}", steve.getSteveName(), currentGoal);
+            currentGoal = null;
+            steve.getMemory().setCurrentGoal("");
+        }
+        
         // When completely idle (no tasks, no goal), follow nearest player
-        if (taskQueue.isEmpty() && currentAction == null && currentGoal == null) {
-            if (idleFollowAction == null) {
-                idleFollowAction = new IdleFollowAction(steve);
-                idleFollowAction.start();
-            } else if (idleFollowAction.isComplete()) {
-                // Restart idle following if it stopped
-                idleFollowAction = new IdleFollowAction(steve);
-                idleFollowAction.start();
-            } else {
-                // Continue idle following
-                idleFollowAction.tick();
+        if (isIdle()) {
+            idleFollowAction.follow();
+        } else {
+            idleFollowAction.stop();
+        }
+    }
+
+    /**
+     * Take the first queued task whose dependencies are done. Tasks waiting for others stay queued in
+     * order; tasks whose dependencies failed are dropped. Null if nothing can start yet.
+     */
+    private Task pollReadyTask() {
+        if (taskQueue.isEmpty()) {
+            return null;
+        }
+        Iterator<Task> iterator = taskQueue.iterator();
+        while (iterator.hasNext()) {
+            Task task = iterator.next();
+            switch (taskGraph.stateOf(task)) {
+                case READY -> {
+                    iterator.remove();
+                    return task;
+                }
+                case DOOMED -> {
+                    iterator.remove();
+                    taskGraph.fail(task);
+                    SteveMod.LOGGER.info("Steve '{}' dropping {}, a task it depends on {} failed",
+                        steve.getSteveName(), task.getAction(), task.getDependsOn());
+                    if (SteveConfig.ENABLE_CHAT_RESPONSES.get()) {
+                        sendToGUI(steve.getSteveName(), "Skipping " + task.getAction() + ", something it needed failed.");
+                    }
+                }
+                case BLOCKED -> { }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * First queued task whose dependencies are done, left in the queue. Null if nothing can start yet.
+     */
+    private Task peekReadyTask() {
+        for (Task task : taskQueue) {
+            if (taskGraph.stateOf(task) == TaskGraph.State.READY) {
+                return task;
             }
-        } else if (idleFollowAction != null) {
-            idleFollowAction.cancel();
-            idleFollowAction = null;
         }
+        return null;
+    }
+
+    /**
+     * While the current action runs, create the action for the next ready task and let it prepare
+     * in the background (BaseAction.prepareAhead), so it can start the moment the current one ends.
+     */
+    private void prepareNextAction() {
+        if (nextTask != null || taskQueue.isEmpty() || !SteveConfig.PREPARE_AHEAD.get()) {
+            return;
+        }
+        Task task = peekReadyTask();
+        if (task == null) {
+            return;
+        }
+        nextTask = task;
+        nextAction = createAction(task);
+        if (nextAction != null) {
+            nextAction.prepareAhead();
+        }
+    }
+
+    private void discardNextAction() {
+        nextTask = null;
+        nextAction = null;
+    }
+
+    /**
+     * Replace the queued tasks with {@code tasks} from the plan being started. Tasks of the previous
+     * plan are dropped from its graph, so Steves waiting on them in a group plan give up.
+     */
+    private void replaceQueue(List<Task> tasks) {
+        if (nextGraph != taskGraph) {
+            taskQueue.forEach(taskGraph::fail);
+            awaitingRepair.forEach(taskGraph::fail);
+            awaitingRepair.clear();
+            taskGraph = nextGraph;
+        }
+        discardNextAction();
+        taskQueue.clear();
+        taskQueue.addAll(taskGraph.addAll(tasks));
     }
 
     private void executeTask(Task task) {
         SteveMod.LOGGER.info("Steve '{}' executing task: {} (action type: {})", 
             steve.getSteveName(), task, task.getAction());
         
-        currentAction = createAction(task);
+        currentAction = task == nextTask ? nextAction : createAction(task);
+        currentTask = task;
+        discardNextAction();
+        CompoundTag checkpoint = restoredCheckpoints.remove(task);
         
         if (currentAction == null) {
             SteveMod.LOGGER.error("FAILED to create action for task: {}", task);
             return;
         }
+        if (checkpoint != null) {
+            currentAction.loadCheckpoint(checkpoint);
+        }
 
         SteveMod.LOGGER.info("Created action: {} - starting now...", currentAction.getClass().getSimpleName());
         currentAction.start();
@@ -178,12 +856,165 @@ public class ActionExecutor {
             currentAction.cancel();
             currentAction = null;
         }
-        if (idleFollowAction != null) {
-            idleFollowAction.cancel();
-            idleFollowAction = null;
+        if (currentTask != null) {
+            taskGraph.fail(currentTask);
+            currentTask = null;
         }
+        idleFollowAction.stop();
+        taskQueue.forEach(taskGraph::fail);
+        awaitingRepair.forEach(taskGraph::fail);
+        awaitingRepair.clear();
         taskQueue.clear();
+        while (!suspended.isEmpty()) {
+            discardSuspended(suspended.pop());
+        }
+        restoredCheckpoints.clear();
+        discardNextAction();
+        taskGraph = nextGraph = new TaskGraph();
         currentGoal = null;
+        planPending = false;
+        planGeneration++;  // Discard any plan still being generated
+    }
+
+    /**
+     * Save the goal, the current task with its action's checkpoint, the queue and any suspended work,
+     * so the Steve carries on after a restart without planning again. Helping with another Steve's
+     * job and plans still being generated are not saved. Tasks waiting for a replan are saved in
+     * front of the queue and simply run again.
+     */
+    public void saveToNBT(CompoundTag tag) {
+        if (currentGoal != null) {
+            tag.putString("Goal", currentGoal);
+        }
+        if (currentTask != null && currentAction != null && !currentAction.isComplete()) {
+            CompoundTag current = writeTask(currentTask);
+            current.put("Checkpoint", currentAction.saveCheckpoint());
+            tag.put("Current", current);
+        }
+        
+        ListTag queue = new ListTag();
+        awaitingRepair.forEach(task -> queue.add(writeTask(task)));
+        taskQueue.forEach(task -> queue.add(writeTask(task)));
+        tag.put("Queue", queue);
+        tag.put("Graph", writeGraph(taskGraph));
+        
+        ListTag suspendedList = new ListTag();
+        for (SuspendedWork work : suspended) {
+            if (work.task == null) {
+                continue;
+            }
+            CompoundTag workTag = writeTask(work.task);
+            workTag.put("Checkpoint", work.action != null ? work.action.saveCheckpoint() : work.checkpoint);
+            if (work.goal != null) {
+                workTag.putString("Goal", work.goal);
+            }
+            ListTag workQueue = new ListTag();
+            work.queue.forEach(task -> workQueue.add(writeTask(task)));
+            workTag.put("Queue", workQueue);
+            workTag.put("Graph", writeGraph(work.graph));
+            suspendedList.add(workTag);
+        }
+        tag.put("Suspended", suspendedList);
+    }
+
+    /**
+     * Restore what {@link #saveToNBT} wrote. The saved current task goes back to the front of the
+     * queue and starts from its checkpoint on the first tick, once the Steve is in its level.
+     */
+    public void loadFromNBT(CompoundTag tag) {
+        currentGoal = tag.contains("Goal") ? tag.getString("Goal") : null;
+        taskGraph = nextGraph = readGraph(tag.getCompound("Graph"));
+        taskQueue.clear();
+        restoredCheckpoints.clear();
+        
+        List<Task> tasks = new ArrayList<>();
+        if (tag.contains("Current")) {
+            tasks.add(readTask(tag.getCompound("Current")));
+        }
+        tasks.addAll(readTasks(tag.getList("Queue", Tag.TAG_COMPOUND)));
+        taskQueue.addAll(taskGraph.addAll(tasks));
+        if (tag.contains("Current") && !taskQueue.isEmpty()) {
+            restoredCheckpoints.put(taskQueue.peek(), tag.getCompound("Current").getCompound("Checkpoint"));
+        }
+        
+        suspended.clear();
+        ListTag suspendedList = tag.getList("Suspended", Tag.TAG_COMPOUND);
+        long now = steve.level().getGameTime();
+        for (int i = 0; i < suspendedList.size(); i++) {
+            CompoundTag workTag = suspendedList.getCompound(i);
+            TaskGraph graph = readGraph(workTag.getCompound("Graph"));
+            Task task = graph.add(readTask(workTag));
+            List<Task> queue = graph.addAll(readTasks(workTag.getList("Queue", Tag.TAG_COMPOUND)));
+            String goal = workTag.contains("Goal") ? workTag.getString("Goal") : null;
+            suspended.addLast(new SuspendedWork(null, workTag.getCompound("Checkpoint"), task, queue, graph, goal, now));
+        }
+        
+        if (!taskQueue.isEmpty() || !suspended.isEmpty()) {
+            SteveMod.LOGGER.info("Steve '{}' restored {} queued tasks and {} suspended from save data",
+                steve.getSteveName(), taskQueue.size(), suspended.size());
+        }
+    }
+
+    /**
+     * A graph is saved as its id and the ids that already finished. Steves of the same group plan
+     * restore one shared graph from it, so their cross-Steve dependencies hold after a restart.
+     */
+    private static CompoundTag writeGraph(TaskGraph graph) {
+        CompoundTag tag = new CompoundTag();
+        tag.putString("Id", graph.getId());
+        CompoundTag finished = new CompoundTag();
+        graph.getFinishedIds().forEach(finished::putBoolean);
+        tag.put("Finished", finished);
+        return tag;
+    }
+
+    private static TaskGraph readGraph(CompoundTag tag) {
+        if (!tag.contains("Id")) {
+            return new TaskGraph();
+        }
+        TaskGraph graph = TaskGraph.restored(tag.getString("Id"));
+        CompoundTag finished = tag.getCompound("Finished");
+        for (String id : finished.getAllKeys()) {
+            graph.restoreFinished(id, finished.getBoolean(id));
+        }
+        return graph;
+    }
+
+    private static CompoundTag writeTask(Task task) {
+        CompoundTag tag = new CompoundTag();
+        tag.putString("Action", task.getAction());
+        tag.putString("Parameters", GSON.toJson(task.getParameters()));
+        if (task.getId() != null) {
+            tag.putString("Id", task.getId());
+        }
+        if (!task.getDependsOn().isEmpty()) {
+            ListTag dependsOn = new ListTag();
+            task.getDependsOn().forEach(id -> dependsOn.add(StringTag.valueOf(id)));
+            tag.put("DependsOn", dependsOn);
+        }
+        return tag;
+    }
+
+    /**
+     * Parameters go through JSON like cached plans, so numbers come back as doubles.
+     */
+    private static Task readTask(CompoundTag tag) {
+        Map<String, Object> parameters = GSON.fromJson(tag.getString("Parameters"), PARAMETERS_TYPE);
+        List<String> dependsOn = new ArrayList<>();
+        ListTag dependsOnTag = tag.getList("DependsOn", Tag.TAG_STRING);
+        for (int i = 0; i < dependsOnTag.size(); i++) {
+            dependsOn.add(dependsOnTag.getString(i));
+        }
+        return new Task(tag.getString("Action"), parameters != null ? parameters : new HashMap<>(),
+            tag.contains("Id") ? tag.getString("Id") : null, dependsOn);
+    }
+
+    private static List<Task> readTasks(ListTag list) {
+        List<Task> tasks = new ArrayList<>(list.size());
+        for (int i = 0; i < list.size(); i++) {
+            tasks.add(readTask(list.getCompound(i)));
+        }
+        return tasks;
     }
 
     public boolean isExecuting() {
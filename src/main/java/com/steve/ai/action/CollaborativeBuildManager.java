@@ -118,6 +118,30 @@ public class CollaborativeBuildManager {
         public int getProgressPercentage() {
             return (getBlocksPlaced() * 100) / buildPlan.size();
         }
+        
+        /**
+         * How far each section has got, for saving a build in progress.
+         */
+        public int[] getSectionCursors() {
+            int[] cursors = new int[sections.size()];
+            for (int i = 0; i < cursors.length; i++) {
+                cursors[i] = sections.get(i).getBlocksPlaced();
+            }
+            return cursors;
+        }
+        
+        /**
+         * Move sections forward to saved cursors, so blocks placed before a restart are not walked
+         * again. Ignored if the plan was divided differently.
+         */
+        public void restoreSectionCursors(int[] cursors) {
+            if (cursors.length != sections.size()) {
+                return;
+            }
+            for (int i = 0; i < cursors.length; i++) {
+                sections.get(i).nextBlockIndex.accumulateAndGet(cursors[i], Math::max);
+            }
+        }
     }
     
     /**
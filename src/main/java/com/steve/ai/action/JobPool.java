@@ -0,0 +1,181 @@
+package com.steve.ai.action;
+
+import com.steve.ai.SteveMod;
+import com.steve.ai.config.SteveConfig;
+import com.steve.ai.entity.SteveEntity;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Large mining tasks shared between Steves.
+ *
+ * The Steve that gets "mine 64 iron" opens a job and works it one shard (jobs.shardSize blocks) at a
+ * time. Idle Steves nearby are handed the same job by {@code SteveManager} and take shards too; a
+ * Steve that stops returns what it didn't mine. The job's Steve finishes once every shard is mined and
+ * reports the total for everyone. Server thread only.
+ */
+public class JobPool {
+    private final List<Job> jobs = new ArrayList<>();
+
+    public static class Job {
+        public final SteveEntity owner;
+        public final String block;
+        public final int total;
+        private final Set<String> helpers = new LinkedHashSet<>();  // Everyone who helped, for the report
+        private int activeHelpers;
+        private int unassigned;  // Not yet taken by any Steve
+        private int outstanding;  // Taken but not mined yet
+        private int mined;
+        private int nextLane = 1;  // The owner mines lane 0
+        private boolean cancelled;
+
+        Job(SteveEntity owner, String block, int total) {
+            this.owner = owner;
+            this.block = block;
+            this.total = total;
+            this.unassigned = total;
+        }
+
+        /**
+         * Take the next shard; returns its size, 0 when nothing is left to take.
+         */
+        public int takeShard() {
+            if (cancelled) {
+                return 0;
+            }
+            int shard = Math.min(SteveConfig.JOBS_SHARD_SIZE.get(), unassigned);
+            unassigned -= shard;
+            outstanding += shard;
+            return shard;
+        }
+
+        public void recordMined() {
+            mined++;
+            if (outstanding > 0) {
+                outstanding--;
+            }
+        }
+
+        /**
+         * Give back {@code count} blocks a Steve took but will not mine.
+         */
+        public void release(int count) {
+            int returned = Math.min(Math.max(0, count), outstanding);
+            outstanding -= returned;
+            unassigned += returned;
+        }
+
+        /**
+         * A helper stopped working on this job.
+         */
+        public void leave() {
+            activeHelpers = Math.max(0, activeHelpers - 1);
+        }
+
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isDone() {
+            return cancelled || (unassigned == 0 && outstanding == 0);
+        }
+
+        public int getMined() {
+            return mined;
+        }
+
+        public Set<String> getHelpers() {
+            return helpers;
+        }
+
+        /**
+         * Tunnel for the next helper, so helpers do not dig through each other's blocks.
+         */
+        public int nextLane() {
+            return nextLane++;
+        }
+
+        boolean wantsHelp() {
+            return !cancelled && unassigned > 0 && activeHelpers < SteveConfig.JOBS_MAX_HELPERS.get();
+        }
+
+        public String describe() {
+            return String.format("%s: %s %d/%d mined, %d open, %d in progress, helpers %s",
+                owner.getSteveName(), block, mined, total, unassigned, outstanding, helpers);
+        }
+    }
+
+    /**
+     * Whether a mining task of {@code quantity} should become a shared job.
+     */
+    public static boolean shouldShare(int quantity) {
+        return SteveConfig.JOBS_ENABLED.get() && quantity >= SteveConfig.JOBS_MIN_QUANTITY.get();
+    }
+
+    public Job open(SteveEntity owner, String block, int total) {
+        Job job = new Job(owner, block, total);
+        jobs.add(job);
+        SteveMod.LOGGER.info("Steve '{}' opened shared job: mine {} {}", owner.getSteveName(), total, block);
+        return job;
+    }
+
+    public void close(Job job) {
+        jobs.remove(job);
+    }
+
+    /**
+     * Drop jobs whose Steve is gone; their helpers stop after the current block.
+     */
+    public void closeOwnedBy(String steveName) {
+        Iterator<Job> iterator = jobs.iterator();
+        while (iterator.hasNext()) {
+            Job job = iterator.next();
+            if (job.owner.getSteveName().equals(steveName)) {
+                job.cancel();
+                iterator.remove();
+            }
+        }
+    }
+
+    public boolean hasOpenShards() {
+        for (Job job : jobs) {
+            if (job.wantsHelp()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * A job {@code steve} can help with: shards left, in the same level and within jobs.helpRange of
+     * its Steve. The helper is registered with the job. Null if there is none.
+     */
+    public Job claimHelp(SteveEntity steve) {
+        double range = SteveConfig.JOBS_HELP_RANGE.get();
+        for (Job job : jobs) {
+            if (job.owner != steve && job.wantsHelp() && job.owner.level() == steve.level()
+                    && job.owner.distanceToSqr(steve) <= range * range) {
+                job.helpers.add(steve.getSteveName());
+                job.activeHelpers++;
+                return job;
+            }
+        }
+        return null;
+    }
+
+    public List<String> describe() {
+        List<String> lines = new ArrayList<>();
+        for (Job job : jobs) {
+            lines.add(job.describe());
+        }
+        return lines;
+    }
+}
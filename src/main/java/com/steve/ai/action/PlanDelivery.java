@@ -0,0 +1,82 @@
+package com.steve.ai.action;
+
+import com.steve.ai.ai.ResponseParser;
+
+/**
+ * A plan update handed from a planning worker to the server thread.
+ * Posted into {@link ActionExecutor}'s inbox and applied on its next tick.
+ * While a response streams in, workers post TASK and PLAN_TEXT updates ahead of the final COMPLETED one,
+ * and RETRACTED for a streamed task that turned out to be part of the model's reasoning.
+ * REPAIRED carries replacement tasks for a task that failed (no response if replanning failed);
+ * {@link #task} is the failed task. {@link #graph} is set when the tasks are already in a task graph
+ * (group plans, repairs), so a delivery dropped as stale can fail them there.
+ */
+public class PlanDelivery {
+    public enum Kind {
+        PLAN_TEXT,
+        TASK,
+        RETRACTED,
+        COMPLETED,
+        FAILED,
+        REPAIRED
+    }
+
+    public final Kind kind;
+    public final int generation;
+    public final String command;
+    public final ResponseParser.ParsedResponse response;
+    public final Task task;
+    public final String text;  // Plan text so far, or the error message
+    public final boolean complete;
+    public final TaskGraph graph;
+
+    private PlanDelivery(Kind kind, int generation, String command, ResponseParser.ParsedResponse response,
+                         Task task, String text, boolean complete) {
+        this(kind, generation, command, response, task, text, complete, null);
+    }
+
+    private PlanDelivery(Kind kind, int generation, String command, ResponseParser.ParsedResponse response,
+                         Task task, String text, boolean complete, TaskGraph graph) {
+        this.kind = kind;
+        this.generation = generation;
+        this.command = command;
+        this.response = response;
+        this.task = task;
+        this.text = text;
+        this.complete = complete;
+        this.graph = graph;
+    }
+
+    public static PlanDelivery planText(int generation, String command, String planText, boolean complete) {
+        return new PlanDelivery(Kind.PLAN_TEXT, generation, command, null, null, planText, complete);
+    }
+
+    public static PlanDelivery task(int generation, String command, Task task) {
+        return new PlanDelivery(Kind.TASK, generation, command, null, task, null, false);
+    }
+
+    public static PlanDelivery retracted(int generation, String command, Task task) {
+        return new PlanDelivery(Kind.RETRACTED, generation, command, null, task, null, false);
+    }
+
+    public static PlanDelivery completed(int generation, String command, ResponseParser.ParsedResponse response) {
+        return new PlanDelivery(Kind.COMPLETED, generation, command, response, null, null, true);
+    }
+
+    /**
+     * A group plan member's tasks, already added to the group's shared {@code graph}.
+     */
+    public static PlanDelivery completed(int generation, String command, ResponseParser.ParsedResponse response,
+                                         TaskGraph graph) {
+        return new PlanDelivery(Kind.COMPLETED, generation, command, response, null, null, true, graph);
+    }
+
+    public static PlanDelivery repaired(int generation, String command, ResponseParser.ParsedResponse response,
+                                        Task failedTask, TaskGraph graph) {
+        return new PlanDelivery(Kind.REPAIRED, generation, command, response, failedTask, null, true, graph);
+    }
+
+    public static PlanDelivery failed(int generation, String command, String errorMessage) {
+        return new PlanDelivery(Kind.FAILED, generation, command, null, null, errorMessage, true);
+    }
+}
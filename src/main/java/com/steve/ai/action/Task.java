@@ -1,14 +1,30 @@
 package com.steve.ai.action;
 
+import java.util.List;
 import java.util.Map;
 
 public class Task {
     private final String action;
     private final Map<String, Object> parameters;
+    private final String id;  // Optional, referenced by other tasks' dependsOn
+    private final List<String> dependsOn;
 
     public Task(String action, Map<String, Object> parameters) {
+        this(action, parameters, null, List.of());
+    }
+
+    public Task(String action, Map<String, Object> parameters, String id, List<String> dependsOn) {
         this.action = action;
         this.parameters = parameters;
+        this.id = id;
+        this.dependsOn = dependsOn != null ? List.copyOf(dependsOn) : List.of();
+    }
+
+    /**
+     * Same action and parameters with a different id and dependencies.
+     */
+    public Task withDependencies(String id, List<String> dependsOn) {
+        return new Task(action, parameters, id, dependsOn);
     }
 
     public String getAction() {
@@ -19,6 +35,14 @@ public class Task {
         return parameters;
     }
 
+    public String getId() {
+        return id;
+    }
+
+    public List<String> getDependsOn() {
+        return dependsOn;
+    }
+
     public Object getParameter(String key) {
         return parameters.get(key);
     }
@@ -52,7 +76,9 @@ public class Task {
 
     @Override
     public String toString() {
-        return "Task{action='" + action + "', parameters=" + parameters + "}";
+        return "Task{action='" + action + "', parameters=" + parameters
+            + (id != null ? ", id='" + id + "'" : "")
+            + (!dependsOn.isEmpty() ? ", dependsOn=" + dependsOn : "") + "}";
     }
 }
 
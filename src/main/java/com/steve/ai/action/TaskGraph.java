@@ -0,0 +1,209 @@
+package com.steve.ai.action;
+
+import com.steve.ai.SteveMod;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Ordering constraints between the tasks of one plan.
+ *
+ * A task may carry an id and the ids it depends on. It is ready once every task with each of those
+ * ids has finished; a group plan shares one graph, so a Steve can wait for another Steve's task while
+ * independent tasks run in parallel. When a dependency fails, its dependents are doomed and get skipped.
+ * Ids nobody declared are ignored, and a dependency that would close a cycle is dropped when the task
+ * is added. Thread-safe: group plans are added on a planning worker, everything else on the server thread.
+ *
+ * Graphs are saved with the Steves' tasks under a stable id. Every Steve of a group plan restores the
+ * same graph from it, with the ids that had already finished. Because the Steves load one by one, a
+ * restored graph waits {@link #RESTORE_GRACE_MILLIS} for undeclared ids to show up before ignoring them.
+ */
+public class TaskGraph {
+    private static final long RESTORE_GRACE_MILLIS = 60_000;
+    private static final Map<String, WeakReference<TaskGraph>> restoredGraphs = new HashMap<>();
+
+    public enum State {
+        READY,
+        BLOCKED,
+        DOOMED
+    }
+
+    private static class Node {
+        int pending;  // Tasks with this id not finished yet
+        boolean failed;
+        final Set<String> dependsOn = new HashSet<>();
+    }
+
+    private final Map<String, Node> nodes = new HashMap<>();
+    private final Set<Task> unfinished = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final String id;
+    private final long restoredAt;  // Wall clock, 0 if not restored from a save
+
+    public TaskGraph() {
+        this(UUID.randomUUID().toString(), 0);
+    }
+
+    private TaskGraph(String id, long restoredAt) {
+        this.id = id;
+        this.restoredAt = restoredAt;
+    }
+
+    /**
+     * The graph saved as {@code id}, shared by every Steve that restores it.
+     */
+    public static TaskGraph restored(String id) {
+        synchronized (restoredGraphs) {
+            restoredGraphs.values().removeIf(ref -> ref.get() == null);
+            WeakReference<TaskGraph> ref = restoredGraphs.get(id);
+            TaskGraph graph = ref != null ? ref.get() : null;
+            if (graph == null) {
+                graph = new TaskGraph(id, System.currentTimeMillis());
+                restoredGraphs.put(id, new WeakReference<>(graph));
+            }
+            return graph;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Ids whose tasks have all finished, mapped to whether one of them failed. Saved with the graph;
+     * unfinished ids are declared again when their tasks are restored.
+     */
+    public synchronized Map<String, Boolean> getFinishedIds() {
+        Map<String, Boolean> finished = new HashMap<>();
+        nodes.forEach((taskId, node) -> {
+            if (node.pending == 0) {
+                finished.put(taskId, node.failed);
+            }
+        });
+        return finished;
+    }
+
+    public synchronized void restoreFinished(String taskId, boolean failed) {
+        Node node = nodes.computeIfAbsent(taskId, k -> new Node());
+        node.failed |= failed;
+    }
+
+    /**
+     * Add {@code task} and return the task to queue: the same one, or a copy without dependencies
+     * that would close a cycle. Adding a task twice does nothing.
+     */
+    public synchronized Task add(Task task) {
+        if (unfinished.contains(task)) {
+            return task;
+        }
+
+        Task added = task;
+        String id = task.getId();
+        if (id != null && !task.getDependsOn().isEmpty()) {
+            List<String> kept = new ArrayList<>();
+            for (String dependency : task.getDependsOn()) {
+                if (reaches(dependency, id, new HashSet<>())) {
+                    SteveMod.LOGGER.warn("Ignoring dependency of task '{}' on '{}', it would wait for itself", id, dependency);
+                } else {
+                    kept.add(dependency);
+                }
+            }
+            if (kept.size() != task.getDependsOn().size()) {
+                added = task.withDependencies(id, kept);
+            }
+        }
+
+        if (id != null) {
+            Node node = nodes.computeIfAbsent(id, k -> new Node());
+            node.pending++;
+            node.dependsOn.addAll(added.getDependsOn());
+        }
+        unfinished.add(added);
+        return added;
+    }
+
+    public synchronized List<Task> addAll(List<Task> tasks) {
+        List<Task> added = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            added.add(add(task));
+        }
+        return added;
+    }
+
+    private boolean reaches(String from, String target, Set<String> seen) {
+        if (from.equals(target)) {
+            return true;
+        }
+        if (!seen.add(from)) {
+            return false;
+        }
+        Node node = nodes.get(from);
+        if (node != null) {
+            for (String next : node.dependsOn) {
+                if (reaches(next, target, seen)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public synchronized State stateOf(Task task) {
+        State state = State.READY;
+        List<String> dependsOn = task.getDependsOn();
+        for (int i = 0; i < dependsOn.size(); i++) {  // Polled every tick while blocked
+            String dependency = dependsOn.get(i);
+            Node node = nodes.get(dependency);
+            if (node == null) {
+                if (restoredAt != 0 && System.currentTimeMillis() - restoredAt < RESTORE_GRACE_MILLIS) {
+                    state = State.BLOCKED;  // Its Steve may not be loaded yet
+                }
+                continue;
+            }
+            if (node.failed) {
+                return State.DOOMED;
+            }
+            if (node.pending > 0) {
+                state = State.BLOCKED;
+            }
+        }
+        return state;
+    }
+
+    public synchronized void complete(Task task) {
+        finish(task, false);
+    }
+
+    /**
+     * The task failed or was dropped; tasks depending on its id are doomed.
+     */
+    public synchronized void fail(Task task) {
+        finish(task, true);
+    }
+
+    /**
+     * Drop a task that should never have been added (a retracted draft) without dooming its id,
+     * which the real plan usually reuses.
+     */
+    public synchronized void discard(Task task) {
+        finish(task, false);
+    }
+
+    private void finish(Task task, boolean failed) {
+        if (!unfinished.remove(task) || task.getId() == null) {
+            return;  // Not in this graph, already finished, or nothing depends on it
+        }
+        Node node = nodes.get(task.getId());
+        node.pending--;
+        if (failed) {
+            node.failed = true;
+        }
+    }
+}
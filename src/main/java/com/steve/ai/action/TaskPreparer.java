@@ -0,0 +1,63 @@
+package com.steve.ai.action;
+
+import com.steve.ai.SteveMod;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Worker that prepares the next queued task while the current action is still running (see
+ * {@link com.steve.ai.action.actions.BaseAction#prepareAhead()}). Jobs must not touch the world:
+ * only file reads and parsing. One thread and a small queue; when it is full the action simply
+ * does the work itself when it starts.
+ */
+public class TaskPreparer {
+    private static final int QUEUE_SIZE = 16;
+    private static ThreadPoolExecutor executor;
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null || executor.isShutdown()) {
+            executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), runnable -> {
+                    Thread thread = new Thread(runnable, "Steve-Preparer");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+        }
+        return executor;
+    }
+
+    /**
+     * Run {@code job} on the worker. The future holds null if the job failed; the method returns
+     * null if the queue is full.
+     */
+    public static <T> CompletableFuture<T> submit(Supplier<T> job) {
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return job.get();
+                } catch (Throwable t) {
+                    SteveMod.LOGGER.error("Task preparation failed", t);
+                    return null;
+                }
+            }, getExecutor());
+        } catch (RejectedExecutionException e) {
+            SteveMod.LOGGER.debug("Preparation queue is full, task will prepare when it starts");
+            return null;
+        }
+    }
+
+    /**
+     * Stop the worker (server shutdown). A new one is created on the next submit.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
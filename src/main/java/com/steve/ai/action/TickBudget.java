@@ -0,0 +1,137 @@
+package com.steve.ai.action;
+
+import com.steve.ai.SteveMod;
+import com.steve.ai.action.actions.BaseAction;
+import com.steve.ai.config.SteveConfig;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-tick time budget for Steve work on the server thread.
+ *
+ * {@link ActionExecutor#tick()} opens a budget for its Steve, heavy work checks {@link #hasTime()}
+ * and stops at the deadline, keeping its cursor so it continues next tick ({@link #run(Slice)} does
+ * this for a {@link Slice}). Every Steve tick is timed; the slowest ones are logged and shown by
+ * /steve stats ticks. Server thread only.
+ */
+public class TickBudget {
+    private static final long REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final Map<String, SteveTicks> stats = new HashMap<>();
+
+    private static long startNanos;
+    private static long deadlineNanos = Long.MAX_VALUE;  // No limit outside a Steve tick
+
+    /**
+     * One unit of resumable work. Returns true when the whole job is done.
+     */
+    @FunctionalInterface
+    public interface Slice {
+        boolean step();
+    }
+
+    private static class SteveTicks {
+        long ticks;
+        long skipped;  // Server ticks left out by TickLod
+        long totalNanos;
+        long overBudget;
+        long maxNanos;
+        String maxWork = "";
+        long lastReportNanos;
+    }
+
+    public static void begin() {
+        startNanos = System.nanoTime();
+        deadlineNanos = startNanos + TimeUnit.MICROSECONDS.toNanos(SteveConfig.TICK_BUDGET_MICROS.get());
+    }
+
+    public static boolean hasTime() {
+        return System.nanoTime() < deadlineNanos;
+    }
+
+    /**
+     * Run {@code slice} until it is done or the budget is spent; at least one step runs, so work
+     * always moves forward. Returns true when the job is done.
+     */
+    public static boolean run(Slice slice) {
+        do {
+            if (slice.step()) {
+                return true;
+            }
+        } while (hasTime());
+        return false;
+    }
+
+    /**
+     * Close the budget opened by {@link #begin()}. {@code action} is what the Steve was doing, null if idle.
+     */
+    public static void end(String steveName, BaseAction action) {
+        long now = System.nanoTime();
+        long elapsed = now - startNanos;
+        boolean over = now > deadlineNanos;
+        deadlineNanos = Long.MAX_VALUE;
+
+        SteveTicks ticks = stats.computeIfAbsent(steveName, k -> new SteveTicks());
+        ticks.ticks++;
+        ticks.totalNanos += elapsed;
+        if (over) {
+            ticks.overBudget++;
+        }
+        if (elapsed > ticks.maxNanos) {
+            ticks.maxNanos = elapsed;
+            ticks.maxWork = describe(action);
+        }
+
+        int reportMicros = SteveConfig.TICK_REPORT_MICROS.get();
+        if (reportMicros > 0 && elapsed > TimeUnit.MICROSECONDS.toNanos(reportMicros)
+                && now - ticks.lastReportNanos > REPORT_INTERVAL_NANOS) {
+            ticks.lastReportNanos = now;
+            SteveMod.LOGGER.warn("Steve '{}' tick took {}µs ({}), budget is {}µs",
+                steveName, TimeUnit.NANOSECONDS.toMicros(elapsed), describe(action), SteveConfig.TICK_BUDGET_MICROS.get());
+        }
+    }
+
+    private static String describe(BaseAction action) {
+        return action != null ? action.getDescription() : "idle";
+    }
+
+    /**
+     * A server tick on which the Steve's logic did not run.
+     */
+    public static void skip(String steveName) {
+        SteveTicks ticks = stats.get(steveName);
+        if (ticks != null) {
+            ticks.skipped++;
+        }
+    }
+
+    public static void forget(String steveName) {
+        stats.remove(steveName);
+    }
+
+    /**
+     * One line per Steve, slowest first.
+     */
+    public static List<String> describe(int limit) {
+        List<Map.Entry<String, SteveTicks>> entries = new ArrayList<>(stats.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, SteveTicks> e) -> e.getValue().maxNanos).reversed());
+
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, SteveTicks> entry : entries.subList(0, Math.min(limit, entries.size()))) {
+            SteveTicks ticks = entry.getValue();
+            lines.add(String.format("%s: ticks=%d skipped=%d avg=%dµs overBudget=%d (%.1f%%) max=%dµs (%s)",
+                entry.getKey(), ticks.ticks, ticks.skipped, TimeUnit.NANOSECONDS.toMicros(ticks.totalNanos / Math.max(1, ticks.ticks)),
+                ticks.overBudget, ticks.ticks > 0 ? 100.0 * ticks.overBudget / ticks.ticks : 0.0,
+                TimeUnit.NANOSECONDS.toMicros(ticks.maxNanos), ticks.maxWork));
+        }
+        return lines;
+    }
+
+    public static void reset() {
+        stats.clear();
+    }
+}
@@ -0,0 +1,96 @@
+package com.steve.ai.action;
+
+import com.steve.ai.SteveMod;
+import com.steve.ai.config.SteveConfig;
+import com.steve.ai.entity.SteveEntity;
+import net.minecraft.world.entity.player.Player;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Logic tick rate for a Steve. Steves near a player tick every tick; further away the interval
+ * follows lod.distanceCurve, and idle Steves tick at most every lod.idleInterval ticks. Logic ticks
+ * are phased by entity ID, so Steves on the same interval do not all run on the same server tick.
+ */
+public class TickLod {
+    public static final int REFRESH_TICKS = 20;  // How often a Steve's interval is recomputed
+
+    private static String parsedCurve;
+    private static double[] curveDistancesSqr = new double[0];
+    private static int[] curveIntervals = new int[0];
+
+    /**
+     * Ticks between logic ticks for {@code steve}.
+     */
+    public static int intervalFor(SteveEntity steve, boolean idle) {
+        if (!SteveConfig.LOD_ENABLED.get()) {
+            return 1;
+        }
+
+        int interval = idle ? SteveConfig.LOD_IDLE_INTERVAL.get() : 1;
+        double distanceSqr = nearestPlayerDistanceSqr(steve);
+        double[] distances = getCurveDistancesSqr();
+        for (int i = 0; i < distances.length; i++) {
+            if (distanceSqr >= distances[i]) {
+                interval = Math.max(interval, curveIntervals[i]);
+            }
+        }
+        return interval;
+    }
+
+    /**
+     * True on the server ticks where a Steve with {@code interval} runs; the phase comes from its entity ID.
+     */
+    public static boolean isPhase(SteveEntity steve, int interval) {
+        return interval <= 1 || phase(steve) % interval == 0;
+    }
+
+    public static long phase(SteveEntity steve) {
+        return steve.level().getGameTime() + steve.getId();
+    }
+
+    private static double nearestPlayerDistanceSqr(SteveEntity steve) {
+        double nearest = Double.MAX_VALUE;
+        List<? extends Player> players = steve.level().players();
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            if (!player.isSpectator()) {
+                nearest = Math.min(nearest, steve.distanceToSqr(player));
+            }
+        }
+        return nearest;
+    }
+
+    private static double[] getCurveDistancesSqr() {
+        String curve = SteveConfig.LOD_DISTANCE_CURVE.get();
+        if (!curve.equals(parsedCurve)) {
+            parseCurve(curve);
+        }
+        return curveDistancesSqr;
+    }
+
+    private static void parseCurve(String curve) {
+        String[] points = curve.split(",");
+        double[] distances = new double[points.length];
+        int[] intervals = new int[points.length];
+        int count = 0;
+        for (String point : points) {
+            String[] parts = point.trim().split(":");
+            try {
+                int distance = Integer.parseInt(parts[0].trim());
+                int interval = Integer.parseInt(parts[1].trim());
+                distances[count] = (double) distance * distance;
+                intervals[count] = Math.max(1, interval);
+                count++;
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                if (!point.isBlank()) {
+                    SteveMod.LOGGER.warn("Ignoring invalid lod.distanceCurve entry '{}' (expected distance:interval)", point.trim());
+                }
+            }
+        }
+        curveDistancesSqr = Arrays.copyOf(distances, count);
+        curveIntervals = Arrays.copyOf(intervals, count);
+        parsedCurve = curve;
+    }
+}
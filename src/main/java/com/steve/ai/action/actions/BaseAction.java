@@ -2,7 +2,10 @@ package com.steve.ai.action.actions;
 
 import com.steve.ai.action.ActionResult;
 import com.steve.ai.action.Task;
+import com.steve.ai.action.TickBudget;
 import com.steve.ai.entity.SteveEntity;
+import com.steve.ai.journal.EventJournal;
+import net.minecraft.nbt.CompoundTag;
 
 public abstract class BaseAction {
     protected final SteveEntity steve;
@@ -10,6 +13,9 @@ public abstract class BaseAction {
     protected ActionResult result;
     protected boolean started = false;
     protected boolean cancelled = false;
+    private boolean suspended = false;
+    private TickBudget.Slice preparation;  // Heavy setup still running, onTick waits for it
+    private boolean endJournaled;
 
     public BaseAction(SteveEntity steve, Task task) {
         this.steve = steve;
@@ -19,18 +25,129 @@ public abstract class BaseAction {
     public void start() {
         if (started) return;
         started = true;
+        endJournaled = false;
+        if (isJournaled()) {
+            EventJournal.actionStarted(steve.getSteveName(), task.getAction(), steve.getBlockX(), steve.getBlockY(), steve.getBlockZ());
+        }
         onStart();
+        journalEnd();
     }
 
     public void tick() {
-        if (!started || isComplete()) return;
+        if (!started || suspended || isComplete()) return;
+        if (preparation != null) {
+            if (TickBudget.run(preparation)) {
+                preparation = null;
+            }
+            journalEnd();
+            return;
+        }
         onTick();
+        journalEnd();
+    }
+
+    /**
+     * Called on the server thread when this action's task is next in the queue, while the previous
+     * action is still running. Actions may hand world-independent setup (file reads, parsing) to
+     * {@link com.steve.ai.action.TaskPreparer} here, for onStart to pick up.
+     */
+    public void prepareAhead() {
+    }
+
+    /**
+     * Run heavy setup from onStart in slices within the tick budget; onTick starts once it is done.
+     * Setting a result from the slice ends the action.
+     */
+    protected void prepareInSlices(TickBudget.Slice slice) {
+        preparation = () -> slice.step() || isComplete();
+    }
+
+    protected boolean isPreparing() {
+        return preparation != null;
     }
 
     public void cancel() {
         cancelled = true;
         result = ActionResult.failure("Action cancelled");
         onCancel();
+        journalEnd();
+    }
+
+    /**
+     * Whether this action can be put aside for a new command and resumed afterwards instead of
+     * being cancelled.
+     */
+    public boolean canSuspend() {
+        return false;
+    }
+
+    /**
+     * Pause a running action, keeping its progress. It does not tick until {@link #resume()}.
+     */
+    public void suspend() {
+        if (!started || suspended || isComplete()) return;
+        suspended = true;
+        onSuspend();
+    }
+
+    public void resume() {
+        if (!suspended) return;
+        suspended = false;
+        if (!isComplete()) {
+            onResume();
+        }
+    }
+
+    public boolean isSuspended() {
+        return suspended;
+    }
+
+    /**
+     * Release what the action holds in the world (navigation, flying) while it is suspended.
+     */
+    protected void onSuspend() {
+        steve.getNavigation().stop();
+    }
+
+    protected void onResume() {
+    }
+
+    /**
+     * Progress checkpoint: what a new instance of this action for the same task needs to continue
+     * where this one stopped, in place of starting over. Empty if the action keeps no progress.
+     */
+    public CompoundTag saveCheckpoint() {
+        CompoundTag tag = new CompoundTag();
+        writeCheckpoint(tag);
+        return tag;
+    }
+
+    /**
+     * Continue from {@code tag}, written by {@link #saveCheckpoint()}. Call before {@link #start()}.
+     */
+    public void loadCheckpoint(CompoundTag tag) {
+        readCheckpoint(tag);
+    }
+
+    protected void writeCheckpoint(CompoundTag tag) {
+    }
+
+    protected void readCheckpoint(CompoundTag tag) {
+    }
+
+    private void journalEnd() {
+        if (started && !endJournaled && isComplete() && isJournaled()) {
+            endJournaled = true;
+            EventJournal.actionEnded(steve.getSteveName(), task.getAction(), steve.getBlockX(), steve.getBlockY(), steve.getBlockZ(),
+                result != null && result.isSuccess());
+        }
+    }
+
+    /**
+     * Whether starts and ends of this action go into the event journal.
+     */
+    protected boolean isJournaled() {
+        return true;
     }
 
     public boolean isComplete() {
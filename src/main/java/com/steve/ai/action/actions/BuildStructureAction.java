@@ -4,14 +4,18 @@ import com.steve.ai.SteveMod;
 import com.steve.ai.action.ActionResult;
 import com.steve.ai.action.CollaborativeBuildManager;
 import com.steve.ai.action.Task;
+import com.steve.ai.action.TaskPreparer;
 import com.steve.ai.entity.SteveEntity;
+import com.steve.ai.journal.EventJournal;
 import com.steve.ai.memory.StructureRegistry;
 import com.steve.ai.structure.StructureTemplateLoader;
 import com.steve.ai.structure.TextRenderer;
+import com.steve.ai.util.ActionUtils;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.particles.BlockParticleOption;
 import net.minecraft.core.particles.ParticleTypes;
 import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.nbt.CompoundTag;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.sounds.SoundSource;
@@ -22,6 +26,10 @@ import net.minecraft.world.level.block.state.BlockState;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 public class BuildStructureAction extends BaseAction {
     private static class BlockPlacement {
@@ -44,16 +52,44 @@ public class BuildStructureAction extends BaseAction {
     private static final int MAX_TICKS = 120000;
     private static final int BLOCKS_PER_TICK = 1;
     private static final double BUILD_SPEED_MULTIPLIER = 1.5;
+    private static final int PREPARE_BLOCKS_PER_STEP = 512;
+    private static final long TEMPLATE_WAIT_MILLIS = 2000;
+
+    private enum PreparePhase { TEMPLATE, CONVERT, GENERATE, COPY, REGISTER }
+
+    // Build preparation state, spread over several ticks by prepareStep()
+    private PreparePhase phase;
+    private BlockPos buildPos;
+    private int buildWidth;
+    private int buildHeight;
+    private int buildDepth;
+    private List<StructureTemplateLoader.TemplateBlock> templateBlocks;
+    private List<CollaborativeBuildManager.BlockPlacement> collaborativeBlocks;
+    private int prepareCursor;
+    private BlockPos checkpointPos; // Where the build was when the checkpoint was taken
+    private int[] checkpointSections; // Section cursors of the collaborative build at the checkpoint
+    private CompletableFuture<StructureTemplateLoader.LoadedTemplate> templateLoad; // Read ahead by prepareAhead
 
     public BuildStructureAction(SteveEntity steve, Task task) {
         super(steve, task);
     }
 
+    /**
+     * Read the structure's template file while the previous action is still running.
+     */
+    @Override
+    public void prepareAhead() {
+        String structure = task.getStringParameter("structure");
+        if (structure != null && templateLoad == null) {
+            String name = structure.toLowerCase();
+            templateLoad = TaskPreparer.submit(() -> StructureTemplateLoader.loadFromFiles(name));
+        }
+    }
+
     @Override
     protected void onStart() {
         structureType = task.getStringParameter("structure").toLowerCase();
         currentBlockIndex = 0;
-        ticksRunning = 0;
         collaborativeBuild = CollaborativeBuildManager.findActiveBuild(structureType);
         if (collaborativeBuild != null) {
             isCollaborative = true;
@@ -62,6 +98,7 @@ public class BuildStructureAction extends BaseAction {
             
             SteveMod.LOGGER.info("Steve '{}' JOINING collaborative build of '{}' ({}% complete) - FLYING & INVULNERABLE ENABLED", 
                 steve.getSteveName(), structureType, collaborativeBuild.getProgressPercentage());
+            restoreSectionCursors();
             
             buildMaterials = new ArrayList<>();
             buildMaterials.add(Blocks.OAK_PLANKS); // Default material
@@ -111,10 +148,13 @@ public class BuildStructureAction extends BaseAction {
             depth = task.getIntParameter("depth", 5);
         }
         
-        net.minecraft.world.entity.player.Player nearestPlayer = findNearestPlayer();
+        net.minecraft.world.entity.player.Player nearestPlayer = ActionUtils.findNearestPlayer(steve);
         BlockPos groundPos;
         
-        if (nearestPlayer != null) {
+        if (checkpointPos != null) {
+            // Continue the same build; blocks already in place are skipped while building
+            groundPos = checkpointPos;
+        } else if (nearestPlayer != null) {
             net.minecraft.world.phys.Vec3 eyePos = nearestPlayer.getEyePosition(1.0F);
             net.minecraft.world.phys.Vec3 lookVec = nearestPlayer.getLookAngle();
             
@@ -139,8 +179,8 @@ public class BuildStructureAction extends BaseAction {
             SteveMod.LOGGER.info("Building in player's field of view at {} (looking from {} towards {})", 
                 groundPos, eyePos, targetPos);
         } else {
-            BlockPos buildPos = steve.blockPosition().offset(2, 0, 2);
-            groundPos = findGroundLevel(buildPos);
+            BlockPos besideSteve = steve.blockPosition().offset(2, 0, 2);
+            groundPos = findGroundLevel(besideSteve);
         }
         
         if (groundPos == null) {
@@ -150,73 +190,133 @@ public class BuildStructureAction extends BaseAction {
         
         SteveMod.LOGGER.info("Found ground at Y={} (Build starting at {})", groundPos.getY(), groundPos);
         
-        BlockPos clearPos = groundPos;
-        
-        buildPlan = tryLoadFromTemplate(structureType, clearPos);
-        SteveMod.LOGGER.info("tryLoadFromTemplate returned: {} (null: {})", 
-            buildPlan != null ? buildPlan.size() + " blocks" : "null", buildPlan == null);
-        
-        if (buildPlan == null || buildPlan.isEmpty()) {
-            // Special handling for text structures
-            if ("text".equals(structureType) || "sign".equals(structureType)) {
-                String text = task.getStringParameter("text", "HELLO");
-                String textColor = task.getStringParameter("textColor", "yellow");
-                String backgroundColor = task.getStringParameter("backgroundColor", "blue");
-                
-                Block textBlock = parseColoredWool(textColor);
-                Block backgroundBlock = parseColoredWool(backgroundColor);
-                
-                SteveMod.LOGGER.info("Building text sign: '{}' with text color: {}, background color: {}", 
-                    text, textColor, backgroundColor);
+        buildPos = groundPos;
+        buildWidth = width;
+        buildHeight = height;
+        buildDepth = depth;
+        phase = PreparePhase.TEMPLATE;
+        prepareInSlices(this::prepareStep);
+    }
+
+    /**
+     * One slice of build preparation: load or generate the plan, then hand it to the collaborative
+     * build manager. Large plans are copied {@link #PREPARE_BLOCKS_PER_STEP} blocks at a time so a big
+     * structure does not stall the server tick. Returns true when the build is ready.
+     */
+    private boolean prepareStep() {
+        switch (phase) {
+            case TEMPLATE -> {
+                templateBlocks = tryLoadFromTemplate(structureType);
+                if (templateBlocks != null) {
+                    buildPlan = new ArrayList<>(templateBlocks.size());
+                    prepareCursor = 0;
+                    phase = PreparePhase.CONVERT;
+                } else {
+                    phase = PreparePhase.GENERATE;
+                }
+            }
+            case CONVERT -> {
+                int end = Math.min(prepareCursor + PREPARE_BLOCKS_PER_STEP, templateBlocks.size());
+                for (; prepareCursor < end; prepareCursor++) {
+                    var templateBlock = templateBlocks.get(prepareCursor);
+                    buildPlan.add(new BlockPlacement(buildPos.offset(templateBlock.relativePos), templateBlock.blockState.getBlock()));
+                }
+                if (prepareCursor == templateBlocks.size()) {
+                    SteveMod.LOGGER.info("Loaded '{}' from NBT template with {} blocks", structureType, buildPlan.size());
+                    templateBlocks = null;
+                    return planReady();
+                }
+            }
+            case GENERATE -> {
+                // Special handling for text structures
+                if ("text".equals(structureType) || "sign".equals(structureType)) {
+                    String text = task.getStringParameter("text", "HELLO");
+                    String textColor = task.getStringParameter("textColor", "yellow");
+                    String backgroundColor = task.getStringParameter("backgroundColor", "blue");
+                    
+                    Block textBlock = parseColoredWool(textColor);
+                    Block backgroundBlock = parseColoredWool(backgroundColor);
+                    
+                    SteveMod.LOGGER.info("Building text sign: '{}' with text color: {}, background color: {}", 
+                        text, textColor, backgroundColor);
+                    
+                    buildPlan = buildText(text, buildPos, buildWidth, buildHeight, buildDepth, textBlock, backgroundBlock);
+                } else {
+                    // Fall back to procedural generation
+                    SteveMod.LOGGER.info("NBT template not found or empty for '{}', using procedural generation", structureType);
+                    buildPlan = generateBuildPlan(structureType, buildPos, buildWidth, buildHeight, buildDepth);
+                }
                 
-                buildPlan = buildText(text, clearPos, width, height, depth, textBlock, backgroundBlock);
-            } else {
-                // Fall back to procedural generation
-                SteveMod.LOGGER.info("NBT template not found or empty for '{}', using procedural generation", structureType);
-                buildPlan = generateBuildPlan(structureType, clearPos, width, height, depth);
+                if (buildPlan != null && !buildPlan.isEmpty()) {
+                    SteveMod.LOGGER.info("Generated procedural '{}' with {} blocks (dimensions: {}x{}x{})", 
+                        structureType, buildPlan.size(), buildWidth, buildHeight, buildDepth);
+                } else {
+                    SteveMod.LOGGER.error("Procedural generation returned null or empty for '{}'", structureType);
+                }
+                return planReady();
             }
-            
-            if (buildPlan != null && !buildPlan.isEmpty()) {
-                SteveMod.LOGGER.info("Generated procedural '{}' with {} blocks (dimensions: {}x{}x{})", 
-                    structureType, buildPlan.size(), width, height, depth);
-            } else {
-                SteveMod.LOGGER.error("Procedural generation returned null or empty for '{}'", structureType);
+            case COPY -> {
+                int end = Math.min(prepareCursor + PREPARE_BLOCKS_PER_STEP, buildPlan.size());
+                for (; prepareCursor < end; prepareCursor++) {
+                    BlockPlacement bp = buildPlan.get(prepareCursor);
+                    collaborativeBlocks.add(new CollaborativeBuildManager.BlockPlacement(bp.pos, bp.block));
+                }
+                if (prepareCursor == buildPlan.size()) {
+                    phase = PreparePhase.REGISTER;
+                }
+            }
+            case REGISTER -> {
+                // Another Steve may have started the same structure while this plan was prepared
+                collaborativeBuild = CollaborativeBuildManager.findActiveBuild(structureType);
+                if (collaborativeBuild != null) {
+                    SteveMod.LOGGER.info("Steve '{}' JOINING existing {} collaborative build at {}", 
+                        steve.getSteveName(), structureType, collaborativeBuild.startPos);
+                } else {
+                    collaborativeBuild = CollaborativeBuildManager.registerBuild(structureType, collaborativeBlocks, buildPos);
+                    SteveMod.LOGGER.info("Steve '{}' CREATED new {} collaborative build at {}", 
+                        steve.getSteveName(), structureType, buildPos);
+                }
+                collaborativeBlocks = null;
+                return startBuilding();
             }
-        } else {
-            SteveMod.LOGGER.info("Loaded '{}' from NBT template with {} blocks", structureType, buildPlan.size());
         }
-        
+        return false;
+    }
+
+    /**
+     * The plan is complete: register the structure and join or copy it into a collaborative build.
+     */
+    private boolean planReady() {
         if (buildPlan == null || buildPlan.isEmpty()) {
             SteveMod.LOGGER.error("Cannot generate build plan for: {} (buildPlan is null: {}, empty: {})", 
                 structureType, buildPlan == null, buildPlan != null && buildPlan.isEmpty());
             result = ActionResult.failure("Cannot generate build plan for: " + structureType);
-            return;
+            return true;
         }
         
-        StructureRegistry.register(clearPos, width, height, depth, structureType);
+        StructureRegistry.register(buildPos, buildWidth, buildHeight, buildDepth, structureType);
         
         collaborativeBuild = CollaborativeBuildManager.findActiveBuild(structureType);
-        
         if (collaborativeBuild != null) {
-            isCollaborative = true;
             SteveMod.LOGGER.info("Steve '{}' JOINING existing {} collaborative build at {}", 
                 steve.getSteveName(), structureType, collaborativeBuild.startPos);
-        } else {
-            List<CollaborativeBuildManager.BlockPlacement> collaborativeBlocks = new ArrayList<>();
-            for (BlockPlacement bp : buildPlan) {
-                collaborativeBlocks.add(new CollaborativeBuildManager.BlockPlacement(bp.pos, bp.block));
-            }
-            
-            collaborativeBuild = CollaborativeBuildManager.registerBuild(structureType, collaborativeBlocks, clearPos);
-            isCollaborative = true;
-            SteveMod.LOGGER.info("Steve '{}' CREATED new {} collaborative build at {}", 
-                steve.getSteveName(), structureType, clearPos);
+            return startBuilding();
         }
         
+        collaborativeBlocks = new ArrayList<>(buildPlan.size());
+        prepareCursor = 0;
+        phase = PreparePhase.COPY;
+        return false;
+    }
+
+    private boolean startBuilding() {
+        isCollaborative = true;
         steve.setFlying(true);
+        restoreSectionCursors();
         
         SteveMod.LOGGER.info("Steve '{}' starting COLLABORATIVE build of {} at {} with {} blocks using materials: {} [FLYING ENABLED]", 
-            steve.getSteveName(), structureType, clearPos, buildPlan.size(), buildMaterials);
+            steve.getSteveName(), structureType, buildPos, buildPlan.size(), buildMaterials);
+        return true;
     }
 
     @Override
@@ -282,7 +382,7 @@ public class BuildStructureAction extends BaseAction {
                 double distance = Math.sqrt(steve.blockPosition().distSqr(pos));
                 if (distance > 5) {
                     steve.teleportTo(pos.getX() + 2, pos.getY(), pos.getZ() + 2);
-                    SteveMod.LOGGER.info("Steve '{}' teleported to block at {}", steve.getSteveName(), pos);
+                    SteveMod.LOGGER.debug("Steve '{}' teleported to block at {}", steve.getSteveName(), pos);
                 }
                 
                 steve.getLookControl().setLookAt(pos.getX() + 0.5, pos.getY() + 0.5, pos.getZ() + 0.5);
@@ -292,10 +392,13 @@ public class BuildStructureAction extends BaseAction {
                 BlockState blockState = placement.block.defaultBlockState();
                 steve.level().setBlock(pos, blockState, 3);
                 blocksPlacedThisTick++;
+                EventJournal.blockPlaced(steve.getSteveName(), pos.getX(), pos.getY(), pos.getZ(), placement.block);
                 
-                SteveMod.LOGGER.info("Steve '{}' PLACED BLOCK at {} - Total: {}/{}", 
-                    steve.getSteveName(), pos, collaborativeBuild.getBlocksPlaced(), 
-                    collaborativeBuild.getTotalBlocks());
+                if (SteveMod.LOGGER.isDebugEnabled()) {
+                    SteveMod.LOGGER.debug("Steve '{}' PLACED BLOCK at {} - Total: {}/{}", 
+                        steve.getSteveName(), pos, collaborativeBuild.getBlocksPlaced(), 
+                        collaborativeBuild.getTotalBlocks());
+                }
                 
                 // Particles and sound
                 if (steve.level() instanceof ServerLevel serverLevel) {
@@ -326,6 +429,60 @@ public class BuildStructureAction extends BaseAction {
         }
     }
 
+    @Override
+    public boolean canSuspend() {
+        return true;
+    }
+
+    @Override
+    protected void onSuspend() {
+        steve.setFlying(false);
+        steve.getNavigation().stop();
+    }
+
+    @Override
+    protected void onResume() {
+        if (!isPreparing()) {
+            steve.setFlying(true);
+        }
+    }
+
+    /**
+     * The plan is rebuilt from the same position on restart, so the section cursors pick up at the
+     * block the build stopped at.
+     */
+    private void restoreSectionCursors() {
+        if (checkpointSections != null && collaborativeBuild != null) {
+            collaborativeBuild.restoreSectionCursors(checkpointSections);
+            checkpointSections = null;
+        }
+    }
+
+    @Override
+    protected void writeCheckpoint(CompoundTag tag) {
+        BlockPos pos = buildPos != null ? buildPos : (collaborativeBuild != null ? collaborativeBuild.startPos : null);
+        if (pos != null) {
+            tag.putLong("pos", pos.asLong());
+            tag.putInt("ticks", ticksRunning);
+        }
+        if (collaborativeBuild != null) {
+            tag.putIntArray("sections", collaborativeBuild.getSectionCursors());
+        } else if (checkpointSections != null) {
+            tag.putIntArray("sections", checkpointSections);
+        }
+    }
+
+    @Override
+    protected void readCheckpoint(CompoundTag tag) {
+        if (tag.contains("pos")) {
+            checkpointPos = BlockPos.of(tag.getLong("pos"));
+            ticksRunning = tag.getInt("ticks");
+        }
+        if (tag.contains("sections")) {
+            checkpointSections = tag.getIntArray("sections");
+        }
+    }
+
     @Override
     protected void onCancel() {
         steve.setFlying(false); // Disable flying when cancelled
@@ -334,6 +491,9 @@ public class BuildStructureAction extends BaseAction {
 
     @Override
     public String getDescription() {
+        if (isPreparing()) {
+            return "Build " + structureType + " (preparing)";
+        }
         return "Build " + structureType + " (" + currentBlockIndex + "/" + (buildPlan != null ? buildPlan.size() : 0) + ")";
     }
 
@@ -981,14 +1141,17 @@ public class BuildStructureAction extends BaseAction {
      * Try to load structure from NBT template file
      * Returns null if no template found (falls back to procedural generation)
      */
-    private List<BlockPlacement> tryLoadFromTemplate(String structureName, BlockPos startPos) {
+    private List<StructureTemplateLoader.TemplateBlock> tryLoadFromTemplate(String structureName) {
         if (!(steve.level() instanceof ServerLevel serverLevel)) {
             SteveMod.LOGGER.debug("Level is not ServerLevel, cannot load template");
             return null;
         }
         
         SteveMod.LOGGER.info("Attempting to load NBT template for '{}'", structureName);
-        var template = StructureTemplateLoader.loadFromNBT(serverLevel, structureName);
+        var template = templateLoad != null ? awaitTemplateLoad() : StructureTemplateLoader.loadFromFiles(structureName);
+        if (template == null) {
+            template = StructureTemplateLoader.loadFromResources(serverLevel, structureName);
+        }
         if (template == null) {
             SteveMod.LOGGER.info("Template '{}' not found in NBT files", structureName);
             return null;
@@ -999,43 +1162,23 @@ public class BuildStructureAction extends BaseAction {
             return null;
         }
         
-        List<BlockPlacement> blocks = new ArrayList<>();
-        for (var templateBlock : template.blocks) {
-            BlockPos worldPos = startPos.offset(templateBlock.relativePos);
-            Block block = templateBlock.blockState.getBlock();
-            blocks.add(new BlockPlacement(worldPos, block));
-        }
-        
-        SteveMod.LOGGER.info("Successfully loaded template '{}' with {} blocks", structureName, blocks.size());
-        return blocks;
+        SteveMod.LOGGER.info("Successfully loaded template '{}' with {} blocks", structureName, template.blocks.size());
+        return template.blocks;
     }
     
     /**
-     * Find the nearest player to build in front of
+     * The template read by {@link #prepareAhead()}. Usually done by now; if the read is still running,
+     * waiting for it is never slower than reading the file here.
      */
-    private net.minecraft.world.entity.player.Player findNearestPlayer() {
-        java.util.List<? extends net.minecraft.world.entity.player.Player> players = steve.level().players();
-        
-        if (players.isEmpty()) {
-            return null;
-        }
-        
-        net.minecraft.world.entity.player.Player nearest = null;
-        double nearestDistance = Double.MAX_VALUE;
-        
-        for (net.minecraft.world.entity.player.Player player : players) {
-            if (!player.isAlive() || player.isRemoved() || player.isSpectator()) {
-                continue;
-            }
-            
-            double distance = steve.distanceTo(player);
-            if (distance < nearestDistance) {
-                nearest = player;
-                nearestDistance = distance;
-            }
+    private StructureTemplateLoader.LoadedTemplate awaitTemplateLoad() {
+        try {
+            return templateLoad.get(TEMPLATE_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            SteveMod.LOGGER.warn("Template read ahead for '{}' did not finish, reading it now", structureType);
         }
-        
-        return nearest;
+        return StructureTemplateLoader.loadFromFiles(structureType);
     }
     
 }
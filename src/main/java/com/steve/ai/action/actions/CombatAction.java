@@ -3,6 +3,7 @@ package com.steve.ai.action.actions;
 import com.steve.ai.action.ActionResult;
 import com.steve.ai.action.Task;
 import com.steve.ai.entity.SteveEntity;
+import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.entity.monster.Monster;
@@ -26,7 +27,6 @@ public class CombatAction extends BaseAction {
     @Override
     protected void onStart() {
         targetType = task.getStringParameter("target");
-        ticksRunning = 0;
         ticksStuck = 0;
         
         // Make sure we're not flying (in case we were building)
@@ -109,6 +109,35 @@ public class CombatAction extends BaseAction {
         }
     }
 
+    @Override
+    public boolean canSuspend() {
+        return true;
+    }
+
+    @Override
+    protected void onSuspend() {
+        steve.setInvulnerableBuilding(false);
+        steve.getNavigation().stop();
+        steve.setSprinting(false);
+        target = null; // Looked up again on resume, it may be gone by then
+    }
+
+    @Override
+    protected void onResume() {
+        steve.setInvulnerableBuilding(true);
+        ticksStuck = 0;
+    }
+
+    @Override
+    protected void writeCheckpoint(CompoundTag tag) {
+        tag.putInt("ticks", ticksRunning);
+    }
+
+    @Override
+    protected void readCheckpoint(CompoundTag tag) {
+        ticksRunning = tag.getInt("ticks");
+    }
+
     @Override
     protected void onCancel() {
         steve.setInvulnerableBuilding(false);
@@ -3,6 +3,7 @@ package com.steve.ai.action.actions;
 import com.steve.ai.action.ActionResult;
 import com.steve.ai.action.Task;
 import com.steve.ai.entity.SteveEntity;
+import com.steve.ai.util.ActionUtils;
 import net.minecraft.world.entity.player.Player;
 
 import java.util.List;
@@ -12,6 +13,7 @@ public class FollowPlayerAction extends BaseAction {
     private Player targetPlayer;
     private int ticksRunning;
     private static final int MAX_TICKS = 6000; // 5 minutes
+    private static final int REPATH_INTERVAL = 10; // Recompute the path to a moving player every 0.5 seconds
 
     public FollowPlayerAction(SteveEntity steve, Task task) {
         super(steve, task);
@@ -48,7 +50,9 @@ public class FollowPlayerAction extends BaseAction {
         
         double distance = steve.distanceTo(targetPlayer);
         if (distance > 3.0) {
-            steve.getNavigation().moveTo(targetPlayer, 1.0);
+            if (steve.getNavigation().isDone() || ticksRunning % REPATH_INTERVAL == 0) {
+                steve.getNavigation().moveTo(targetPlayer, 1.0);
+            }
         } else if (distance < 2.0) {
             steve.getNavigation().stop();
         }
@@ -77,16 +81,7 @@ public class FollowPlayerAction extends BaseAction {
         
         if (playerName != null && (playerName.contains("PLAYER") || playerName.contains("NAME") || 
             playerName.equalsIgnoreCase("me") || playerName.equalsIgnoreCase("you") || playerName.isEmpty())) {
-            Player nearest = null;
-            double nearestDistance = Double.MAX_VALUE;
-            
-            for (Player player : players) {
-                double distance = steve.distanceTo(player);
-                if (distance < nearestDistance) {
-                    nearest = player;
-                    nearestDistance = distance;
-                }
-            }
+            Player nearest = ActionUtils.findNearestPlayer(steve);
             
             if (nearest != null) {
                 targetPlayer = nearest;
@@ -4,15 +4,17 @@ import com.steve.ai.SteveMod;
 import com.steve.ai.action.ActionResult;
 import com.steve.ai.action.Task;
 import com.steve.ai.entity.SteveEntity;
+import com.steve.ai.util.ActionUtils;
 import net.minecraft.world.entity.player.Player;
 
 import java.util.HashMap;
-import java.util.List;
 
 /**
  * Idle behavior for Steve - follows the nearest player when not working.
  * This action runs continuously until a task is given.
  * Teleports to player if too far away.
+ * One instance serves a Steve for its whole life, started and stopped with {@link #follow()} /
+ * {@link #stop()}.
  */
 public class IdleFollowAction extends BaseAction {
     private Player targetPlayer;
@@ -21,14 +23,38 @@ public class IdleFollowAction extends BaseAction {
     private static final double FOLLOW_DISTANCE = 4.0; // Stay this far from player
     private static final double MIN_DISTANCE = 2.5; // Stop moving if closer than this
     private static final double TELEPORT_DISTANCE = 50.0; // Teleport if further than 50 blocks
+    private static final int REPATH_INTERVAL = 10; // Recompute the path to a moving player every 0.5 seconds
 
     public IdleFollowAction(SteveEntity steve) {
         super(steve, new Task("idle_follow", new HashMap<>()));
     }
 
+    /**
+     * Start following, or keep following if already running. Called every logic tick while idle.
+     */
+    public void follow() {
+        if (started && !isComplete()) {
+            tick();
+            return;
+        }
+        started = false;
+        cancelled = false;
+        result = null;
+        start();
+    }
+
+    /**
+     * Stop following when Steve gets work; {@link #follow()} starts again later.
+     */
+    public void stop() {
+        if (started && !isComplete()) {
+            cancel();
+        }
+    }
+
     @Override
     protected void onStart() {
-        ticksSincePlayerSearch = 0;
+        ticksSincePlayerSearch = steve.getId() % PLAYER_SEARCH_INTERVAL;  // Spread searches of many Steves over the interval
         findNearestPlayer();
         
         if (targetPlayer == null) {
@@ -80,12 +106,15 @@ public class IdleFollowAction extends BaseAction {
             steve.teleportTo(targetX, targetY, targetZ);
             steve.getNavigation().stop(); // Clear navigation after teleport
             
-            SteveMod.LOGGER.info("Steve '{}' teleported to player (was {} blocks away)", 
+            SteveMod.LOGGER.debug("Steve '{}' teleported to player (was {} blocks away)", 
                 steve.getSteveName(), (int)distance);
             
         } else if (distance > FOLLOW_DISTANCE) {
             // Too far, move closer (normal walking)
-            steve.getNavigation().moveTo(targetPlayer, 1.0);
+            // Each moveTo builds a new path, so only repath when the last one ran out or periodically
+            if (steve.getNavigation().isDone() || ticksSincePlayerSearch % REPATH_INTERVAL == 0) {
+                steve.getNavigation().moveTo(targetPlayer, 1.0);
+            }
         } else if (distance < MIN_DISTANCE) {
             // Too close, stop
             steve.getNavigation().stop();
@@ -108,31 +137,16 @@ public class IdleFollowAction extends BaseAction {
         return "Following player (idle)";
     }
 
+    @Override
+    protected boolean isJournaled() {
+        return false;  // Starts and stops with every task, it would drown out the real actions
+    }
+
     /**
      * Find the nearest player to follow
      */
     private void findNearestPlayer() {
-        List<? extends Player> players = steve.level().players();
-        
-        if (players.isEmpty()) {
-            targetPlayer = null;
-            return;
-        }
-        
-        Player nearest = null;
-        double nearestDistance = Double.MAX_VALUE;
-        
-        for (Player player : players) {
-            if (!player.isAlive() || player.isRemoved() || player.isSpectator()) {
-                continue;
-            }
-            
-            double distance = steve.distanceTo(player);
-            if (distance < nearestDistance) {
-                nearest = player;
-                nearestDistance = distance;
-            }
-        }
+        Player nearest = ActionUtils.findNearestPlayer(steve);
         
         if (nearest != targetPlayer && nearest != null) {
             SteveMod.LOGGER.debug("Steve '{}' now following {} (idle)", 
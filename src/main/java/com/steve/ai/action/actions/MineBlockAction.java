@@ -2,9 +2,14 @@ package com.steve.ai.action.actions;
 
 import com.steve.ai.SteveMod;
 import com.steve.ai.action.ActionResult;
+import com.steve.ai.action.JobPool;
 import com.steve.ai.action.Task;
+import com.steve.ai.action.TickBudget;
 import com.steve.ai.entity.SteveEntity;
+import com.steve.ai.journal.EventJournal;
+import com.steve.ai.util.ActionUtils;
 import net.minecraft.core.BlockPos;
+import net.minecraft.nbt.CompoundTag;
 import net.minecraft.world.InteractionHand;
 import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
@@ -12,9 +17,7 @@ import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.world.level.block.state.BlockState;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 public class MineBlockAction extends BaseAction {
@@ -35,6 +38,16 @@ public class MineBlockAction extends BaseAction {
     private static final int MIN_LIGHT_LEVEL = 8;
     private static final int MINING_DELAY = 10;
     private static final int MAX_MINING_RADIUS = 5;
+    private static final int SCAN_DISTANCE = 20;
+    private static final int[] SCAN_Y_OFFSETS = {0, -1, 1}; // Nearest first
+    private int scanDistance = 0; // Where an unfinished ore scan continues
+    private final BlockPos.MutableBlockPos scanPos = new BlockPos.MutableBlockPos(); // Reused by every scan step
+    private static final int LANE_SPACING = 3; // Blocks between the tunnels of Steves sharing a job
+    private JobPool.Job job; // Shared job for large quantities, null when mining alone
+    private boolean helping; // Working on another Steve's job
+    private int allotted; // Blocks taken from the job so far
+    private int lane; // Tunnel offset from the job's Steve
+    private boolean leftJob;
     
     // Ore depth mappings for intelligent mining
     private static final Map<String, Integer> ORE_DEPTHS = new HashMap<>() {{
@@ -57,12 +70,19 @@ public class MineBlockAction extends BaseAction {
         super(steve, task);
     }
 
+    /**
+     * Help with another Steve's shared job, in a tunnel next to theirs.
+     */
+    public MineBlockAction(SteveEntity steve, JobPool.Job job) {
+        super(steve, new Task("mine", new HashMap<>(Map.of("block", job.block))));
+        this.job = job;
+        this.helping = true;
+    }
+
     @Override
     protected void onStart() {
         String blockName = task.getStringParameter("block");
         targetQuantity = task.getIntParameter("quantity", 8); // Mine reasonable amount by default
-        minedCount = 0;
-        ticksRunning = 0;
         ticksSinceLastTorch = 0;
         ticksSinceLastMine = 0;
         
@@ -73,7 +93,16 @@ public class MineBlockAction extends BaseAction {
             return;
         }
         
-        net.minecraft.world.entity.player.Player nearestPlayer = findNearestPlayer();
+        if (helping) {
+            lane = job.nextLane();
+            allotted = job.takeShard();
+        } else if (JobPool.shouldShare(targetQuantity - minedCount)) {
+            job = SteveMod.getSteveManager().getJobPool().open(steve, blockName, targetQuantity - minedCount);
+            allotted = minedCount + job.takeShard();
+        }
+        
+        boolean restored = miningStartPos != null; // From a checkpoint
+        net.minecraft.world.entity.player.Player nearestPlayer = restored ? null : ActionUtils.findNearestPlayer(steve);
         if (nearestPlayer != null) {
             net.minecraft.world.phys.Vec3 eyePos = nearestPlayer.getEyePosition(1.0F);
             net.minecraft.world.phys.Vec3 lookVec = nearestPlayer.getLookAngle();
@@ -99,6 +128,9 @@ public class MineBlockAction extends BaseAction {
                 (int)Math.floor(targetPos.z)
             );
             
+            // Helpers dig parallel tunnels beside the job's Steve
+            lookTarget = lookTarget.offset(-miningDirectionZ * lane * LANE_SPACING, 0, miningDirectionX * lane * LANE_SPACING);
+            
             miningStartPos = lookTarget;
             for (int y = lookTarget.getY(); y > lookTarget.getY() - 20 && y > -64; y--) {
                 BlockPos groundCheck = new BlockPos(lookTarget.getX(), y, lookTarget.getZ());
@@ -115,6 +147,10 @@ public class MineBlockAction extends BaseAction {
             int dirIndex = miningDirectionZ == -1 ? 0 : (miningDirectionX == 1 ? 1 : (miningDirectionZ == 1 ? 2 : 3));
             SteveMod.LOGGER.info("Steve '{}' mining {} in ONE direction: {}", 
                 steve.getSteveName(), targetBlock.getName().getString(), dirNames[dirIndex]);
+        } else if (restored) {
+            steve.teleportTo(currentTunnelPos.getX() + 0.5, currentTunnelPos.getY(), currentTunnelPos.getZ() + 0.5);
+            SteveMod.LOGGER.info("Steve '{}' continuing to mine {} at {} ({}/{} mined)", 
+                steve.getSteveName(), blockName, currentTunnelPos, minedCount, targetQuantity);
         } else {
             miningStartPos = steve.blockPosition();
             currentTunnelPos = miningStartPos;
@@ -142,10 +178,19 @@ public class MineBlockAction extends BaseAction {
         if (ticksRunning > MAX_TICKS) {
             steve.setFlying(false);
             steve.setItemInHand(InteractionHand.MAIN_HAND, net.minecraft.world.item.ItemStack.EMPTY);
+            leaveJob();
             result = ActionResult.failure("Mining timeout - only found " + minedCount + " blocks");
             return;
         }
         
+        if (helping && job.isCancelled()) {
+            steve.setFlying(false);
+            steve.setItemInHand(InteractionHand.MAIN_HAND, net.minecraft.world.item.ItemStack.EMPTY);
+            leaveJob();
+            result = ActionResult.failure(job.owner.getSteveName() + " stopped the job", false);
+            return;
+        }
+        
         if (ticksSinceLastTorch >= TORCH_INTERVAL) {
             placeTorchIfDark();
             ticksSinceLastTorch = 0;
@@ -155,20 +200,19 @@ public class MineBlockAction extends BaseAction {
             return; // Still waiting
         }
         
+        if (quotaReached()) {
+            finishMining();
+            return;
+        }
+        
         if (currentTarget == null) {
-            findNextBlock();
+            if (!findNextBlock()) {
+                return; // Scan continues next tick
+            }
             
             if (currentTarget == null) {
-                if (minedCount >= targetQuantity) {
-                    // Found enough ore, mission accomplished
-                    steve.setFlying(false);
-                    steve.setItemInHand(InteractionHand.MAIN_HAND, net.minecraft.world.item.ItemStack.EMPTY);
-                    result = ActionResult.success("Mined " + minedCount + " " + targetBlock.getName().getString());
-                    return;
-                } else {
-                    mineNearbyBlock();
-                    return;
-                }
+                mineNearbyBlock();
+                return;
             }
         }
         
@@ -179,16 +223,21 @@ public class MineBlockAction extends BaseAction {
             
             steve.level().destroyBlock(currentTarget, true);
             minedCount++;
+            EventJournal.blockMined(steve.getSteveName(), currentTarget.getX(), currentTarget.getY(), currentTarget.getZ(), targetBlock);
+            if (job != null) {
+                job.recordMined();
+            }
             ticksSinceLastMine = 0; // Reset delay timer
             
-            SteveMod.LOGGER.info("Steve '{}' moved to ore and mined {} at {} - Total: {}/{}", 
-                steve.getSteveName(), targetBlock.getName().getString(), currentTarget, 
-                minedCount, targetQuantity);
+            if (SteveMod.LOGGER.isDebugEnabled()) {
+                SteveMod.LOGGER.debug("Steve '{}' moved to ore and mined {} at {} - Total: {}/{}", 
+                    steve.getSteveName(), targetBlock.getName().getString(), currentTarget, 
+                    minedCount, targetQuantity);
+            }
             
-            if (minedCount >= targetQuantity) {
-                steve.setFlying(false);
-                steve.setItemInHand(InteractionHand.MAIN_HAND, net.minecraft.world.item.ItemStack.EMPTY);
-                result = ActionResult.success("Mined " + minedCount + " " + targetBlock.getName().getString());
+            if (quotaReached()) {
+                currentTarget = null;
+                finishMining();
                 return;
             }
             
@@ -198,8 +247,117 @@ public class MineBlockAction extends BaseAction {
         }
     }
 
+    /**
+     * Whether this Steve has nothing left to mine. On a shared job the next shard is taken first.
+     */
+    private boolean quotaReached() {
+        if (job == null) {
+            return minedCount >= targetQuantity;
+        }
+        if (minedCount >= allotted) {
+            allotted += job.takeShard();
+        }
+        return minedCount >= allotted;
+    }
+
+    /**
+     * Finish once the quota is mined. The job's Steve waits until helpers have mined their shards and
+     * reports the total for everyone.
+     */
+    private void finishMining() {
+        String blockName = targetBlock.getName().getString();
+        if (job != null && !helping && !job.isDone()) {
+            return; // Helpers still at work, or their shards come back to us
+        }
+        
+        steve.setFlying(false);
+        steve.setItemInHand(InteractionHand.MAIN_HAND, net.minecraft.world.item.ItemStack.EMPTY);
+        if (job == null) {
+            result = ActionResult.success("Mined " + minedCount + " " + blockName);
+        } else if (helping) {
+            result = ActionResult.success("Helped " + job.owner.getSteveName() + " mine " + minedCount + " " + blockName);
+            leaveJob();
+        } else {
+            String helpers = job.getHelpers().isEmpty() ? "" : " together with " + String.join(", ", job.getHelpers());
+            result = ActionResult.success("Mined " + job.getMined() + " " + blockName + helpers);
+            leaveJob();
+        }
+    }
+
+    /**
+     * Hand back unmined blocks. When the job's own Steve leaves, the job ends and helpers stop.
+     */
+    private void leaveJob() {
+        if (job == null || leftJob) {
+            return;
+        }
+        leftJob = true;
+        job.release(allotted - minedCount);
+        allotted = minedCount;
+        if (helping) {
+            job.leave();
+        } else {
+            job.cancel();
+            SteveMod.getSteveManager().getJobPool().close(job);
+        }
+    }
+
+    @Override
+    public boolean canSuspend() {
+        return !helping; // A helper just stops; its blocks go back to the job
+    }
+
+    @Override
+    protected void onSuspend() {
+        if (job != null) {
+            // Hand back the current shard so helpers can keep going
+            job.release(allotted - minedCount);
+            allotted = minedCount;
+        }
+        steve.setFlying(false);
+        steve.getNavigation().stop();
+        steve.setItemInHand(InteractionHand.MAIN_HAND, net.minecraft.world.item.ItemStack.EMPTY);
+    }
+
+    @Override
+    protected void onResume() {
+        currentTarget = null;
+        scanDistance = 0;
+        ticksSinceLastMine = 0;
+        steve.teleportTo(currentTunnelPos.getX() + 0.5, currentTunnelPos.getY(), currentTunnelPos.getZ() + 0.5);
+        steve.setFlying(true);
+        equipIronPickaxe();
+    }
+
+    @Override
+    protected void writeCheckpoint(CompoundTag tag) {
+        if (currentTunnelPos == null) {
+            return; // Not started
+        }
+        tag.putInt("mined", minedCount);
+        tag.putInt("ticks", ticksRunning);
+        tag.putLong("start", miningStartPos.asLong());
+        tag.putLong("tunnel", currentTunnelPos.asLong());
+        tag.putInt("dirX", miningDirectionX);
+        tag.putInt("dirZ", miningDirectionZ);
+    }
+
+    @Override
+    protected void readCheckpoint(CompoundTag tag) {
+        if (!tag.contains("tunnel")) {
+            return;
+        }
+        minedCount = tag.getInt("mined");
+        ticksRunning = tag.getInt("ticks");
+        miningStartPos = BlockPos.of(tag.getLong("start"));
+        currentTunnelPos = BlockPos.of(tag.getLong("tunnel"));
+        miningDirectionX = tag.getInt("dirX");
+        miningDirectionZ = tag.getInt("dirZ");
+    }
+
     @Override
     protected void onCancel() {
+        leaveJob();
         steve.setFlying(false);
         steve.getNavigation().stop();
         steve.setItemInHand(InteractionHand.MAIN_HAND, net.minecraft.world.item.ItemStack.EMPTY);
@@ -207,6 +365,13 @@ public class MineBlockAction extends BaseAction {
 
     @Override
     public String getDescription() {
+        if (helping) {
+            return "Help " + job.owner.getSteveName() + " mine " + job.block + " (" + minedCount + " found)";
+        }
+        if (job != null) {
+            return "Mine " + job.total + " " + targetBlock.getName().getString() + " (" + job.getMined() + " found, "
+                + job.getHelpers().size() + " helping)";
+        }
         return "Mine " + targetQuantity + " " + targetBlock.getName().getString() + " (" + minedCount + " found)";
     }
 
@@ -222,7 +387,7 @@ public class MineBlockAction extends BaseAction {
             
             if (torchPos != null && steve.level().getBlockState(torchPos).isAir()) {
                 steve.level().setBlock(torchPos, Blocks.TORCH.defaultBlockState(), 3);
-                SteveMod.LOGGER.info("Steve '{}' placed torch at {} (light level was {})", 
+                SteveMod.LOGGER.debug("Steve '{}' placed torch at {} (light level was {})", 
                     steve.getSteveName(), torchPos, lightLevel);
                 
                 steve.swing(InteractionHand.MAIN_HAND, true);
@@ -268,7 +433,8 @@ public class MineBlockAction extends BaseAction {
             steve.teleportTo(centerPos.getX() + 0.5, centerPos.getY(), centerPos.getZ() + 0.5);
             steve.swing(InteractionHand.MAIN_HAND, true);
             steve.level().destroyBlock(centerPos, true);
-            SteveMod.LOGGER.info("Steve '{}' mining tunnel at {}", steve.getSteveName(), centerPos);
+            EventJournal.blockMined(steve.getSteveName(), centerPos.getX(), centerPos.getY(), centerPos.getZ(), centerState.getBlock());
+            SteveMod.LOGGER.debug("Steve '{}' mining tunnel at {}", steve.getSteveName(), centerPos);
         }
         
         BlockState aboveState = steve.level().getBlockState(abovePos);
@@ -290,32 +456,34 @@ public class MineBlockAction extends BaseAction {
 
     /**
      * Find ore blocks in the tunnel ahead
-     * Searches forward in the mining direction
+     * Searches forward in the mining direction, nearest first. Stops when the tick budget runs out
+     * and continues from there on the next call; returns false while the scan is unfinished.
      */
-    private void findNextBlock() {
-        List<BlockPos> foundBlocks = new ArrayList<>();
-        
-        for (int distance = 0; distance < 20; distance++) {
-            BlockPos checkPos = currentTunnelPos.offset(miningDirectionX * distance, 0, miningDirectionZ * distance);
+    private boolean findNextBlock() {
+        while (scanDistance < SCAN_DISTANCE) {
+            int x = currentTunnelPos.getX() + miningDirectionX * scanDistance;
+            int z = currentTunnelPos.getZ() + miningDirectionZ * scanDistance;
+            scanDistance++;
             
-            for (int y = -1; y <= 1; y++) {
-                BlockPos orePos = checkPos.offset(0, y, 0);
-                if (steve.level().getBlockState(orePos).getBlock() == targetBlock) {
-                    foundBlocks.add(orePos);
+            for (int y : SCAN_Y_OFFSETS) {
+                scanPos.set(x, currentTunnelPos.getY() + y, z);
+                if (steve.level().getBlockState(scanPos).getBlock() == targetBlock) {
+                    currentTarget = scanPos.immutable();
+                    scanDistance = 0;
+                    if (SteveMod.LOGGER.isDebugEnabled()) {
+                        SteveMod.LOGGER.debug("Steve '{}' found {} ahead in tunnel at {}", 
+                            steve.getSteveName(), targetBlock.getName().getString(), currentTarget);
+                    }
+                    return true;
                 }
             }
-        }
-        
-        if (!foundBlocks.isEmpty()) {
-            currentTarget = foundBlocks.stream()
-                .min((a, b) -> Double.compare(a.distSqr(currentTunnelPos), b.distSqr(currentTunnelPos)))
-                .orElse(null);
             
-            if (currentTarget != null) {
-                SteveMod.LOGGER.info("Steve '{}' found {} ahead in tunnel at {}", 
-                    steve.getSteveName(), targetBlock.getName().getString(), currentTarget);
+            if (!TickBudget.hasTime()) {
+                return false;
             }
         }
+        scanDistance = 0;
+        return true;
     }
 
     /**
@@ -330,34 +498,6 @@ public class MineBlockAction extends BaseAction {
         SteveMod.LOGGER.info("Steve '{}' equipped iron pickaxe for mining", steve.getSteveName());
     }
 
-    /**
-     * Find the nearest player to determine mining direction
-     */
-    private net.minecraft.world.entity.player.Player findNearestPlayer() {
-        java.util.List<? extends net.minecraft.world.entity.player.Player> players = steve.level().players();
-        
-        if (players.isEmpty()) {
-            return null;
-        }
-        
-        net.minecraft.world.entity.player.Player nearest = null;
-        double nearestDistance = Double.MAX_VALUE;
-        
-        for (net.minecraft.world.entity.player.Player player : players) {
-            if (!player.isAlive() || player.isRemoved() || player.isSpectator()) {
-                continue;
-            }
-            
-            double distance = steve.distanceTo(player);
-            if (distance < nearestDistance) {
-                nearestDistance = distance;
-                nearest = player;
-            }
-        }
-        
-        return nearest;
-    }
-
     private Block parseBlock(String blockName) {
         blockName = blockName.toLowerCase().replace(" ", "_");
         
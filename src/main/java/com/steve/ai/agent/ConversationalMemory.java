@@ -1,72 +1,233 @@
 package com.steve.ai.agent;
 
+import com.steve.ai.SteveMod;
+import com.steve.ai.ai.PromptBuilder;
+
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
+/**
+ * Conversation window with a hard token budget.
+ *
+ * Recent turns are kept verbatim. Turns pushed out of the window are folded into a running summary
+ * by a background {@link Summarizer}, a batch at a time, so the summary is never rebuilt from the
+ * whole transcript. The summary gets a third of the budget, the turns the rest. {@link #getContext()}
+ * is cached until the next change, so building a prompt costs nothing extra. Thread-safe: turns are
+ * added on the server thread, prompts and summaries are built on planning workers.
+ */
 public class ConversationalMemory {
-    private final List<ChatMessage> messages;
+    private final Deque<ChatMessage> messages;
+    private final List<ChatMessage> evicted;  // Out of the window, waiting to be summarized
     private final int maxTokens;
     private final VectorStore vectorStore;
-    
+    private int messageTokens;
+    private String summary;
+    private Summarizer summarizer;
+    private Executor summaryExecutor;
+    private boolean summarizing;
+    private int generation;  // Bumped by clear(), so a summary of cleared turns is dropped
+    private String cachedContext;
+
+    /**
+     * Folds {@code turns} into {@code previousSummary}. Blocking, runs on the summary executor;
+     * returns null on failure.
+     */
+    @FunctionalInterface
+    public interface Summarizer {
+        String summarize(String previousSummary, List<ChatMessage> turns, int maxTokens);
+    }
+
     public ConversationalMemory(int maxTokens) {
-        this.messages = new ArrayList<>();
+        this.messages = new ArrayDeque<>();
+        this.evicted = new ArrayList<>();
         this.maxTokens = maxTokens;
         this.vectorStore = new VectorStore(384);
+        this.summary = "";
     }
-    
+
+    /**
+     * Summarize evicted turns with {@code summarizer} on {@code executor}. Without one, evicted
+     * turns are condensed locally to the player's commands.
+     */
+    public synchronized void setSummarizer(Summarizer summarizer, Executor executor) {
+        this.summarizer = summarizer;
+        this.summaryExecutor = executor;
+    }
+
     public void addUserMessage(String content) {
-        ChatMessage message = new ChatMessage("user", content, System.currentTimeMillis());
-        messages.add(message);
-        
-        vectorStore.addText(content, Map.of(
-            "role", "user",
-            "timestamp", message.timestamp
-        ));
+        add(new ChatMessage("user", content, System.currentTimeMillis()));
     }
-    
+
     public void addAssistantMessage(String content) {
-        ChatMessage message = new ChatMessage("assistant", content, System.currentTimeMillis());
-        messages.add(message);
-        
-        vectorStore.addText(content, Map.of(
-            "role", "assistant",
+        add(new ChatMessage("assistant", content, System.currentTimeMillis()));
+    }
+
+    private synchronized void add(ChatMessage message) {
+        if (maxTokens <= 0) {
+            return;
+        }
+
+        int windowTokens = maxTokens - getSummaryBudget();
+        message = message.clip(windowTokens);
+        messages.addLast(message);
+        messageTokens += message.tokens;
+        while (messageTokens > windowTokens && messages.size() > 1) {
+            ChatMessage oldest = messages.pollFirst();
+            messageTokens -= oldest.tokens;
+            evicted.add(oldest);
+        }
+        cachedContext = null;
+
+        vectorStore.addText(message.content, Map.of(
+            "role", message.role,
             "timestamp", message.timestamp
         ));
+
+        summarizeEvicted();
+    }
+
+    private int getSummaryBudget() {
+        return maxTokens / 3;
+    }
+
+    /**
+     * Hand the evicted turns to the summarizer, one batch in flight at a time.
+     */
+    private void summarizeEvicted() {
+        if (summarizing || evicted.isEmpty()) {
+            return;
+        }
+
+        List<ChatMessage> batch = new ArrayList<>(evicted);
+        evicted.clear();
+        if (summarizer == null) {
+            applySummary(generation, batch, null);
+            return;
+        }
+
+        String previous = summary;
+        int batchGeneration = generation;
+        Summarizer currentSummarizer = summarizer;
+        summarizing = true;
+        try {
+            summaryExecutor.execute(() -> {
+                String result = null;
+                try {
+                    result = currentSummarizer.summarize(previous, batch, getSummaryBudget());
+                } catch (Throwable t) {
+                    SteveMod.LOGGER.warn("Conversation summary failed", t);
+                } finally {
+                    onSummarized(batchGeneration, batch, result);  // Clears summarizing whatever happened
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            summarizing = false;
+            applySummary(generation, batch, null);
+        }
+    }
+
+    private synchronized void onSummarized(int batchGeneration, List<ChatMessage> batch, String result) {
+        summarizing = false;
+        applySummary(batchGeneration, batch, result);
+        summarizeEvicted();
     }
-    
-    public List<ChatMessage> getRecentMessages(int count) {
-        int size = messages.size();
+
+    private void applySummary(int batchGeneration, List<ChatMessage> batch, String result) {
+        if (batchGeneration != generation) {
+            return;
+        }
+        String updated = result != null && !result.isBlank() ? result.trim() : condense(summary, batch);
+        summary = clipFront(updated, getSummaryBudget());
+        cachedContext = null;
+    }
+
+    /**
+     * Local fallback summary: the previous one followed by the player's commands.
+     */
+    private static String condense(String previousSummary, List<ChatMessage> turns) {
+        StringBuilder condensed = new StringBuilder(previousSummary);
+        for (ChatMessage turn : turns) {
+            if (turn.role.equals("user")) {
+                condensed.append(condensed.length() > 0 ? "; " : "Earlier commands: ").append(turn.content);
+            }
+        }
+        return condensed.toString();
+    }
+
+    /**
+     * Keep the end of {@code text}, the most recent part, within {@code maxTokens}.
+     */
+    private static String clipFront(String text, int maxTokens) {
+        int maxChars = maxTokens * 4;
+        return text.length() <= maxChars ? text : "..." + text.substring(text.length() - maxChars + 3);
+    }
+
+    public synchronized List<ChatMessage> getRecentMessages(int count) {
+        List<ChatMessage> all = new ArrayList<>(messages);
+        int size = all.size();
         int start = Math.max(0, size - count);
-        return new ArrayList<>(messages.subList(start, size));
+        return all.subList(start, size);
     }
-    
+
+    public synchronized String getSummary() {
+        return summary;
+    }
+
     public List<VectorStore.EmbeddingEntry> searchRelevantMemories(String query, int k) {
         return vectorStore.similaritySearch(query, k);
     }
-    
-    public String formatMessages() {
-        StringBuilder formatted = new StringBuilder();
-        for (ChatMessage message : messages) {
-            formatted.append(message.role)
-                    .append(": ")
-                    .append(message.content)
-                    .append("\n");
+
+    /**
+     * Summary and recent turns as prompt text, within the token budget; empty if nothing was said yet.
+     */
+    public synchronized String getContext() {
+        if (cachedContext == null) {
+            StringBuilder formatted = new StringBuilder();
+            if (!summary.isEmpty()) {
+                formatted.append("Summary: ").append(summary).append("\n");
+            }
+            for (ChatMessage message : messages) {
+                formatted.append(message.role.equals("user") ? "Player" : "Steve")
+                        .append(": ")
+                        .append(message.content)
+                        .append("\n");
+            }
+            cachedContext = formatted.toString();
         }
-        return formatted.toString();
+        return cachedContext;
+    }
+
+    public String formatMessages() {
+        return getContext();
     }
-    
-    public void clear() {
+
+    public synchronized void clear() {
         messages.clear();
+        evicted.clear();
+        messageTokens = 0;
+        summary = "";
+        cachedContext = null;
+        generation++;
     }
-    
+
     public static class ChatMessage {
         public final String role;
         public final String content;
         public final long timestamp;
-        
+        final int tokens;
+
         public ChatMessage(String role, String content, long timestamp) {
             this.role = role;
             this.content = content;
             this.timestamp = timestamp;
+            this.tokens = PromptBuilder.estimateTokens(content) + 2;  // Plus the role label
+        }
+
+        private ChatMessage clip(int maxTokens) {
+            int maxChars = Math.max(0, (maxTokens - 2) * 4);
+            return content.length() <= maxChars ? this
+                : new ChatMessage(role, content.substring(0, Math.max(0, maxChars - 3)) + "...", timestamp);
         }
     }
 }
@@ -0,0 +1,17 @@
+package com.steve.ai.ai;
+
+import com.steve.ai.config.SteveConfig;
+
+/**
+ * A chat-completion provider. Implementations return the model's text, or null on failure.
+ */
+public interface AIClient {
+    /** Provider id as used in the config ("groq", "openai", ...). */
+    String getName();
+
+    String sendRequest(ChatRequest chat);
+
+    default String sendRequest(String systemPrompt, String userPrompt) {
+        return sendRequest(new ChatRequest(systemPrompt, userPrompt, SteveConfig.MAX_TOKENS.get(), null));
+    }
+}
@@ -0,0 +1,155 @@
+package com.steve.ai.ai;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.steve.ai.SteveMod;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Reads an OpenAI-compatible server-sent event stream ("stream": true).
+ * Each "data:" line carries a chunk whose choices[0].delta.content (or, for plans requested as a
+ * tool call, delta.tool_calls[0].function.arguments) is the next piece of text;
+ * the stream ends with "data: [DONE]". Token usage comes in the last chunk, as "usage" (OpenAI and
+ * LM Studio with stream_options.include_usage) or "x_groq.usage". Used by the OpenAI, Groq and LM Studio clients.
+ */
+public class ChatCompletionStream {
+
+    /**
+     * Send a streaming request and read it to the end. Returns the full text, or null on any failure
+     * so the caller can fall back to a regular request.
+     */
+    public static String send(String provider, HttpRequest request, int maxTokens, Consumer<String> onDelta) {
+        long start = System.nanoTime();
+        try {
+            return RequestScheduler.send(provider, request, HttpResponse.BodyHandlers.ofLines(), response -> {
+                try (Stream<String> lines = response.body()) {
+                    if (response.statusCode() != 200) {
+                        SteveMod.LOGGER.error("{} streaming request failed: {}", provider, response.statusCode());
+                        SteveMod.LOGGER.error("Response body: {}", lines.collect(Collectors.joining("\n")));
+                        return null;
+                    }
+                    boolean[] first = {true};
+                    StreamResult result = collect(lines, delta -> {
+                        if (first[0]) {
+                            first[0] = false;
+                            LLMMetrics.recordFirstToken(provider, System.nanoTime() - start);
+                        }
+                        onDelta.accept(delta);
+                    });
+                    TokenUsage.recordChatCompletion(provider, result.usage, maxTokens);
+                    return result.content;
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            SteveMod.LOGGER.error("{} streaming request interrupted", provider);
+            return null;
+        } catch (Exception e) {
+            SteveMod.LOGGER.error("Error streaming response from {}", provider, e);
+            return null;
+        }
+    }
+
+    public static class StreamResult {
+        /** Full text, or null if the stream produced no content. */
+        public final String content;
+        /** The provider's usage object, or null if it sent none. */
+        public final JsonObject usage;
+
+        StreamResult(String content, JsonObject usage) {
+            this.content = content;
+            this.usage = usage;
+        }
+    }
+
+    /**
+     * Feed every content delta to {@code onDelta} as it arrives and return the full text
+     * together with the reported token usage.
+     */
+    public static StreamResult collect(Stream<String> lines, Consumer<String> onDelta) {
+        StringBuilder content = new StringBuilder();
+        JsonObject usage = null;
+        Iterator<String> iterator = lines.iterator();
+
+        while (iterator.hasNext()) {
+            String line = iterator.next();
+            if (!line.startsWith("data:")) {
+                continue; // Blank separators, comments and "event:" lines
+            }
+
+            String data = line.substring(5).trim();
+            if (data.equals("[DONE]")) {
+                break;
+            }
+            if (data.isEmpty()) {
+                continue;
+            }
+
+            JsonObject chunk = parseChunk(data);
+            if (chunk == null) {
+                continue;
+            }
+            JsonObject chunkUsage = findUsage(chunk);
+            if (chunkUsage != null) {
+                usage = chunkUsage;
+            }
+
+            String delta = parseDelta(chunk, data);
+            if (delta != null && !delta.isEmpty()) {
+                content.append(delta);
+                onDelta.accept(delta);
+            }
+        }
+
+        return new StreamResult(content.length() > 0 ? content.toString() : null, usage);
+    }
+
+    private static JsonObject parseChunk(String data) {
+        try {
+            return JsonParser.parseString(data).getAsJsonObject();
+        } catch (Exception e) {
+            SteveMod.LOGGER.debug("Skipping malformed stream chunk: {}", data);
+            return null;
+        }
+    }
+
+    private static JsonObject findUsage(JsonObject chunk) {
+        JsonElement usage = chunk.get("usage");
+        if (usage == null && chunk.has("x_groq") && chunk.get("x_groq").isJsonObject()) {
+            usage = chunk.getAsJsonObject("x_groq").get("usage");
+        }
+        return usage != null && usage.isJsonObject() ? usage.getAsJsonObject() : null;
+    }
+
+    private static String parseDelta(JsonObject chunk, String data) {
+        try {
+            if (chunk.has("error")) {
+                SteveMod.LOGGER.error("Error event in response stream: {}", data);
+                return null;
+            }
+
+            JsonArray choices = chunk.getAsJsonArray("choices");
+            if (choices == null || choices.isEmpty()) {
+                return null; // Usage-only chunk
+            }
+
+            JsonObject delta = choices.get(0).getAsJsonObject().getAsJsonObject("delta");
+            if (delta == null) {
+                return null;
+            }
+
+            return PlanSchema.messageText(delta);  // Content, or the next piece of the submit_plan arguments
+        } catch (Exception e) {
+            SteveMod.LOGGER.debug("Skipping malformed stream chunk: {}", data);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.steve.ai.ai;
+
+import com.google.gson.JsonObject;
+
+/**
+ * What to ask a provider: the prompts, the output token limit, and optionally the JSON schema
+ * the answer must follow (see {@link PlanSchema}).
+ */
+public class ChatRequest {
+    private final String systemPrompt;
+    private final String userPrompt;
+    private final int maxTokens;
+    private final JsonObject responseSchema;
+
+    /**
+     * @param maxTokens      output token limit for the answer itself; providers that think first add
+     *                       their reasoning allowance on top
+     * @param responseSchema schema for structured output, or null for free-form text
+     */
+    public ChatRequest(String systemPrompt, String userPrompt, int maxTokens, JsonObject responseSchema) {
+        this.systemPrompt = systemPrompt;
+        this.userPrompt = userPrompt;
+        this.maxTokens = maxTokens;
+        this.responseSchema = responseSchema;
+    }
+
+    public String getSystemPrompt() {
+        return systemPrompt;
+    }
+
+    public String getUserPrompt() {
+        return userPrompt;
+    }
+
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    public JsonObject getResponseSchema() {
+        return responseSchema;
+    }
+}
@@ -7,37 +7,40 @@ import com.steve.ai.SteveMod;
 import com.steve.ai.config.SteveConfig;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 
 /**
  * Client for Google Gemini API
- * FREE tier: 15 RPM, 1500 RPD
+ * FREE tier: 15 RPM, 1500 RPD (enforced by RequestScheduler, see [ratelimit] in the config)
  * Paid: ~10x cheaper than GPT-3.5
- * Using gemini-2.5-flash with high token limit for thinking mode
+ * Using gemini-2.5-flash; thinking gets its own budget ([prompt] reasoningTokens)
  */
-public class GeminiClient {
+public class GeminiClient implements AIClient {
     private static final String GEMINI_API_URL = "https://generativelanguage.googleapis.com/v1beta/models/gemini-2.5-flash:generateContent";
+    private static final int MAX_RETRIES = 3;
+    private static final int INITIAL_RETRY_DELAY_MS = 1000; // 1 second
     
-    private final HttpClient client;
     private final String apiKey;
 
     public GeminiClient() {
         this.apiKey = SteveConfig.OPENAI_API_KEY.get(); // We'll use the same config for now
-        this.client = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(30))
-            .build();
     }
 
-    public String sendRequest(String systemPrompt, String userPrompt) {
+    @Override
+    public String getName() {
+        return "gemini";
+    }
+
+    @Override
+    public String sendRequest(ChatRequest chat) {
         if (apiKey == null || apiKey.isEmpty()) {
             SteveMod.LOGGER.error("Gemini API key not configured!");
             return null;
         }
 
-        JsonObject requestBody = buildRequestBody(systemPrompt, userPrompt);
+        JsonObject requestBody = buildRequestBody(chat);
         String urlWithKey = GEMINI_API_URL + "?key=" + apiKey;
         
         HttpRequest request = HttpRequest.newBuilder()
@@ -47,30 +50,67 @@ public class GeminiClient {
             .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()))
             .build();
 
-        try {
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
-            
-            if (response.statusCode() != 200) {
+        // Retry logic: 429s wait for RequestScheduler, server errors back off exponentially
+        for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
+            try {
+                HttpResponse<String> response = RequestScheduler.send(getName(), request, HttpResponse.BodyHandlers.ofString());
+                
+                if (response.statusCode() == 200) {
+                    String responseBody = response.body();
+                    if (responseBody == null || responseBody.isEmpty()) {
+                        SteveMod.LOGGER.error("Gemini API returned empty response");
+                        return null;
+                    }
+                    return parseResponse(responseBody, chat.getMaxTokens());
+                }
+
+                if (response.statusCode() == 429 && attempt < MAX_RETRIES - 1) {
+                    LLMMetrics.recordRetry(getName());
+                    SteveMod.LOGGER.warn("Gemini API rate limited, retrying when allowed (attempt {}/{})",
+                        attempt + 1, MAX_RETRIES);
+                    continue;
+                }
+
+                if (response.statusCode() >= 500 && attempt < MAX_RETRIES - 1) {
+                    LLMMetrics.recordRetry(getName());
+                    int delayMs = INITIAL_RETRY_DELAY_MS * (int) Math.pow(2, attempt);
+                    SteveMod.LOGGER.warn("Gemini API request failed with status {}, retrying in {}ms (attempt {}/{})",
+                        response.statusCode(), delayMs, attempt + 1, MAX_RETRIES);
+                    Thread.sleep(delayMs);
+                    continue;
+                }
+
                 SteveMod.LOGGER.error("Gemini API request failed: {}", response.statusCode());
                 SteveMod.LOGGER.error("Response body: {}", response.body());
                 return null;
-            }
-
-            String responseBody = response.body();
-            if (responseBody == null || responseBody.isEmpty()) {
-                SteveMod.LOGGER.error("Gemini API returned empty response");
+                
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                SteveMod.LOGGER.error("Request interrupted", e);
                 return null;
+            } catch (Exception e) {
+                if (attempt < MAX_RETRIES - 1) {
+                    LLMMetrics.recordRetry(getName());
+                    int delayMs = INITIAL_RETRY_DELAY_MS * (int) Math.pow(2, attempt);
+                    SteveMod.LOGGER.warn("Error communicating with Gemini API, retrying in {}ms (attempt {}/{})",
+                        delayMs, attempt + 1, MAX_RETRIES, e);
+                    try {
+                        Thread.sleep(delayMs);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    }
+                } else {
+                    SteveMod.LOGGER.error("Error communicating with Gemini API after {} attempts", MAX_RETRIES, e);
+                    return null;
+                }
             }
-
-            return parseResponse(responseBody);
-            
-        } catch (Exception e) {
-            SteveMod.LOGGER.error("Error communicating with Gemini API", e);
-            return null;
         }
+
+        return null;
     }
 
-    private JsonObject buildRequestBody(String systemPrompt, String userPrompt) {
+    private JsonObject buildRequestBody(ChatRequest chat) {
         JsonObject body = new JsonObject();
         
         // Gemini uses "contents" array with "parts"
@@ -81,7 +121,8 @@ public class GeminiClient {
         systemContent.addProperty("role", "user");
         JsonArray systemParts = new JsonArray();
         JsonObject systemPart = new JsonObject();
-        systemPart.addProperty("text", systemPrompt + "\n\n" + userPrompt);
+        // System prompt first so the shared prefix is eligible for implicit caching
+        systemPart.addProperty("text", chat.getSystemPrompt() + "\n\n" + chat.getUserPrompt());
         systemParts.add(systemPart);
         systemContent.add("parts", systemParts);
         contents.add(systemContent);
@@ -90,15 +131,21 @@ public class GeminiClient {
         
         JsonObject generationConfig = new JsonObject();
         generationConfig.addProperty("temperature", SteveConfig.TEMPERATURE.get());
-        generationConfig.addProperty("maxOutputTokens", SteveConfig.MAX_TOKENS.get());
+        // Thinking tokens count against maxOutputTokens, so budget them separately
+        int thinkingBudget = SteveConfig.PROMPT_REASONING_TOKENS.get();
+        generationConfig.addProperty("maxOutputTokens", Math.min(chat.getMaxTokens() + thinkingBudget, SteveConfig.MAX_TOKENS.get()));
+        JsonObject thinkingConfig = new JsonObject();
+        thinkingConfig.addProperty("thinkingBudget", thinkingBudget);
+        generationConfig.add("thinkingConfig", thinkingConfig);
         body.add("generationConfig", generationConfig);
         
         return body;
     }
 
-    private String parseResponse(String responseBody) {
+    private String parseResponse(String responseBody, int maxTokens) {
         try {
             JsonObject json = JsonParser.parseString(responseBody).getAsJsonObject();
+            TokenUsage.recordGemini(getName(), json.get("usageMetadata"), maxTokens);
             
             // Gemini response format: candidates[0].content.parts[0].text
             if (json.has("candidates") && json.getAsJsonArray("candidates").size() > 0) {
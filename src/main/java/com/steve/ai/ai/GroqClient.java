@@ -7,54 +7,38 @@ import com.steve.ai.SteveMod;
 import com.steve.ai.config.SteveConfig;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.function.Consumer;
 
 /**
  * Client for Groq API - BLAZING FAST inference
- * FREE tier: 30 RPM, 14,400 RPD
+ * FREE tier: 30 RPM, 14,400 RPD (enforced by RequestScheduler, see [ratelimit] in the config)
  * Speed: 0.5-2 seconds (vs Gemini's 10-30s)
  */
-public class GroqClient {
+public class GroqClient implements AIClient {
     private static final String GROQ_API_URL = "https://api.groq.com/openai/v1/chat/completions";
     
-    private final HttpClient client;
     private final String apiKey;
 
     public GroqClient() {
         this.apiKey = SteveConfig.OPENAI_API_KEY.get(); // Reuse same config field
-        this.client = HttpClient.newBuilder()
-            .version(HttpClient.Version.HTTP_2)
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
     }
 
-    public String sendRequest(String systemPrompt, String userPrompt) {
+    @Override
+    public String getName() {
+        return "groq";
+    }
+
+    @Override
+    public String sendRequest(ChatRequest chat) {
         if (apiKey == null || apiKey.isEmpty()) {
             SteveMod.LOGGER.error("Groq API key is not set in the config.");
             return null;
         }
 
-        JsonObject requestBody = new JsonObject();
-        requestBody.addProperty("model", "llama-3.1-8b-instant");
-        
-        JsonArray messages = new JsonArray();
-        
-        JsonObject systemMessage = new JsonObject();
-        systemMessage.addProperty("role", "system");
-        systemMessage.addProperty("content", systemPrompt);
-        messages.add(systemMessage);
-
-        JsonObject userMessage = new JsonObject();
-        userMessage.addProperty("role", "user");
-        userMessage.addProperty("content", userPrompt);
-        messages.add(userMessage);
-
-        requestBody.add("messages", messages);
-        requestBody.addProperty("max_tokens", 500); // Keep it short for speed
-        requestBody.addProperty("temperature", 0.7);
+        JsonObject requestBody = buildRequestBody(chat);
 
         HttpRequest request = HttpRequest.newBuilder()
             .uri(URI.create(GROQ_API_URL))
@@ -65,12 +49,13 @@ public class GroqClient {
             .build();
 
         try {
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = RequestScheduler.send(getName(), request, HttpResponse.BodyHandlers.ofString());
 
             if (response.statusCode() == 200) {
                 JsonObject jsonResponse = JsonParser.parseString(response.body()).getAsJsonObject();
-                return jsonResponse.getAsJsonArray("choices").get(0).getAsJsonObject()
-                    .getAsJsonObject("message").get("content").getAsString();
+                TokenUsage.recordChatCompletion(getName(), jsonResponse.get("usage"), chat.getMaxTokens());
+                return PlanSchema.messageText(jsonResponse.getAsJsonArray("choices").get(0).getAsJsonObject()
+                    .getAsJsonObject("message"));
             } else {
                 SteveMod.LOGGER.error("Groq API request failed: {} ", response.statusCode());
                 SteveMod.LOGGER.error("Response body: {}", response.body());
@@ -81,5 +66,52 @@ public class GroqClient {
             return null;
         }
     }
-}
 
+    /**
+     * Same request with "stream": true. Deltas go to {@code onDelta} as they arrive;
+     * returns the full text, or null so the caller can fall back to {@link #sendRequest}.
+     */
+    public String sendStreamingRequest(ChatRequest chat, Consumer<String> onDelta) {
+        if (apiKey == null || apiKey.isEmpty()) {
+            SteveMod.LOGGER.error("Groq API key is not set in the config.");
+            return null;
+        }
+
+        JsonObject requestBody = buildRequestBody(chat);
+        requestBody.addProperty("stream", true);
+
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(GROQ_API_URL))
+            .header("Content-Type", "application/json")
+            .header("Authorization", "Bearer " + apiKey)
+            .header("Accept", "text/event-stream")
+            .timeout(Duration.ofSeconds(30))
+            .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()))
+            .build();
+
+        return ChatCompletionStream.send(getName(), request, chat.getMaxTokens(), onDelta);
+    }
+
+    private JsonObject buildRequestBody(ChatRequest chat) {
+        JsonObject requestBody = new JsonObject();
+        requestBody.addProperty("model", "llama-3.1-8b-instant");
+        
+        JsonArray messages = new JsonArray();
+        
+        JsonObject systemMessage = new JsonObject();
+        systemMessage.addProperty("role", "system");
+        systemMessage.addProperty("content", chat.getSystemPrompt());
+        messages.add(systemMessage);
+
+        JsonObject userMessage = new JsonObject();
+        userMessage.addProperty("role", "user");
+        userMessage.addProperty("content", chat.getUserPrompt());
+        messages.add(userMessage);
+
+        requestBody.add("messages", messages);
+        requestBody.addProperty("max_tokens", chat.getMaxTokens()); // Sized to the plan, short is fast
+        requestBody.addProperty("temperature", 0.7);
+        PlanSchema.applyTo(requestBody, getName(), chat.getResponseSchema());
+        return requestBody;
+    }
+}
@@ -0,0 +1,145 @@
+package com.steve.ai.ai;
+
+import com.steve.ai.SteveMod;
+import com.steve.ai.config.SteveConfig;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server-wide HTTP transport shared by all LLM provider clients.
+ * Two JDK HttpClients back every request: an HTTP/2 client for https endpoints (multiplexed over one
+ * connection when the server negotiates h2) and an HTTP/1.1 client for plain http endpoints such as
+ * LM Studio, which doesn't handle h2c upgrades well. Both keep connections alive in the JDK pool.
+ *
+ * The JDK doesn't expose its connection pool, so only requests, failures and concurrency are counted
+ * per endpoint. The pool's idle timeout is JVM-wide and read once, when the JDK HTTP client first
+ * loads (possibly by another mod); to change it, start the server with
+ * -Djdk.httpclient.keepalive.timeout=<seconds> (default 1200).
+ */
+public class HttpTransport {
+    private static final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private static HttpClient http2Client;
+    private static HttpClient http1Client;
+
+    public static class Endpoint {
+        public final String key;
+        public final boolean multiplexed;
+        private final Semaphore permits;
+        private long requests;
+        private long failures;
+        private int inFlight;
+        private int peakInFlight;
+
+        Endpoint(String key, boolean multiplexed, int maxConnections) {
+            this.key = key;
+            this.multiplexed = multiplexed;
+            this.permits = new Semaphore(maxConnections, true);
+        }
+
+        private synchronized void onAcquire() {
+            requests++;
+            inFlight++;
+            peakInFlight = Math.max(peakInFlight, inFlight);
+        }
+
+        private synchronized void onRelease(boolean success) {
+            inFlight--;
+            if (!success) {
+                failures++;
+            }
+        }
+
+        public synchronized String describe() {
+            return String.format("%s [%s] requests=%d failed=%d inFlight=%d peak=%d",
+                key, multiplexed ? "h2" : "http/1.1", requests, failures, inFlight, peakInFlight);
+        }
+    }
+
+    private static synchronized HttpClient getClient(boolean http2) {
+        if (http2Client == null) {
+            http2Client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+            http1Client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+            SteveMod.LOGGER.info("Shared LLM HTTP transport initialized ({} connections per endpoint)",
+                SteveConfig.HTTP_MAX_CONNECTIONS_PER_ENDPOINT.get());
+        }
+        return http2 ? http2Client : http1Client;
+    }
+
+    private static Endpoint getEndpoint(URI uri) {
+        boolean secure = "https".equalsIgnoreCase(uri.getScheme());
+        int port = uri.getPort() != -1 ? uri.getPort() : (secure ? 443 : 80);
+        String key = uri.getScheme() + "://" + uri.getHost() + ":" + port;
+        return endpoints.computeIfAbsent(key,
+            k -> new Endpoint(k, secure, SteveConfig.HTTP_MAX_CONNECTIONS_PER_ENDPOINT.get()));
+    }
+
+    /**
+     * Reads a response while its connection slot is still held (used for streamed bodies).
+     */
+    @FunctionalInterface
+    public interface ResponseReader<T, R> {
+        R read(HttpResponse<T> response) throws IOException;
+    }
+
+    /**
+     * Send a request through the shared clients, waiting for a free connection slot on the endpoint first.
+     */
+    public static <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        return send(request, bodyHandler, response -> response);
+    }
+
+    /**
+     * Send a request and consume the response before the endpoint slot is released.
+     * Streamed bodies keep the connection busy until they are fully read, so they must use this variant.
+     */
+    public static <T, R> R send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler, ResponseReader<T, R> reader)
+            throws IOException, InterruptedException {
+        Endpoint endpoint = getEndpoint(request.uri());
+        HttpClient client = getClient(endpoint.multiplexed);
+
+        if (!endpoint.permits.tryAcquire()) {
+            SteveMod.LOGGER.debug("All connections to {} busy, waiting", endpoint.key);
+            long waitMs = request.timeout().map(Duration::toMillis).orElse(60_000L);
+            if (!endpoint.permits.tryAcquire(waitMs, TimeUnit.MILLISECONDS)) {
+                throw new java.net.http.HttpTimeoutException("Timed out waiting for a connection to " + endpoint.key);
+            }
+        }
+
+        endpoint.onAcquire();
+        boolean success = false;
+        try {
+            R result = reader.read(client.send(request, bodyHandler));
+            success = true;
+            return result;
+        } finally {
+            endpoint.onRelease(success);
+            endpoint.permits.release();
+        }
+    }
+
+    public static List<String> describeEndpoints() {
+        List<String> lines = new ArrayList<>();
+        for (Endpoint endpoint : endpoints.values()) {
+            lines.add(endpoint.describe());
+        }
+        return lines;
+    }
+}
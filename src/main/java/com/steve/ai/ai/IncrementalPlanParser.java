@@ -0,0 +1,301 @@
+package com.steve.ai.ai;
+
+import com.google.gson.JsonParser;
+import com.steve.ai.SteveMod;
+import com.steve.ai.action.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses a plan while it is still being streamed.
+ * Scans the response text once, skipping <think>/<reasoning> blocks and anything before the first '{',
+ * and tracks JSON nesting so that each object inside the top-level "tasks" array is emitted as soon
+ * as its closing brace arrives. The "plan" string is reported while it grows.
+ * Some local models omit the opening <think> tag; a </think> arriving without one means everything
+ * before it was reasoning, so the scan restarts after it and tasks emitted from the draft are retracted.
+ *
+ * Not thread-safe: feed it from the thread that reads the stream.
+ */
+public class IncrementalPlanParser {
+    private static final String[][] SKIPPED_BLOCKS = {
+        {"<think>", "</think>"},
+        {"<reasoning>", "</reasoning>"}
+    };
+    private static final String STRAY_CLOSE = "</think>";
+
+    public interface Listener {
+        /** Called with the plan text received so far; {@code complete} once the string is closed. */
+        void onPlanText(String planText, boolean complete);
+
+        void onTask(Task task);
+
+        /** Tasks emitted earlier turned out to be reasoning drafts (see the class comment). */
+        void onTasksRetracted(List<Task> drafts);
+    }
+
+    private final Listener listener;
+    private final StringBuilder text = new StringBuilder();
+    private final List<Task> tasks = new ArrayList<>();
+
+    private int pos;
+    private String skipUntil;
+    private boolean inJson;
+    private boolean finished;
+    private int depth;
+    private boolean inString;
+    private boolean escaped;
+    private int stringStart;
+    private boolean expectingValue;
+    private String currentKey;
+    private int tasksDepth = -1;
+    private int taskStart = -1;
+    private String planText = "";
+    private boolean sawThinkTag;
+    private int strayCloseFrom;  // Where to look for a </think> with no opening tag
+
+    public IncrementalPlanParser(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void feed(String chunk) {
+        text.append(chunk);
+        restartAfterStrayClose();
+        scan();
+    }
+
+    private void restartAfterStrayClose() {
+        if (sawThinkTag || strayCloseFrom < 0) {
+            return;
+        }
+        int close = text.indexOf(STRAY_CLOSE, strayCloseFrom);
+        if (close == -1) {
+            strayCloseFrom = Math.max(strayCloseFrom, text.length() - STRAY_CLOSE.length() + 1);
+            return;
+        }
+        strayCloseFrom = -1;  // Only the first one counts, like ResponseParser.findJsonStart
+
+        pos = close + STRAY_CLOSE.length();
+        skipUntil = null;
+        inJson = false;
+        finished = false;
+        depth = 0;
+        inString = false;
+        escaped = false;
+        expectingValue = false;
+        currentKey = null;
+        tasksDepth = -1;
+        taskStart = -1;
+        planText = "";
+        if (!tasks.isEmpty()) {
+            SteveMod.LOGGER.info("Reasoning ended without an opening tag, retracting {} draft tasks", tasks.size());
+            List<Task> drafts = new ArrayList<>(tasks);
+            tasks.clear();
+            listener.onTasksRetracted(drafts);
+        }
+    }
+
+    private void scan() {
+        while (pos < text.length() && !finished) {
+            if (skipUntil != null) {
+                int end = text.indexOf(skipUntil, pos);
+                if (end == -1) {
+                    // Keep the tail in case the closing tag is split across chunks
+                    pos = Math.max(pos, text.length() - skipUntil.length() + 1);
+                    return;
+                }
+                pos = end + skipUntil.length();
+                skipUntil = null;
+                continue;
+            }
+
+            char c = text.charAt(pos);
+
+            if (!inJson) {
+                if (c == '<') {
+                    int matched = matchSkippedBlock();
+                    if (matched == -2) {
+                        return; // Partial tag at the end of the buffer, wait for more
+                    }
+                    if (matched >= 0) {
+                        sawThinkTag = true;
+                        pos += SKIPPED_BLOCKS[matched][0].length();
+                        skipUntil = SKIPPED_BLOCKS[matched][1];
+                        continue;
+                    }
+                } else if (c == '{') {
+                    inJson = true;
+                    depth = 1;
+                }
+                pos++;
+                continue;
+            }
+
+            if (inString) {
+                if (escaped) {
+                    escaped = false;
+                } else if (c == '\\') {
+                    escaped = true;
+                } else if (c == '"') {
+                    inString = false;
+                    onStringEnd();
+                }
+                pos++;
+                continue;
+            }
+
+            switch (c) {
+                case '"' -> {
+                    inString = true;
+                    stringStart = pos;
+                }
+                case ':' -> {
+                    if (depth == 1) expectingValue = true;
+                }
+                case ',' -> {
+                    if (depth == 1) expectingValue = false;
+                }
+                case '{', '[' -> {
+                    depth++;
+                    if (c == '[' && depth == 2 && expectingValue && "tasks".equals(currentKey)) {
+                        tasksDepth = depth;
+                    } else if (c == '{' && tasksDepth != -1 && depth == tasksDepth + 1) {
+                        taskStart = pos;
+                    }
+                }
+                case '}', ']' -> {
+                    if (c == '}' && taskStart != -1 && depth == tasksDepth + 1) {
+                        emitTask(text.substring(taskStart, pos + 1));
+                        taskStart = -1;
+                    }
+                    depth--;
+                    if (depth == 1) {
+                        tasksDepth = -1;
+                        expectingValue = false;
+                    }
+                    if (depth == 0) {
+                        finished = true;
+                    }
+                }
+                default -> { }
+            }
+            pos++;
+        }
+
+        if (inString && isPlanValue()) {
+            String partial = unescapePartial(text.substring(stringStart + 1, pos));
+            if (partial.length() > planText.length()) {
+                planText = partial;
+                listener.onPlanText(planText, false);
+            }
+        }
+    }
+
+    /**
+     * Index of the skipped block whose opening tag starts at {@code pos}, -2 if the buffer ends
+     * inside a possible tag, -1 otherwise.
+     */
+    private int matchSkippedBlock() {
+        int available = text.length() - pos;
+        for (int i = 0; i < SKIPPED_BLOCKS.length; i++) {
+            String tag = SKIPPED_BLOCKS[i][0];
+            if (available >= tag.length()) {
+                if (text.substring(pos, pos + tag.length()).equals(tag)) {
+                    return i;
+                }
+            } else if (tag.startsWith(text.substring(pos))) {
+                return -2;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isPlanValue() {
+        return depth == 1 && expectingValue && "plan".equals(currentKey);
+    }
+
+    private void onStringEnd() {
+        if (depth != 1) {
+            return;
+        }
+
+        String value = unescape(text.substring(stringStart, pos + 1));
+        if (!expectingValue) {
+            currentKey = value;
+            return;
+        }
+
+        if ("plan".equals(currentKey)) {
+            planText = value;
+            listener.onPlanText(planText, true);
+        }
+        expectingValue = false;
+    }
+
+    private void emitTask(String json) {
+        try {
+            Task task = ResponseParser.parseTask(json);
+            if (task != null) {
+                tasks.add(task);
+                listener.onTask(task);
+            }
+        } catch (Exception e) {
+            SteveMod.LOGGER.debug("Could not parse streamed task yet: {}", json);
+        }
+    }
+
+    private static String unescape(String quoted) {
+        try {
+            return JsonParser.parseString(quoted).getAsString();
+        } catch (Exception e) {
+            return unescapePartial(quoted.substring(1, quoted.length() - 1));
+        }
+    }
+
+    /**
+     * Best-effort unescape for a string that may be cut in the middle of an escape sequence.
+     */
+    private static String unescapePartial(String raw) {
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (i + 1 >= raw.length()) {
+                break;
+            }
+            char next = raw.charAt(++i);
+            switch (next) {
+                case 'n' -> sb.append('\n');
+                case 't' -> sb.append('\t');
+                case 'u' -> {
+                    if (i + 4 < raw.length()) {
+                        try {
+                            sb.append((char) Integer.parseInt(raw.substring(i + 1, i + 5), 16));
+                        } catch (NumberFormatException ignored) {
+                        }
+                        i += 4;
+                    } else {
+                        i = raw.length();
+                    }
+                }
+                default -> sb.append(next);
+            }
+        }
+        return sb.toString();
+    }
+
+    public List<Task> getTasks() {
+        return tasks;
+    }
+
+    public String getPlanText() {
+        return planText;
+    }
+
+    public String getText() {
+        return text.toString();
+    }
+}
@@ -0,0 +1,240 @@
+package com.steve.ai.ai;
+
+import com.steve.ai.SteveMod;
+import com.steve.ai.action.Task;
+import com.steve.ai.config.SteveConfig;
+import com.steve.ai.memory.WorldKnowledge;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles common commands straight into tasks without asking the LLM: "follow me", "kill mobs",
+ * "mine iron 16", "build a platform 20x20", "stop", and their Russian equivalents.
+ *
+ * Each rule must match the whole normalized command, so anything with extra detail ("build a house
+ * out of glass next to the river") goes to the LLM as before. The produced tasks are the same ones
+ * the system prompt examples teach the model to return.
+ */
+public class IntentCompiler {
+    private static final List<Rule> RULES = new ArrayList<>();
+    private static final Map<String, String> ORES = new HashMap<>();
+    private static final Map<String, String> MOBS = new HashMap<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong totalNanos = new AtomicLong();
+    private static final Map<String, AtomicLong> hitsByIntent = new ConcurrentHashMap<>();
+
+    private static class Rule {
+        final String intent;
+        final Pattern pattern;
+        final BiFunction<Matcher, WorldKnowledge, ResponseParser.ParsedResponse> compiler;
+
+        Rule(String intent, String regex, BiFunction<Matcher, WorldKnowledge, ResponseParser.ParsedResponse> compiler) {
+            this.intent = intent;
+            this.pattern = Pattern.compile(regex);
+            this.compiler = compiler;
+        }
+    }
+
+    static {
+        String[][] ores = {
+            {"iron", "iron", "железо", "железа", "железной", "железную"},
+            {"diamond", "diamond", "diamonds", "алмаз", "алмазы", "алмазов"},
+            {"coal", "coal", "уголь", "угля"},
+            {"gold", "gold", "золото", "золота", "золотой", "золотую"},
+            {"copper", "copper", "медь", "меди", "медной", "медную"},
+            {"redstone", "redstone", "редстоун", "редстоуна"},
+            {"emerald", "emerald", "emeralds", "изумруд", "изумруды", "изумрудов"}
+        };
+        for (String[] ore : ores) {
+            for (int i = 1; i < ore.length; i++) {
+                ORES.put(ore[i], ore[0]);
+            }
+        }
+
+        String[][] mobs = {
+            {"zombie", "zombie", "zombies", "зомби"},
+            {"skeleton", "skeleton", "skeletons", "скелет", "скелета", "скелетов", "скелеты"},
+            {"creeper", "creeper", "creepers", "крипер", "крипера", "криперов", "криперы"},
+            {"spider", "spider", "spiders", "паук", "паука", "пауков", "пауки"},
+            {"enderman", "enderman", "endermen", "эндермен", "эндермена", "эндерменов"},
+            {"witch", "witch", "witches", "ведьма", "ведьму", "ведьм"},
+            {"slime", "slime", "slimes", "слизень", "слизня", "слизней"}
+        };
+        for (String[] mob : mobs) {
+            for (int i = 1; i < mob.length; i++) {
+                MOBS.put(mob[i], mob[0]);
+            }
+        }
+
+        String ore = "(" + String.join("|", ORES.keySet()) + ")";
+        String mob = "(" + String.join("|", MOBS.keySet()) + ")";
+
+        RULES.add(new Rule("stop",
+            "(?:stop|halt|stand still|cancel|стоп|стой|остановись|хватит|отмена)",
+            (m, wk) -> new ResponseParser.ParsedResponse("", "Stop", new ArrayList<>())));
+
+        RULES.add(new Rule("follow",
+            "(?:follow me|follow|come with me|следуй за мной|иди за мной|за мной|следуй)",
+            (m, wk) -> plan("Follow player", task("follow", "player", "me"))));
+
+        RULES.add(new Rule("follow",
+            "(?:follow|следуй за|иди за) (\\S+)",
+            (m, wk) -> {
+                String name = findPlayer(wk, m.group(1));
+                return name != null ? plan("Follow " + name, task("follow", "player", name)) : null;
+            }));
+
+        RULES.add(new Rule("attack",
+            "(?:kill|attack|fight|hunt|murder|defend me from|убей|убить|атакуй|бей|уничтожь)(?: all| the| nearby| всех)?"
+                + " (?:mobs|monsters|hostiles|hostile mobs|enemies|мобов|монстров|врагов)",
+            (m, wk) -> plan("Attack hostiles", task("attack", "target", "hostile"))));
+
+        RULES.add(new Rule("attack",
+            "(?:defend me|protect me|guard me|защищай меня|защити меня|охраняй меня)",
+            (m, wk) -> plan("Attack hostiles", task("attack", "target", "hostile"))));
+
+        RULES.add(new Rule("attack",
+            "(?:kill|attack|fight|hunt|murder|убей|убить|атакуй|бей|уничтожь)(?: all| the| that| этого| всех)? " + mob,
+            (m, wk) -> {
+                String target = MOBS.get(m.group(1));
+                return plan("Attack " + target, task("attack", "target", target));
+            }));
+
+        RULES.add(new Rule("mine",
+            "(?:mine|dig|get|find|collect|добудь|добыть|накопай|копай|найди|принеси)(?: me| мне)?(?: (\\d{1,3}))?(?: some)? "
+                + ore + "(?: ore| руды| руду)?(?: (\\d{1,3}))?",
+            (m, wk) -> {
+                String block = ORES.get(m.group(2));
+                String count = m.group(1) != null ? m.group(1) : m.group(3);
+                int quantity = count != null ? Integer.parseInt(count) : (block.equals("diamond") ? 8 : 16);
+                if (quantity <= 0) {
+                    return null;
+                }
+                Map<String, Object> parameters = new HashMap<>();
+                parameters.put("block", block);
+                parameters.put("quantity", Math.min(quantity, 256));
+                return plan("Mine " + block, new Task("mine", parameters));
+            }));
+
+        RULES.add(new Rule("build",
+            "(?:build|make|create|построй|построить|сделай|создай)(?: a| an| me| мне)? (?:house|small house|дом|домик)",
+            (m, wk) -> plan("Construct house", build("house", List.of("oak_planks", "cobblestone", "glass_pane"), 9, 6, 9))));
+
+        RULES.add(new Rule("build",
+            "(?:build|make|create|построй|построить|сделай|создай)(?: a| an| me| мне)?"
+                + " (?:platform|flat surface|floor|base|платформу|площадку|пол)(?: (\\d{1,3})x(\\d{1,3}))?",
+            (m, wk) -> {
+                int width = m.group(1) != null ? Integer.parseInt(m.group(1)) : 10;
+                int depth = m.group(2) != null ? Integer.parseInt(m.group(2)) : 10;
+                return plan("Build platform", build("platform", List.of("stone", "dirt"), width, 1, depth));
+            }));
+
+        RULES.add(new Rule("build",
+            "(?:build|make|create|построй|построить|сделай|создай)(?: a| an| me| мне)?"
+                + " (?:box|cube|куб|коробку)(?: (\\d{1,2})x(\\d{1,2})x(\\d{1,2}))?",
+            (m, wk) -> {
+                int width = m.group(1) != null ? Integer.parseInt(m.group(1)) : 5;
+                int height = m.group(2) != null ? Integer.parseInt(m.group(2)) : 5;
+                int depth = m.group(3) != null ? Integer.parseInt(m.group(3)) : 5;
+                return plan("Build box", build("box", List.of("cobblestone"), width, height, depth));
+            }));
+    }
+
+    /**
+     * Tasks for {@code command} if it is one of the known simple commands, otherwise null.
+     * An empty task list means "stop".
+     */
+    public static ResponseParser.ParsedResponse compile(String command, WorldKnowledge worldKnowledge) {
+        if (!SteveConfig.INTENTS_ENABLED.get()) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        String normalized = normalize(command);
+        ResponseParser.ParsedResponse result = null;
+        String intent = null;
+        for (Rule rule : RULES) {
+            Matcher matcher = rule.pattern.matcher(normalized);
+            if (matcher.matches()) {
+                result = rule.compiler.apply(matcher, worldKnowledge);
+                if (result != null) {
+                    intent = rule.intent;
+                    break;
+                }
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        totalNanos.addAndGet(elapsed);
+
+        if (result == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        hitsByIntent.computeIfAbsent(intent, k -> new AtomicLong()).incrementAndGet();
+        SteveMod.LOGGER.info("Compiled '{}' locally as {} in {}µs", command, intent, elapsed / 1000);
+        return result;
+    }
+
+    /**
+     * Lower case, no punctuation or politeness, "20 x 20" / "20х20" / "20 на 20" written as "20x20".
+     */
+    static String normalize(String command) {
+        String text = command.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        text = text.replaceAll("(\\d)\\s*(?:x|х|\\*|×|на|by)\\s*(?=\\d)", "$1x");
+        text = text.replaceAll("[\\p{Punct}«»—…]", " ");
+        text = text.replaceAll("(?<!\\S)(?:please|pls|steve|пожалуйста|стив)(?!\\S)", " ");
+        return text.replaceAll("\\s+", " ").trim();
+    }
+
+    private static String findPlayer(WorldKnowledge worldKnowledge, String name) {
+        for (String player : worldKnowledge.getNearbyPlayers()) {
+            if (player.equalsIgnoreCase(name)) {
+                return player;
+            }
+        }
+        return null;
+    }
+
+    private static ResponseParser.ParsedResponse plan(String plan, Task task) {
+        List<Task> tasks = new ArrayList<>();
+        tasks.add(task);
+        return new ResponseParser.ParsedResponse("", plan, tasks);
+    }
+
+    private static Task task(String action, String key, Object value) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put(key, value);
+        return new Task(action, parameters);
+    }
+
+    private static Task build(String structure, List<String> blocks, int width, int height, int depth) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("structure", structure);
+        parameters.put("blocks", new ArrayList<>(blocks));
+        parameters.put("dimensions", new ArrayList<>(List.of(width, height, depth)));
+        return new Task("build", parameters);
+    }
+
+    public static String describe() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        double hitRate = total > 0 ? 100.0 * hitCount / total : 0.0;
+        long avgMicros = total > 0 ? totalNanos.get() / total / 1000 : 0;
+        Map<String, Long> byIntent = new HashMap<>();
+        hitsByIntent.forEach((intent, count) -> byIntent.put(intent, count.get()));
+        return String.format("compiled=%d llm=%d hitRate=%.1f%% avg=%dµs byIntent=%s",
+            hitCount, misses.get(), hitRate, avgMicros, byIntent);
+    }
+}
@@ -0,0 +1,297 @@
+package com.steve.ai.ai;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.steve.ai.SteveMod;
+import com.steve.ai.journal.EventJournal;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Per-provider planning metrics: HTTP timings and status codes for every provider request,
+ * token counts, and what happens to responses after they arrive (parse failures, invalid tasks,
+ * tasks per plan, retries). Shown by /steve stats llm and written to the world's data folder.
+ *
+ * java.net.http does not expose connection setup, so a request is split into the wait for a rate
+ * limit slot, the time until response headers arrive (connect, TLS and server time together) and
+ * the total; streamed responses also record the time until the first piece of text.
+ */
+public class LLMMetrics {
+    private static final String FILE_NAME = "steve_llm_metrics.json";
+    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
+    private static final Map<String, ProviderMetrics> metrics = new ConcurrentHashMap<>();
+
+    // Upper bounds of the latency buckets in ms; the last bucket is everything above
+    private static final long[] BUCKET_BOUNDS_MS = {25, 50, 100, 200, 500, 1000, 2000, 5000, 10_000, 20_000, 60_000};
+
+    private static volatile CompletableFuture<Void> pendingWrite = CompletableFuture.completedFuture(null);
+
+    /**
+     * Fixed-bucket latency histogram, lock-free so request threads never wait on each other.
+     */
+    public static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_BOUNDS_MS.length + 1);
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalMs = new AtomicLong();
+        private final AtomicLong maxMs = new AtomicLong();
+
+        void record(long nanos) {
+            long ms = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MS.length && ms > BUCKET_BOUNDS_MS[bucket]) {
+                bucket++;
+            }
+            buckets.incrementAndGet(bucket);
+            count.incrementAndGet();
+            totalMs.addAndGet(ms);
+            maxMs.accumulateAndGet(ms, Math::max);
+        }
+
+        /**
+         * Upper bound of the bucket holding the {@code quantile}; the max for the overflow bucket, -1 if empty.
+         */
+        long percentile(double quantile) {
+            long total = count.get();
+            if (total == 0) {
+                return -1;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+                seen += buckets.get(i);
+                if (seen >= rank) {
+                    return Math.min(BUCKET_BOUNDS_MS[i], maxMs.get());
+                }
+            }
+            return maxMs.get();
+        }
+
+        String describe() {
+            long total = count.get();
+            if (total == 0) {
+                return "-";
+            }
+            return String.format("p50=%d p95=%d max=%dms", percentile(0.5), percentile(0.95), maxMs.get());
+        }
+
+        JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            long total = count.get();
+            json.addProperty("count", total);
+            json.addProperty("avgMs", total > 0 ? totalMs.get() / total : 0);
+            json.addProperty("p50Ms", percentile(0.5));
+            json.addProperty("p95Ms", percentile(0.95));
+            json.addProperty("p99Ms", percentile(0.99));
+            json.addProperty("maxMs", maxMs.get());
+            JsonObject bucketCounts = new JsonObject();
+            for (int i = 0; i <= BUCKET_BOUNDS_MS.length; i++) {
+                String label = i < BUCKET_BOUNDS_MS.length ? "le" + BUCKET_BOUNDS_MS[i] : "inf";
+                bucketCounts.addProperty(label, buckets.get(i));
+            }
+            json.add("buckets", bucketCounts);
+            return json;
+        }
+    }
+
+    public static class ProviderMetrics {
+        private final String provider;
+        private final Histogram wait = new Histogram();
+        private final Histogram headers = new Histogram();
+        private final Histogram firstToken = new Histogram();
+        private final Histogram total = new Histogram();
+        private final Map<String, AtomicLong> statuses = new ConcurrentHashMap<>();
+        private final AtomicLong inputTokens = new AtomicLong();
+        private final AtomicLong outputTokens = new AtomicLong();
+        private final AtomicLong responses = new AtomicLong();
+        private final AtomicLong parseFailures = new AtomicLong();
+        private final AtomicLong parseNanos = new AtomicLong();
+        private final AtomicLong plans = new AtomicLong();
+        private final AtomicLong tasks = new AtomicLong();
+        private final AtomicLong invalidTasks = new AtomicLong();
+        private final AtomicLong retries = new AtomicLong();
+
+        ProviderMetrics(String provider) {
+            this.provider = provider;
+        }
+
+        private Map<String, Long> statusCounts() {
+            Map<String, Long> counts = new TreeMap<>();
+            statuses.forEach((status, count) -> counts.put(status, count.get()));
+            return counts;
+        }
+
+        public List<String> describe() {
+            long responseCount = responses.get();
+            long taskCount = tasks.get();
+            long planCount = plans.get();
+            double parseFailureRate = responseCount > 0 ? 100.0 * parseFailures.get() / responseCount : 0.0;
+            double invalidRate = taskCount > 0 ? 100.0 * invalidTasks.get() / taskCount : 0.0;
+            double retryRate = responseCount > 0 ? 100.0 * retries.get() / responseCount : 0.0;
+            List<String> lines = new ArrayList<>();
+            lines.add(String.format("%s [%s output]: responses=%d parseFailures=%d (%.1f%%, avg parse %dµs) tasks/plan=%.1f invalid=%d (%.1f%%) retries=%d (%.1f%%)",
+                provider, PlanSchema.modeFor(provider), responseCount, parseFailures.get(), parseFailureRate,
+                responseCount > 0 ? parseNanos.get() / responseCount / 1000 : 0,
+                planCount > 0 ? (double) taskCount / planCount : 0.0, invalidTasks.get(), invalidRate,
+                retries.get(), retryRate));
+            lines.add(String.format("  wait %s | headers %s | first token %s | total %s",
+                wait.describe(), headers.describe(), firstToken.describe(), total.describe()));
+            lines.add(String.format("  status %s tokens in=%d out=%d", statusCounts(), inputTokens.get(), outputTokens.get()));
+            return lines;
+        }
+
+        JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("structuredOutput", PlanSchema.modeFor(provider));
+
+            JsonObject latency = new JsonObject();
+            latency.add("wait", wait.toJson());
+            latency.add("headers", headers.toJson());
+            latency.add("firstToken", firstToken.toJson());
+            latency.add("total", total.toJson());
+            json.add("latency", latency);
+
+            JsonObject statusJson = new JsonObject();
+            statusCounts().forEach(statusJson::addProperty);
+            json.add("status", statusJson);
+            json.addProperty("retries", retries.get());
+
+            JsonObject tokens = new JsonObject();
+            tokens.addProperty("input", inputTokens.get());
+            tokens.addProperty("output", outputTokens.get());
+            json.add("tokens", tokens);
+
+            JsonObject parsing = new JsonObject();
+            parsing.addProperty("responses", responses.get());
+            parsing.addProperty("failures", parseFailures.get());
+            parsing.addProperty("avgParseMicros", responses.get() > 0 ? parseNanos.get() / responses.get() / 1000 : 0);
+            parsing.addProperty("plans", plans.get());
+            parsing.addProperty("tasks", tasks.get());
+            parsing.addProperty("invalidTasks", invalidTasks.get());
+            json.add("parsing", parsing);
+            return json;
+        }
+    }
+
+    private static ProviderMetrics get(String provider) {
+        return metrics.computeIfAbsent(provider, ProviderMetrics::new);
+    }
+
+    /**
+     * One HTTP exchange with a provider. {@code status} is -1 if no response arrived, {@code headersNanos}
+     * -1 if headers never came; both durations count from admission by the rate limiter.
+     */
+    public static void recordRequest(String provider, int status, long waitNanos, long headersNanos, long totalNanos) {
+        EventJournal.llmCall(provider, status, totalNanos);
+        ProviderMetrics providerMetrics = get(provider);
+        providerMetrics.statuses.computeIfAbsent(status > 0 ? String.valueOf(status) : "error", k -> new AtomicLong())
+            .incrementAndGet();
+        providerMetrics.wait.record(waitNanos);
+        if (headersNanos >= 0) {
+            providerMetrics.headers.record(headersNanos);
+        }
+        providerMetrics.total.record(totalNanos);
+    }
+
+    /**
+     * Time from sending a streamed request until its first piece of text.
+     */
+    public static void recordFirstToken(String provider, long nanos) {
+        get(provider).firstToken.record(nanos);
+    }
+
+    public static void recordTokens(String provider, long input, long output) {
+        ProviderMetrics providerMetrics = get(provider);
+        providerMetrics.inputTokens.addAndGet(input);
+        providerMetrics.outputTokens.addAndGet(output);
+    }
+
+    /**
+     * A response came back; {@code parsed} is false if it did not yield a plan.
+     */
+    public static void recordResponse(String provider, boolean parsed, long parseNanos) {
+        ProviderMetrics providerMetrics = get(provider);
+        providerMetrics.responses.incrementAndGet();
+        providerMetrics.parseNanos.addAndGet(parseNanos);
+        if (!parsed) {
+            providerMetrics.parseFailures.incrementAndGet();
+        }
+    }
+
+    /**
+     * One parsed plan with {@code total} tasks, {@code invalid} of them dropped by validation.
+     */
+    public static void recordTasks(String provider, int total, int invalid) {
+        ProviderMetrics providerMetrics = get(provider);
+        providerMetrics.plans.incrementAndGet();
+        providerMetrics.tasks.addAndGet(total);
+        providerMetrics.invalidTasks.addAndGet(invalid);
+    }
+
+    public static void recordRetry(String provider) {
+        get(provider).retries.incrementAndGet();
+    }
+
+    public static List<String> describeProviders() {
+        List<String> lines = new ArrayList<>();
+        for (ProviderMetrics providerMetrics : metrics.values()) {
+            lines.addAll(providerMetrics.describe());
+        }
+        return lines;
+    }
+
+    public static JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("timestamp", System.currentTimeMillis());
+        JsonObject providers = new JsonObject();
+        new TreeMap<>(metrics).forEach((provider, providerMetrics) -> providers.add(provider, providerMetrics.toJson()));
+        json.add("providers", providers);
+        return json;
+    }
+
+    /**
+     * Write the current metrics to the world's data folder. The snapshot is taken on the calling
+     * thread and written in the background, unless {@code wait} is set (server stop).
+     */
+    public static void save(Path dataDir, boolean wait) {
+        if (metrics.isEmpty()) {
+            return;
+        }
+
+        String snapshot = GSON.toJson(toJson());
+        if (wait) {
+            pendingWrite.join();
+            write(dataDir, snapshot);
+        } else if (pendingWrite.isDone()) {
+            pendingWrite = CompletableFuture.runAsync(() -> write(dataDir, snapshot));
+        }
+    }
+
+    private static void write(Path dataDir, String snapshot) {
+        Path file = dataDir.resolve(FILE_NAME);
+        Path temp = dataDir.resolve(FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(dataDir);
+            try (Writer writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(snapshot);
+            }
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            SteveMod.LOGGER.warn("Could not write LLM metrics {}", file, e);
+        }
+    }
+}
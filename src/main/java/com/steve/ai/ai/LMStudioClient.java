@@ -7,10 +7,10 @@ import com.steve.ai.SteveMod;
 import com.steve.ai.config.SteveConfig;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.function.Consumer;
 
 /**
  * Client for LM Studio local API
@@ -18,27 +18,28 @@ import java.time.Duration;
  * Default URL: http://localhost:1234/v1/chat/completions
  * No API key required for local usage
  */
-public class LMStudioClient {
+public class LMStudioClient implements AIClient {
     private static final int MAX_RETRIES = 3;
     private static final int INITIAL_RETRY_DELAY_MS = 1000; // 1 second
 
-    private final HttpClient client;
     private final String apiUrl;
     private final String model;
 
     public LMStudioClient() {
         this.apiUrl = SteveConfig.LMSTUDIO_API_URL.get();
         this.model = SteveConfig.LMSTUDIO_MODEL.get();
-        this.client = HttpClient.newBuilder()
-            .version(HttpClient.Version.HTTP_1_1) // Явно используем HTTP/1.1 для совместимости
-            .connectTimeout(Duration.ofSeconds(5)) // Короткий таймаут подключения
-            .build();
         
         SteveMod.LOGGER.info("LMStudioClient initialized with URL: {}, Model: {}", apiUrl, model);
     }
 
-    public String sendRequest(String systemPrompt, String userPrompt) {
-        SteveMod.LOGGER.info("LMStudioClient.sendRequest called");
+    @Override
+    public String getName() {
+        return "lmstudio";
+    }
+
+    @Override
+    public String sendRequest(ChatRequest chat) {
+        SteveMod.LOGGER.debug("LMStudioClient.sendRequest called");
         SteveMod.LOGGER.debug("API URL: {}, Model: {}", apiUrl, model);
         
         if (apiUrl == null || apiUrl.isEmpty()) {
@@ -51,16 +52,18 @@ public class LMStudioClient {
                 "Make sure to set the model name in config/steve-common.toml under [lmstudio] section.");
         }
 
-        JsonObject requestBody = buildRequestBody(systemPrompt, userPrompt);
+        JsonObject requestBody = buildRequestBody(chat);
         String requestBodyStr = requestBody.toString();
-        SteveMod.LOGGER.info("Request body size: {} chars, System prompt: {} chars, User prompt: {} chars", 
-            requestBodyStr.length(), systemPrompt.length(), userPrompt.length());
+        SteveMod.LOGGER.debug("Request body size: {} chars, System prompt: {} chars, User prompt: {} chars", 
+            requestBodyStr.length(), chat.getSystemPrompt().length(), chat.getUserPrompt().length());
         
         // Логируем начало запроса для диагностики (первые 500 символов)
-        String requestPreview = requestBodyStr.length() > 500 
-            ? requestBodyStr.substring(0, 500) + "..." 
-            : requestBodyStr;
-        SteveMod.LOGGER.info("Request preview: {}", requestPreview);
+        if (SteveMod.LOGGER.isDebugEnabled()) {
+            String requestPreview = requestBodyStr.length() > 500 
+                ? requestBodyStr.substring(0, 500) + "..." 
+                : requestBodyStr;
+            SteveMod.LOGGER.debug("Request preview: {}", requestPreview);
+        }
 
         // LM Studio doesn't require API key, but some setups might use it
         HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
@@ -77,29 +80,29 @@ public class LMStudioClient {
 
         HttpRequest request = requestBuilder.build();
         
-        SteveMod.LOGGER.info("Sending request to LM Studio at: {}", apiUrl);
-        SteveMod.LOGGER.info("Request URI: {}", request.uri());
-        SteveMod.LOGGER.info("Request method: {}", request.method());
-        SteveMod.LOGGER.info("Request headers: {}", request.headers().map());
+        SteveMod.LOGGER.debug("Sending request to LM Studio at: {}", apiUrl);
+        SteveMod.LOGGER.debug("Request URI: {}", request.uri());
+        SteveMod.LOGGER.debug("Request method: {}", request.method());
+        SteveMod.LOGGER.debug("Request headers: {}", request.headers().map());
         
         // Проверяем, что тело запроса не пустое
         if (requestBodyStr == null || requestBodyStr.isEmpty()) {
             SteveMod.LOGGER.error("Request body is empty!");
             return null;
         }
-        SteveMod.LOGGER.info("Request body length: {} bytes", requestBodyStr.getBytes().length);
+        SteveMod.LOGGER.debug("Request body length: {} bytes", requestBodyStr.getBytes().length);
 
         // Retry logic with exponential backoff
         for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
             try {
-                SteveMod.LOGGER.info("Attempting to connect to LM Studio (attempt {}/{})", attempt + 1, MAX_RETRIES);
+                SteveMod.LOGGER.debug("Attempting to connect to LM Studio (attempt {}/{})", attempt + 1, MAX_RETRIES);
                 long startTime = System.currentTimeMillis();
                 
                 // Проверяем, можем ли мы вообще подключиться
-                SteveMod.LOGGER.info("Calling client.send()...");
-                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                SteveMod.LOGGER.debug("Calling client.send()...");
+                HttpResponse<String> response = RequestScheduler.send(getName(), request, HttpResponse.BodyHandlers.ofString());
                 long duration = System.currentTimeMillis() - startTime;
-                SteveMod.LOGGER.info("Received response with status code: {} (took {}ms)", response.statusCode(), duration);
+                SteveMod.LOGGER.debug("Received response with status code: {} (took {}ms)", response.statusCode(), duration);
 
                 if (response.statusCode() == 200) {
                     String responseBody = response.body();
@@ -107,15 +110,17 @@ public class LMStudioClient {
                         SteveMod.LOGGER.error("LM Studio API returned empty response");
                         return null;
                     }
-                    SteveMod.LOGGER.info("LM Studio API returned successful response (body size: {} chars)", responseBody.length());
+                    SteveMod.LOGGER.debug("LM Studio API returned successful response (body size: {} chars)", responseBody.length());
                     SteveMod.LOGGER.debug("Full response body: {}", responseBody);
                     
-                    String parsed = parseResponse(responseBody);
+                    String parsed = parseResponse(responseBody, maxTokens(chat));
                     if (parsed != null) {
-                        SteveMod.LOGGER.info("Successfully parsed response from LM Studio (content length: {} chars)", parsed.length());
+                        SteveMod.LOGGER.debug("Successfully parsed response from LM Studio (content length: {} chars)", parsed.length());
                         // Логируем первые 200 символов ответа для диагностики
-                        String preview = parsed.length() > 200 ? parsed.substring(0, 200) + "..." : parsed;
-                        SteveMod.LOGGER.info("Response preview: {}", preview);
+                        if (SteveMod.LOGGER.isDebugEnabled()) {
+                            String preview = parsed.length() > 200 ? parsed.substring(0, 200) + "..." : parsed;
+                            SteveMod.LOGGER.debug("Response preview: {}", preview);
+                        }
                     } else {
                         SteveMod.LOGGER.error("Failed to parse response from LM Studio");
                         SteveMod.LOGGER.error("Response body was: {}", responseBody);
@@ -145,6 +150,7 @@ public class LMStudioClient {
                 // Check if error is retryable (server error)
                 if (response.statusCode() >= 500) {
                     if (attempt < MAX_RETRIES - 1) {
+                        LLMMetrics.recordRetry(getName());
                         int delayMs = INITIAL_RETRY_DELAY_MS * (int) Math.pow(2, attempt);
                         SteveMod.LOGGER.warn("LM Studio API request failed with status {}, retrying in {}ms (attempt {}/{})",
                             response.statusCode(), delayMs, attempt + 1, MAX_RETRIES);
@@ -169,6 +175,7 @@ public class LMStudioClient {
                 SteveMod.LOGGER.error("Exception details: {}", e.getClass().getName());
                 e.printStackTrace();
                 if (attempt < MAX_RETRIES - 1) {
+                    LLMMetrics.recordRetry(getName());
                     int delayMs = INITIAL_RETRY_DELAY_MS * (int) Math.pow(2, attempt);
                     SteveMod.LOGGER.warn("Retrying in {}ms (attempt {}/{})", delayMs, attempt + 1, MAX_RETRIES);
                     try {
@@ -188,6 +195,7 @@ public class LMStudioClient {
                 SteveMod.LOGGER.error("Exception details: {}", e.getClass().getName());
                 e.printStackTrace();
                 if (attempt < MAX_RETRIES - 1) {
+                    LLMMetrics.recordRetry(getName());
                     int delayMs = INITIAL_RETRY_DELAY_MS * (int) Math.pow(2, attempt);
                     SteveMod.LOGGER.warn("Retrying in {}ms (attempt {}/{})", delayMs, attempt + 1, MAX_RETRIES);
                     try {
@@ -210,6 +218,7 @@ public class LMStudioClient {
                     SteveMod.LOGGER.error("Caused by: {}", e.getCause().getMessage());
                 }
                 if (attempt < MAX_RETRIES - 1) {
+                    LLMMetrics.recordRetry(getName());
                     int delayMs = INITIAL_RETRY_DELAY_MS * (int) Math.pow(2, attempt);
                     SteveMod.LOGGER.warn("Retrying in {}ms (attempt {}/{})", delayMs, attempt + 1, MAX_RETRIES);
                     try {
@@ -223,6 +232,7 @@ public class LMStudioClient {
                 }
             } catch (Exception e) {
                 if (attempt < MAX_RETRIES - 1) {
+                    LLMMetrics.recordRetry(getName());
                     int delayMs = INITIAL_RETRY_DELAY_MS * (int) Math.pow(2, attempt);
                     SteveMod.LOGGER.warn("Error communicating with LM Studio API, retrying in {}ms (attempt {}/{})",
                         delayMs, attempt + 1, MAX_RETRIES, e);
@@ -248,7 +258,47 @@ public class LMStudioClient {
         return null;
     }
 
-    private JsonObject buildRequestBody(String systemPrompt, String userPrompt) {
+    /**
+     * Same request with "stream": true. Deltas go to {@code onDelta} as they arrive;
+     * returns the full text, or null so the caller can fall back to {@link #sendRequest}.
+     */
+    public String sendStreamingRequest(ChatRequest chat, Consumer<String> onDelta) {
+        if (apiUrl == null || apiUrl.isEmpty()) {
+            SteveMod.LOGGER.error("LM Studio API URL not configured!");
+            return null;
+        }
+
+        JsonObject requestBody = buildRequestBody(chat);
+        requestBody.addProperty("stream", true);
+        JsonObject streamOptions = new JsonObject();
+        streamOptions.addProperty("include_usage", true);
+        requestBody.add("stream_options", streamOptions);
+
+        HttpRequest.Builder requestBuilder = HttpRequest.newBuilder()
+            .uri(URI.create(apiUrl))
+            .header("Content-Type", "application/json; charset=UTF-8")
+            .header("Accept", "text/event-stream")
+            .timeout(Duration.ofSeconds(60))
+            .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString(), java.nio.charset.StandardCharsets.UTF_8));
+
+        String apiKey = SteveConfig.LMSTUDIO_API_KEY.get();
+        if (apiKey != null && !apiKey.isEmpty()) {
+            requestBuilder.header("Authorization", "Bearer " + apiKey);
+        }
+
+        return ChatCompletionStream.send(getName(), requestBuilder.build(), maxTokens(chat), onDelta);
+    }
+
+    /**
+     * Local reasoning models think before the JSON starts, so small requests (summaries, replans) get
+     * a floor of room for that; full plans keep their own, larger limit.
+     */
+    private static int maxTokens(ChatRequest chat) {
+        return Math.min(Math.max(chat.getMaxTokens(), SteveConfig.PROMPT_LOCAL_REASONING_TOKENS.get()),
+            SteveConfig.MAX_TOKENS.get());
+    }
+
+    private JsonObject buildRequestBody(ChatRequest chat) {
         JsonObject body = new JsonObject();
         // Always add model - LM Studio requires it
         if (model != null && !model.isEmpty()) {
@@ -259,37 +309,40 @@ public class LMStudioClient {
             // Попробуем отправить без модели - некоторые версии LM Studio могут работать так
         }
         body.addProperty("temperature", SteveConfig.TEMPERATURE.get());
-        body.addProperty("max_tokens", SteveConfig.MAX_TOKENS.get());
+        int limit = maxTokens(chat);
+        body.addProperty("max_tokens", limit);
         SteveMod.LOGGER.debug("Request parameters: temperature={}, max_tokens={}", 
-            SteveConfig.TEMPERATURE.get(), SteveConfig.MAX_TOKENS.get());
+            SteveConfig.TEMPERATURE.get(), limit);
 
         JsonArray messages = new JsonArray();
         
         JsonObject systemMessage = new JsonObject();
         systemMessage.addProperty("role", "system");
-        systemMessage.addProperty("content", systemPrompt);
+        systemMessage.addProperty("content", chat.getSystemPrompt());
         messages.add(systemMessage);
 
         JsonObject userMessage = new JsonObject();
         userMessage.addProperty("role", "user");
-        userMessage.addProperty("content", userPrompt);
+        userMessage.addProperty("content", chat.getUserPrompt());
         messages.add(userMessage);
 
         body.add("messages", messages);
+        PlanSchema.applyTo(body, getName(), chat.getResponseSchema());
         
         return body;
     }
 
-    private String parseResponse(String responseBody) {
+    private String parseResponse(String responseBody, int maxTokens) {
         try {
             JsonObject json = JsonParser.parseString(responseBody).getAsJsonObject();
+            TokenUsage.recordChatCompletion(getName(), json.get("usage"), maxTokens);
             
             if (json.has("choices") && json.getAsJsonArray("choices").size() > 0) {
                 JsonObject firstChoice = json.getAsJsonArray("choices").get(0).getAsJsonObject();
                 if (firstChoice.has("message")) {
-                    JsonObject message = firstChoice.getAsJsonObject("message");
-                    if (message.has("content")) {
-                        return message.get("content").getAsString();
+                    String text = PlanSchema.messageText(firstChoice.getAsJsonObject("message"));
+                    if (text != null) {
+                        return text;
                     }
                 }
             }
@@ -7,33 +7,35 @@ import com.steve.ai.SteveMod;
 import com.steve.ai.config.SteveConfig;
 
 import java.net.URI;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.function.Consumer;
 
-public class OpenAIClient {
+public class OpenAIClient implements AIClient {
     private static final String OPENAI_API_URL = "https://api.openai.com/v1/chat/completions";
     private static final int MAX_RETRIES = 3;
     private static final int INITIAL_RETRY_DELAY_MS = 1000; // 1 second
 
-    private final HttpClient client;
     private final String apiKey;
 
     public OpenAIClient() {
         this.apiKey = SteveConfig.OPENAI_API_KEY.get();
-        this.client = HttpClient.newBuilder()
-            .connectTimeout(Duration.ofSeconds(30))
-            .build();
     }
 
-    public String sendRequest(String systemPrompt, String userPrompt) {
+    @Override
+    public String getName() {
+        return "openai";
+    }
+
+    @Override
+    public String sendRequest(ChatRequest chat) {
         if (apiKey == null || apiKey.isEmpty()) {
             SteveMod.LOGGER.error("OpenAI API key not configured!");
             return null;
         }
 
-        JsonObject requestBody = buildRequestBody(systemPrompt, userPrompt);
+        JsonObject requestBody = buildRequestBody(chat);
 
         HttpRequest request = HttpRequest.newBuilder()
             .uri(URI.create(OPENAI_API_URL))
@@ -46,7 +48,7 @@ public class OpenAIClient {
         // Retry logic with exponential backoff
         for (int attempt = 0; attempt < MAX_RETRIES; attempt++) {
             try {
-                HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                HttpResponse<String> response = RequestScheduler.send(getName(), request, HttpResponse.BodyHandlers.ofString());
 
                 if (response.statusCode() == 200) {
                     String responseBody = response.body();
@@ -54,12 +56,21 @@ public class OpenAIClient {
                         SteveMod.LOGGER.error("OpenAI API returned empty response");
                         return null;
                     }
-                    return parseResponse(responseBody);
+                    return parseResponse(responseBody, chat.getMaxTokens());
                 }
 
-                // Check if error is retryable (rate limit, server error)
-                if (response.statusCode() == 429 || response.statusCode() >= 500) {
+                // Rate limited: RequestScheduler holds the next attempt until the provider's Retry-After
+                if (response.statusCode() == 429 && attempt < MAX_RETRIES - 1) {
+                    LLMMetrics.recordRetry(getName());
+                    SteveMod.LOGGER.warn("OpenAI API rate limited, retrying when allowed (attempt {}/{})",
+                        attempt + 1, MAX_RETRIES);
+                    continue;
+                }
+
+                // Check if error is retryable (server error)
+                if (response.statusCode() >= 500) {
                     if (attempt < MAX_RETRIES - 1) {
+                        LLMMetrics.recordRetry(getName());
                         int delayMs = INITIAL_RETRY_DELAY_MS * (int) Math.pow(2, attempt);
                         SteveMod.LOGGER.warn("OpenAI API request failed with status {}, retrying in {}ms (attempt {}/{})",
                             response.statusCode(), delayMs, attempt + 1, MAX_RETRIES);
@@ -79,6 +90,7 @@ public class OpenAIClient {
                 return null;
             } catch (Exception e) {
                 if (attempt < MAX_RETRIES - 1) {
+                    LLMMetrics.recordRetry(getName());
                     int delayMs = INITIAL_RETRY_DELAY_MS * (int) Math.pow(2, attempt);
                     SteveMod.LOGGER.warn("Error communicating with OpenAI API, retrying in {}ms (attempt {}/{})",
                         delayMs, attempt + 1, MAX_RETRIES, e);
@@ -98,39 +110,69 @@ public class OpenAIClient {
         return null;
     }
 
-    private JsonObject buildRequestBody(String systemPrompt, String userPrompt) {
+    /**
+     * Same request with "stream": true. Deltas go to {@code onDelta} as they arrive;
+     * returns the full text, or null so the caller can fall back to {@link #sendRequest}.
+     */
+    public String sendStreamingRequest(ChatRequest chat, Consumer<String> onDelta) {
+        if (apiKey == null || apiKey.isEmpty()) {
+            SteveMod.LOGGER.error("OpenAI API key not configured!");
+            return null;
+        }
+
+        JsonObject requestBody = buildRequestBody(chat);
+        requestBody.addProperty("stream", true);
+        JsonObject streamOptions = new JsonObject();
+        streamOptions.addProperty("include_usage", true);
+        requestBody.add("stream_options", streamOptions);
+
+        HttpRequest request = HttpRequest.newBuilder()
+            .uri(URI.create(OPENAI_API_URL))
+            .header("Authorization", "Bearer " + apiKey)
+            .header("Content-Type", "application/json")
+            .header("Accept", "text/event-stream")
+            .timeout(Duration.ofSeconds(60))
+            .POST(HttpRequest.BodyPublishers.ofString(requestBody.toString()))
+            .build();
+
+        return ChatCompletionStream.send(getName(), request, chat.getMaxTokens(), onDelta);
+    }
+
+    private JsonObject buildRequestBody(ChatRequest chat) {
         JsonObject body = new JsonObject();
         body.addProperty("model", SteveConfig.OPENAI_MODEL.get());
         body.addProperty("temperature", SteveConfig.TEMPERATURE.get());
-        body.addProperty("max_tokens", SteveConfig.MAX_TOKENS.get());
+        body.addProperty("max_tokens", chat.getMaxTokens());
 
         JsonArray messages = new JsonArray();
         
         JsonObject systemMessage = new JsonObject();
         systemMessage.addProperty("role", "system");
-        systemMessage.addProperty("content", systemPrompt);
+        systemMessage.addProperty("content", chat.getSystemPrompt());
         messages.add(systemMessage);
 
         JsonObject userMessage = new JsonObject();
         userMessage.addProperty("role", "user");
-        userMessage.addProperty("content", userPrompt);
+        userMessage.addProperty("content", chat.getUserPrompt());
         messages.add(userMessage);
 
         body.add("messages", messages);
+        PlanSchema.applyTo(body, getName(), chat.getResponseSchema());
         
         return body;
     }
 
-    private String parseResponse(String responseBody) {
+    private String parseResponse(String responseBody, int maxTokens) {
         try {
             JsonObject json = JsonParser.parseString(responseBody).getAsJsonObject();
+            TokenUsage.recordChatCompletion(getName(), json.get("usage"), maxTokens);
             
             if (json.has("choices") && json.getAsJsonArray("choices").size() > 0) {
                 JsonObject firstChoice = json.getAsJsonArray("choices").get(0).getAsJsonObject();
                 if (firstChoice.has("message")) {
-                    JsonObject message = firstChoice.getAsJsonObject("message");
-                    if (message.has("content")) {
-                        return message.get("content").getAsString();
+                    String text = PlanSchema.messageText(firstChoice.getAsJsonObject("message"));
+                    if (text != null) {
+                        return text;
                     }
                 }
             }
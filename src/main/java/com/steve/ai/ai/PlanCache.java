@@ -0,0 +1,302 @@
+package com.steve.ai.ai;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import com.steve.ai.SteveMod;
+import com.steve.ai.action.Task;
+import com.steve.ai.config.SteveConfig;
+import com.steve.ai.memory.WorldKnowledge;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Server-wide cache of finished plans, so repeated commands ("follow me", "mine iron") skip the LLM.
+ *
+ * The key is the normalized command plus a coarse fingerprint of the world snapshot: biome, the most
+ * common nearby blocks, nearby players and a depth band. Exact position and the issuing player are left
+ * out on purpose, so plans that contain absolute coordinates or name a player are never stored. Entries expire after a TTL and the least recently
+ * used ones are evicted past the size limit. Identical requests that arrive while one is already
+ * being planned wait for that result instead of sending their own request, and plan separately if
+ * it fails or could not have been cached.
+ */
+public class PlanCache {
+    private static final String FILE_NAME = "steve_plan_cache.json";
+    private static final long IN_FLIGHT_WAIT_SECONDS = 90;
+    private static final Gson GSON = new GsonBuilder().create();
+    // Words that make a command depend on what was said before it
+    private static final Set<String> FOLLOW_UP_WORDS = Set.of(
+        "again", "same", "it", "that", "this", "those", "them", "there", "more", "another", "also", "too",
+        "instead", "previous", "last", "before", "else", "undo");
+
+    private static final Map<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private static final Map<String, CompletableFuture<ResponseParser.ParsedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong coalesced = new AtomicLong();
+    private static final AtomicLong evictions = new AtomicLong();
+
+    private static class Entry {
+        String key;
+        long createdAt;  // Wall clock, so the TTL survives restarts
+        String reasoning;
+        String plan;
+        List<StoredTask> tasks;
+    }
+
+    private static class StoredTask {
+        String action;
+        Map<String, Object> parameters;
+        String id;
+        List<String> dependsOn;
+    }
+
+    /**
+     * Cache key: the command plus the parts of the situation that change the plan. Null for follow-ups
+     * that refer back to the conversation ("same again with stone"): they mean something else after a
+     * different command, so they are never cached.
+     */
+    public static String key(String command, WorldKnowledge worldKnowledge) {
+        String normalized = command.toLowerCase(Locale.ROOT)
+            .replaceAll("[\\p{Punct}&&[^_:]]", " ")
+            .replaceAll("\\s+", " ")
+            .trim();
+        if (isFollowUp(normalized)) {
+            return null;
+        }
+
+        List<String> players = new ArrayList<>(worldKnowledge.getNearbyPlayers());
+        players.sort(null);
+
+        // Sea level band: underground, surface, hills/sky
+        int y = worldKnowledge.getPosition().getY();
+        String depth = y < 50 ? "low" : y < 100 ? "mid" : "high";
+
+        return normalized + "|" + worldKnowledge.getBiomeName() + "|" + depth
+            + "|" + String.join(",", players) + "|" + worldKnowledge.getNearbyBlocksSummary();
+    }
+
+    private static boolean isFollowUp(String normalizedCommand) {
+        for (String word : normalizedCommand.split(" ")) {
+            if (FOLLOW_UP_WORDS.contains(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Return the cached plan for {@code key}, or run {@code planner} once and cache its result.
+     * Concurrent callers with the same key share a single planner run.
+     */
+    public static ResponseParser.ParsedResponse getOrPlan(String key, Supplier<ResponseParser.ParsedResponse> planner) {
+        if (key == null || !SteveConfig.PLAN_CACHE_ENABLED.get()) {
+            return planner.get();
+        }
+
+        ResponseParser.ParsedResponse cached = get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            SteveMod.LOGGER.info("Plan cache hit: {}", key);
+            return cached;
+        }
+
+        CompletableFuture<ResponseParser.ParsedResponse> mine = new CompletableFuture<>();
+        CompletableFuture<ResponseParser.ParsedResponse> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            SteveMod.LOGGER.info("Waiting for identical plan already in flight: {}", key);
+            try {
+                ResponseParser.ParsedResponse shared = existing.get(IN_FLIGHT_WAIT_SECONDS, TimeUnit.SECONDS);
+                if (shared != null && isCacheable(shared)) {
+                    return shared.copy();
+                }
+                SteveMod.LOGGER.info("Shared plan can't be reused, planning separately: {}", key);
+                return planner.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (Exception e) {
+                SteveMod.LOGGER.warn("Shared plan request failed, planning separately", e);
+                return planner.get();
+            }
+        }
+
+        misses.incrementAndGet();
+        ResponseParser.ParsedResponse result = null;
+        try {
+            result = planner.get();
+            if (result != null && isCacheable(result)) {
+                put(key, result);
+            }
+            return result;
+        } finally {
+            inFlight.remove(key, mine);
+            mine.complete(result);
+        }
+    }
+
+    /**
+     * Plans with absolute coordinates only make sense where they were made, and plans naming a player
+     * ("follow me") only for the player who asked.
+     */
+    private static boolean isCacheable(ResponseParser.ParsedResponse response) {
+        if (response.getTasks().isEmpty()) {
+            return false;
+        }
+        for (Task task : response.getTasks()) {
+            if (task.hasParameters("x", "y", "z") || task.hasParameters("player")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static synchronized ResponseParser.ParsedResponse get(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, System.currentTimeMillis())) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            return null;
+        }
+        return toResponse(entry);
+    }
+
+    private static synchronized void put(String key, ResponseParser.ParsedResponse response) {
+        Entry entry = new Entry();
+        entry.key = key;
+        entry.createdAt = System.currentTimeMillis();
+        entry.reasoning = response.getReasoning();
+        entry.plan = response.getPlan();
+        entry.tasks = new ArrayList<>();
+        for (Task task : response.getTasks()) {
+            StoredTask stored = new StoredTask();
+            stored.action = task.getAction();
+            stored.parameters = new LinkedHashMap<>(task.getParameters());
+            stored.id = task.getId();
+            stored.dependsOn = task.getDependsOn().isEmpty() ? null : new ArrayList<>(task.getDependsOn());
+            entry.tasks.add(stored);
+        }
+        entries.put(key, entry);
+        trim();
+    }
+
+    private static boolean isExpired(Entry entry, long now) {
+        return now - entry.createdAt > TimeUnit.MINUTES.toMillis(SteveConfig.PLAN_CACHE_TTL_MINUTES.get());
+    }
+
+    private static void trim() {
+        int maxEntries = SteveConfig.PLAN_CACHE_MAX_ENTRIES.get();
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (entries.size() > maxEntries && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();  // Access order, so the eldest is least recently used
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Every caller gets its own task list, since executors consume and may mutate what they queue.
+     */
+    private static ResponseParser.ParsedResponse toResponse(Entry entry) {
+        List<Task> tasks = new ArrayList<>();
+        for (StoredTask stored : entry.tasks) {
+            tasks.add(new Task(stored.action, new LinkedHashMap<>(stored.parameters), stored.id, stored.dependsOn));
+        }
+        return new ResponseParser.ParsedResponse(entry.reasoning, entry.plan, tasks);
+    }
+
+    public static synchronized void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Load persisted entries from the world's data folder (server start).
+     */
+    public static synchronized void load(Path dataDir) {
+        if (!SteveConfig.PLAN_CACHE_PERSIST.get()) {
+            return;
+        }
+
+        Path file = dataDir.resolve(FILE_NAME);
+        if (!Files.exists(file)) {
+            return;
+        }
+
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            List<Entry> loaded = GSON.fromJson(reader, new TypeToken<List<Entry>>() {}.getType());
+            long now = System.currentTimeMillis();
+            int count = 0;
+            if (loaded != null) {
+                for (Entry entry : loaded) {
+                    if (entry.key != null && entry.tasks != null && !isExpired(entry, now)) {
+                        entries.put(entry.key, entry);
+                        count++;
+                    }
+                }
+            }
+            trim();
+            SteveMod.LOGGER.info("Loaded {} cached plans from {}", count, file);
+        } catch (Exception e) {
+            SteveMod.LOGGER.warn("Could not read plan cache {}", file, e);
+        }
+    }
+
+    /**
+     * Write live entries to the world's data folder (server stop).
+     */
+    public static synchronized void save(Path dataDir) {
+        if (!SteveConfig.PLAN_CACHE_PERSIST.get()) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        List<Entry> live = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (!isExpired(entry, now)) {
+                live.add(entry);
+            }
+        }
+
+        Path file = dataDir.resolve(FILE_NAME);
+        try {
+            Files.createDirectories(dataDir);
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                GSON.toJson(live, writer);
+            }
+            SteveMod.LOGGER.info("Saved {} cached plans to {}", live.size(), file);
+        } catch (IOException e) {
+            SteveMod.LOGGER.warn("Could not write plan cache {}", file, e);
+        }
+    }
+
+    public static synchronized String describe() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        double hitRate = lookups > 0 ? 100.0 * hitCount / lookups : 0.0;
+        return String.format("entries=%d/%d hits=%d misses=%d hitRate=%.1f%% coalesced=%d evicted=%d",
+            entries.size(), SteveConfig.PLAN_CACHE_MAX_ENTRIES.get(), hitCount, misses.get(), hitRate,
+            coalesced.get(), evictions.get());
+    }
+}
@@ -0,0 +1,293 @@
+package com.steve.ai.ai;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.steve.ai.SteveMod;
+import com.steve.ai.action.Task;
+import com.steve.ai.config.SteveConfig;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JSON schema for plans, built from the actions {@code ActionExecutor.createAction} knows and the
+ * parameters each action reads. Providers that support it get the schema with the request, either as
+ * response_format (constrained JSON) or as a forced "submit_plan" tool call, so the answer arrives as
+ * valid JSON in the right shape. The same table validates tasks from every source before they are queued.
+ */
+public class PlanSchema {
+    public static final String MODE_OFF = "off";
+    public static final String MODE_SCHEMA = "schema";
+    public static final String MODE_TOOLS = "tools";
+    public static final List<String> MODES = List.of(MODE_OFF, MODE_SCHEMA, MODE_TOOLS);
+
+    private static final String TOOL_NAME = "submit_plan";
+    private static final List<String> STRUCTURES = List.of(
+        "house", "oldhouse", "powerplant", "castle", "tower", "barn", "modern", "platform", "box", "text", "sign");
+
+    // Keep in sync with ActionExecutor.createAction
+    private static final Map<String, List<Parameter>> ACTIONS = new LinkedHashMap<>();
+
+    private enum Type {
+        STRING, INTEGER, STRING_LIST, INTEGER_LIST
+    }
+
+    private static class Parameter {
+        final String name;
+        final Type type;
+        final boolean required;
+
+        Parameter(String name, Type type, boolean required) {
+            this.name = name;
+            this.type = type;
+            this.required = required;
+        }
+    }
+
+    static {
+        ACTIONS.put("pathfind", List.of(
+            required("x", Type.INTEGER), required("y", Type.INTEGER), required("z", Type.INTEGER)));
+        ACTIONS.put("mine", List.of(
+            required("block", Type.STRING), optional("quantity", Type.INTEGER)));
+        ACTIONS.put("place", List.of(
+            required("block", Type.STRING),
+            required("x", Type.INTEGER), required("y", Type.INTEGER), required("z", Type.INTEGER)));
+        ACTIONS.put("craft", List.of(
+            required("item", Type.STRING), optional("quantity", Type.INTEGER)));
+        ACTIONS.put("attack", List.of(
+            required("target", Type.STRING)));
+        ACTIONS.put("follow", List.of(
+            required("player", Type.STRING)));
+        ACTIONS.put("gather", List.of(
+            required("resource", Type.STRING), optional("quantity", Type.INTEGER)));
+        ACTIONS.put("build", List.of(
+            required("structure", Type.STRING), optional("blocks", Type.STRING_LIST),
+            optional("dimensions", Type.INTEGER_LIST), optional("text", Type.STRING),
+            optional("textColor", Type.STRING), optional("backgroundColor", Type.STRING)));
+    }
+
+    private static Parameter required(String name, Type type) {
+        return new Parameter(name, type, true);
+    }
+
+    private static Parameter optional(String name, Type type) {
+        return new Parameter(name, type, false);
+    }
+
+    /**
+     * Structured output mode configured for {@code provider}; off for providers without support.
+     */
+    public static String modeFor(String provider) {
+        String mode = switch (provider) {
+            case "openai" -> SteveConfig.STRUCTURED_OUTPUT_OPENAI.get();
+            case "groq" -> SteveConfig.STRUCTURED_OUTPUT_GROQ.get();
+            case "lmstudio" -> SteveConfig.STRUCTURED_OUTPUT_LMSTUDIO.get();
+            default -> MODE_OFF;
+        };
+        return MODES.contains(mode) ? mode : MODE_OFF;
+    }
+
+    /**
+     * Schema for a single Steve's plan: {"reasoning", "plan", "tasks"}.
+     */
+    public static JsonObject planSchema() {
+        JsonObject properties = new JsonObject();
+        properties.add("reasoning", type("string"));
+        properties.add("plan", type("string"));
+        properties.add("tasks", tasksSchema());
+        return object(properties, List.of("reasoning", "plan", "tasks"));
+    }
+
+    /**
+     * Schema for a group plan with one required assignment per Steve name.
+     */
+    public static JsonObject groupSchema(List<String> steveNames) {
+        JsonObject assignmentProperties = new JsonObject();
+        assignmentProperties.add("plan", type("string"));
+        assignmentProperties.add("tasks", tasksSchema());
+        JsonObject assignment = object(assignmentProperties, List.of("plan", "tasks"));
+
+        JsonObject steves = new JsonObject();
+        for (String name : steveNames) {
+            steves.add(name, assignment.deepCopy());
+        }
+
+        JsonObject properties = new JsonObject();
+        properties.add("reasoning", type("string"));
+        properties.add("plan", type("string"));
+        properties.add("assignments", object(steves, steveNames));
+        return object(properties, List.of("reasoning", "plan", "assignments"));
+    }
+
+    private static JsonObject tasksSchema() {
+        JsonArray variants = new JsonArray();
+        for (Map.Entry<String, List<Parameter>> action : ACTIONS.entrySet()) {
+            JsonObject parameterProperties = new JsonObject();
+            List<String> required = new ArrayList<>();
+            for (Parameter parameter : action.getValue()) {
+                parameterProperties.add(parameter.name, parameterSchema(parameter));
+                if (parameter.required) {
+                    required.add(parameter.name);
+                }
+            }
+
+            JsonObject actionName = type("string");
+            JsonArray actionEnum = new JsonArray();
+            actionEnum.add(action.getKey());
+            actionName.add("enum", actionEnum);
+
+            JsonObject taskProperties = new JsonObject();
+            taskProperties.add("action", actionName);
+            taskProperties.add("id", type("string"));
+            taskProperties.add("dependsOn", arrayOf("string"));
+            taskProperties.add("parameters", object(parameterProperties, required));
+            variants.add(object(taskProperties, List.of("action", "parameters")));
+        }
+
+        JsonObject items = new JsonObject();
+        items.add("anyOf", variants);
+        JsonObject tasks = type("array");
+        tasks.add("items", items);
+        return tasks;
+    }
+
+    private static JsonObject parameterSchema(Parameter parameter) {
+        return switch (parameter.type) {
+            case STRING -> {
+                JsonObject schema = type("string");
+                if (parameter.name.equals("structure")) {
+                    JsonArray values = new JsonArray();
+                    STRUCTURES.forEach(values::add);
+                    schema.add("enum", values);
+                }
+                yield schema;
+            }
+            case INTEGER -> type("integer");
+            case STRING_LIST -> arrayOf("string");
+            case INTEGER_LIST -> arrayOf("integer");
+        };
+    }
+
+    private static JsonObject type(String type) {
+        JsonObject schema = new JsonObject();
+        schema.addProperty("type", type);
+        return schema;
+    }
+
+    private static JsonObject arrayOf(String itemType) {
+        JsonObject schema = type("array");
+        schema.add("items", type(itemType));
+        return schema;
+    }
+
+    private static JsonObject object(JsonObject properties, List<String> required) {
+        JsonObject schema = type("object");
+        schema.add("properties", properties);
+        JsonArray requiredArray = new JsonArray();
+        required.forEach(requiredArray::add);
+        schema.add("required", requiredArray);
+        schema.addProperty("additionalProperties", false);
+        return schema;
+    }
+
+    /**
+     * Add {@code schema} to an OpenAI-compatible request body in the provider's configured mode.
+     */
+    public static void applyTo(JsonObject body, String provider, JsonObject schema) {
+        if (schema == null) {
+            return;
+        }
+
+        switch (modeFor(provider)) {
+            case MODE_SCHEMA -> {
+                JsonObject jsonSchema = new JsonObject();
+                jsonSchema.addProperty("name", "plan");
+                jsonSchema.addProperty("strict", false);  // Optional parameters stay optional
+                jsonSchema.add("schema", schema);
+                JsonObject responseFormat = new JsonObject();
+                responseFormat.addProperty("type", "json_schema");
+                responseFormat.add("json_schema", jsonSchema);
+                body.add("response_format", responseFormat);
+            }
+            case MODE_TOOLS -> {
+                JsonObject function = new JsonObject();
+                function.addProperty("name", TOOL_NAME);
+                function.addProperty("description", "Submit the plan for the player's command");
+                function.add("parameters", schema);
+                JsonObject tool = new JsonObject();
+                tool.addProperty("type", "function");
+                tool.add("function", function);
+                JsonArray tools = new JsonArray();
+                tools.add(tool);
+                body.add("tools", tools);
+
+                JsonObject choiceFunction = new JsonObject();
+                choiceFunction.addProperty("name", TOOL_NAME);
+                JsonObject toolChoice = new JsonObject();
+                toolChoice.addProperty("type", "function");
+                toolChoice.add("function", choiceFunction);
+                body.add("tool_choice", toolChoice);
+            }
+            default -> { }
+        }
+    }
+
+    /**
+     * Text of a chat completion message (or stream delta): its content, or the arguments of the
+     * submit_plan call when the plan came back as a tool call. Null if there is neither.
+     */
+    public static String messageText(JsonObject message) {
+        JsonElement content = message.get("content");
+        if (content != null && content.isJsonPrimitive()) {
+            return content.getAsString();
+        }
+
+        JsonElement toolCalls = message.get("tool_calls");
+        if (toolCalls != null && toolCalls.isJsonArray() && !toolCalls.getAsJsonArray().isEmpty()) {
+            JsonObject call = toolCalls.getAsJsonArray().get(0).getAsJsonObject();
+            JsonElement function = call.get("function");
+            if (function != null && function.isJsonObject()) {
+                JsonElement arguments = function.getAsJsonObject().get("arguments");
+                if (arguments != null && arguments.isJsonPrimitive()) {
+                    return arguments.getAsString();
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether {@code task} is a known action with all required parameters, of a usable type.
+     */
+    public static boolean isValid(Task task) {
+        List<Parameter> parameters = ACTIONS.get(task.getAction());
+        if (parameters == null) {
+            SteveMod.LOGGER.warn("Unknown action type: {}", task.getAction());
+            return false;
+        }
+
+        for (Parameter parameter : parameters) {
+            if (!parameter.required) {
+                continue;  // Actions fall back to a default when an optional value is missing or unusable
+            }
+            Object value = task.getParameter(parameter.name);
+            if (value == null) {
+                SteveMod.LOGGER.warn("Task {} is missing '{}'", task.getAction(), parameter.name);
+                return false;
+            }
+            boolean matches = switch (parameter.type) {
+                case STRING -> !(value instanceof List);
+                case INTEGER -> value instanceof Number;
+                case STRING_LIST, INTEGER_LIST -> value instanceof List;
+            };
+            if (!matches) {
+                SteveMod.LOGGER.warn("Task {} has an invalid '{}': {}", task.getAction(), parameter.name, value);
+                return false;
+            }
+        }
+        return true;
+    }
+}
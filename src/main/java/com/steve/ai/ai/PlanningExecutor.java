@@ -0,0 +1,104 @@
+package com.steve.ai.ai;
+
+import com.steve.ai.SteveMod;
+import com.steve.ai.config.SteveConfig;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Server-wide pools that run planning requests off the server thread.
+ * Fixed worker count and a bounded queue, so a burst of commands can't spawn
+ * unbounded threads; when the queue is full the command is rejected instead.
+ * Background work (replans, conversation summaries) has its own smaller pool, so it can never
+ * fill the queue that player commands wait in.
+ */
+public class PlanningExecutor {
+    private static final AtomicInteger threadCounter = new AtomicInteger(0);
+    private static ThreadPoolExecutor executor;
+    private static ThreadPoolExecutor backgroundExecutor;
+
+    private static synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null || executor.isShutdown()) {
+            executor = createPool("Steve-Planner-", SteveConfig.PLANNING_THREADS.get(), Thread.NORM_PRIORITY);
+        }
+        return executor;
+    }
+
+    private static synchronized ThreadPoolExecutor getBackgroundExecutor() {
+        if (backgroundExecutor == null || backgroundExecutor.isShutdown()) {
+            backgroundExecutor = createPool("Steve-Background-", SteveConfig.PLANNING_BACKGROUND_THREADS.get(),
+                Thread.MIN_PRIORITY);
+        }
+        return backgroundExecutor;
+    }
+
+    private static ThreadPoolExecutor createPool(String namePrefix, int threads, int priority) {
+        int queueSize = SteveConfig.PLANNING_QUEUE_SIZE.get();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, namePrefix + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(priority);
+            return thread;
+        };
+        SteveMod.LOGGER.info("Planning executor {} started ({} workers, queue size {})", namePrefix, threads, queueSize);
+        return new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueSize), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Queue a planning job for a player command. Returns false if the queue is full.
+     */
+    public static boolean submit(Runnable job) {
+        return submit(getExecutor(), job, "Planning queue is full, rejecting command");
+    }
+
+    /**
+     * Queue background work that no player is waiting on. Returns false if its queue is full.
+     */
+    public static boolean submitBackground(Runnable job) {
+        return submit(getBackgroundExecutor(), job, "Background planning queue is full, skipping job");
+    }
+
+    private static boolean submit(ThreadPoolExecutor pool, Runnable job, String rejectedMessage) {
+        try {
+            pool.execute(() -> {
+                try {
+                    job.run();
+                } catch (Throwable t) {
+                    SteveMod.LOGGER.error("Planning job failed", t);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            SteveMod.LOGGER.warn(rejectedMessage);
+            return false;
+        }
+    }
+
+    public static synchronized int getQueuedCount() {
+        return executor != null ? executor.getQueue().size() : 0;
+    }
+
+    public static synchronized int getActiveCount() {
+        return executor != null ? executor.getActiveCount() : 0;
+    }
+
+    /**
+     * Stop the workers (server shutdown). A new pool is created on the next submit.
+     */
+    public static synchronized void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        if (backgroundExecutor != null) {
+            backgroundExecutor.shutdownNow();
+            backgroundExecutor = null;
+        }
+    }
+}
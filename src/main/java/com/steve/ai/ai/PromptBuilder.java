@@ -1,16 +1,42 @@
 package com.steve.ai.ai;
 
+import com.steve.ai.action.Task;
+import com.steve.ai.agent.ConversationalMemory;
+import com.steve.ai.config.SteveConfig;
 import com.steve.ai.entity.SteveEntity;
 import com.steve.ai.memory.WorldKnowledge;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.item.ItemStack;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+/**
+ * Builds the prompts sent to the LLM.
+ *
+ * The system prompts are constants, so every request starts with the same bytes and provider-side
+ * prompt caching (OpenAI, Groq, Gemini) and LM Studio's KV-cache prefix reuse can skip them.
+ * Per-request data only goes into the user prompt, the slowly changing parts first.
+ */
 public class PromptBuilder {
-    
-    public static String buildSystemPrompt() {
-        return """
+    private static final int CHARS_PER_TOKEN = 4;
+
+    // Dropped from the end of the list first when the situation is over budget
+    private static final String[] TRIM_ORDER = {"Nearby Entities", "Nearby Blocks", "Nearby Players"};
+
+    // Sections that start the request itself; everything before them is context
+    private static final String[] REQUEST_SECTIONS = {"=== PLAYER COMMAND", "=== FAILED TASK"};
+
+    private static final String SUMMARY_SYSTEM_PROMPT = """
+            You keep notes on a conversation between a Minecraft player and their AI helper Steve.
+            Update the summary with the new turns. Keep what the player asked for, preferences they stated
+            (materials, places, sizes, names) and anything still unfinished. Drop small talk.
+            Reply with the summary only, in plain text, in the player's language.
+            """;
+
+    private static final String SYSTEM_PROMPT = """
             You are a Minecraft AI agent. Respond ONLY with valid JSON, no extra text.
             
             FORMAT (strict JSON):
@@ -73,18 +99,84 @@ public class PromptBuilder {
             
             CRITICAL: Output ONLY valid JSON. No markdown, no explanations, no line breaks in JSON.
             """;
+
+    // Appended to the regular prompt, so both share the same cached prefix
+    private static final String GROUP_SYSTEM_PROMPT = SYSTEM_PROMPT + """
+            
+            GROUP MODE (overrides FORMAT above): you are planning for the whole team listed in the input at once.
+            {"reasoning": "brief thought", "plan": "team plan", "assignments": {"NAME": {"plan": "what NAME does", "tasks": [{"action": "type", "parameters": {...}}]}}}
+            Give EVERY listed Steve an entry under its exact name. Split the work: different ores or areas when mining,
+            the SAME structure and dimensions for all builders (they share one build site automatically).
+            Steves work in parallel. Only when a task needs another task finished first, even another Steve's,
+            give the needed task a unique "id" and the waiting task "dependsOn": [that id], e.g.
+            {"action": "mine", "id": "stone", "parameters": {...}} and {"action": "build", "dependsOn": ["stone"], "parameters": {...}}.
+            Leave both out for independent tasks.
+            """;
+
+    public static String buildSystemPrompt() {
+        return SYSTEM_PROMPT;
+    }
+
+    /**
+     * System prompt for planning several Steves in one request: the regular prompt with the
+     * response format switched to one task list per Steve.
+     */
+    public static String buildGroupSystemPrompt() {
+        return GROUP_SYSTEM_PROMPT;
+    }
+
+    /**
+     * Output token limit for a plan covering {@code steveCount} Steves, capped by the configured maximum.
+     */
+    public static int maxOutputTokens(int steveCount) {
+        int expected = SteveConfig.PROMPT_PLAN_TOKENS.get() * Math.max(1, steveCount);
+        return Math.min(expected, SteveConfig.MAX_TOKENS.get());
+    }
+
+    /**
+     * Rough token count, good enough for budgeting prompt sections.
+     */
+    public static int estimateTokens(String text) {
+        return (text.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    public static String buildGroupUserPrompt(List<String> steveNames, List<WorldKnowledge> worldKnowledge, String command) {
+        StringBuilder prompt = new StringBuilder();
+        
+        prompt.append("=== YOUR TEAM ===\n");
+        prompt.append("Nearby Players: ").append(worldKnowledge.get(0).getNearbyPlayerNames()).append("\n");
+        int budgetPerSteve = Math.max(1, SteveConfig.PROMPT_CONTEXT_TOKENS.get() / steveNames.size());
+        for (int i = 0; i < steveNames.size(); i++) {
+            Map<String, String> situation = describeSituation(worldKnowledge.get(i));
+            situation.remove("Nearby Players");
+            fitToBudget(situation, budgetPerSteve, ", ");
+            prompt.append("- ").append(steveNames.get(i)).append(": ").append(render(situation, ", ")).append("\n");
+        }
+        
+        prompt.append("\n=== PLAYER COMMAND (for the whole team) ===\n");
+        prompt.append("\"").append(command).append("\"\n");
+        
+        prompt.append("\n=== YOUR RESPONSE (assignments for every Steve) ===\n");
+        
+        return prompt.toString();
     }
 
     public static String buildUserPrompt(SteveEntity steve, String command, WorldKnowledge worldKnowledge) {
         StringBuilder prompt = new StringBuilder();
         
-        // Give agents FULL situational awareness
+        Map<String, String> situation = describeSituation(worldKnowledge);
+        fitToBudget(situation, SteveConfig.PROMPT_CONTEXT_TOKENS.get(), "\n");
+        
         prompt.append("=== YOUR SITUATION ===\n");
-        prompt.append("Position: ").append(formatPosition(steve.blockPosition())).append("\n");
-        prompt.append("Nearby Players: ").append(worldKnowledge.getNearbyPlayerNames()).append("\n");
-        prompt.append("Nearby Entities: ").append(worldKnowledge.getNearbyEntitiesSummary()).append("\n");
-        prompt.append("Nearby Blocks: ").append(worldKnowledge.getNearbyBlocksSummary()).append("\n");
-        prompt.append("Biome: ").append(worldKnowledge.getBiomeName()).append("\n");
+        prompt.append(render(situation, "\n")).append("\n");
+        
+        // After the situation, next to the command: the conversation grows every turn, so it goes
+        // late in the prompt and the parts before it stay reusable as a cached prefix
+        String conversation = steve.getMemory().getConversation().getContext();
+        if (!conversation.isEmpty()) {
+            prompt.append("\n=== CONVERSATION SO FAR ===\n");
+            prompt.append(conversation).append("\n");
+        }
         
         prompt.append("\n=== PLAYER COMMAND ===\n");
         prompt.append("\"").append(command).append("\"\n");
@@ -94,6 +186,117 @@ public class PromptBuilder {
         return prompt.toString();
     }
 
+    /**
+     * Prompt for replacing one failed task. Much smaller than a full plan prompt: the failed task and
+     * its error, the tasks still queued, and only the parts of the situation that change as Steve works.
+     */
+    public static String buildReplanPrompt(Task failedTask, String error, List<Task> remainingTasks,
+                                           WorldKnowledge worldKnowledge) {
+        StringBuilder prompt = new StringBuilder();
+        
+        Map<String, String> situation = describeSituation(worldKnowledge);
+        situation.remove("Biome");
+        situation.remove("Nearby Players");
+        fitToBudget(situation, Math.max(1, SteveConfig.PROMPT_CONTEXT_TOKENS.get() / 2), "\n");
+        
+        prompt.append("=== YOUR SITUATION ===\n");
+        prompt.append(render(situation, "\n")).append("\n");
+        
+        prompt.append("\n=== FAILED TASK ===\n");
+        prompt.append(formatTask(failedTask)).append("\n");
+        prompt.append("Error: ").append(error).append("\n");
+        
+        prompt.append("\n=== STILL QUEUED (do not repeat these) ===\n");
+        if (remainingTasks.isEmpty()) {
+            prompt.append("nothing\n");
+        }
+        for (Task task : remainingTasks) {
+            prompt.append("- ").append(formatTask(task)).append("\n");
+        }
+        
+        prompt.append("\n=== YOUR RESPONSE (tasks that replace the failed one, empty tasks to skip it) ===\n");
+        
+        return prompt.toString();
+    }
+
+    public static String buildSummarySystemPrompt() {
+        return SUMMARY_SYSTEM_PROMPT;
+    }
+
+    public static String buildSummaryPrompt(String previousSummary, List<ConversationalMemory.ChatMessage> turns) {
+        StringBuilder prompt = new StringBuilder();
+        prompt.append("=== SUMMARY SO FAR ===\n");
+        prompt.append(previousSummary.isEmpty() ? "nothing yet" : previousSummary).append("\n");
+        prompt.append("\n=== NEW TURNS ===\n");
+        for (ConversationalMemory.ChatMessage turn : turns) {
+            prompt.append(turn.role.equals("user") ? "Player" : "Steve").append(": ").append(turn.content).append("\n");
+        }
+        prompt.append("\n=== UPDATED SUMMARY ===\n");
+        return prompt.toString();
+    }
+
+    /**
+     * The part of a user prompt that states the request (command or failed task), without the
+     * conversation and situation before it.
+     */
+    public static String requestPart(String userPrompt) {
+        int start = userPrompt.length();
+        for (String section : REQUEST_SECTIONS) {
+            int index = userPrompt.indexOf(section);
+            if (index >= 0) {
+                start = Math.min(start, index);
+            }
+        }
+        return start < userPrompt.length() ? userPrompt.substring(start) : userPrompt;
+    }
+
+    private static String formatTask(Task task) {
+        return task.getAction() + " " + task.getParameters();
+    }
+
+    /**
+     * Situation lines, ordered from what changes least between commands to what changes most,
+     * so consecutive prompts share as long a prefix as possible.
+     */
+    private static Map<String, String> describeSituation(WorldKnowledge worldKnowledge) {
+        Map<String, String> situation = new LinkedHashMap<>();
+        situation.put("Biome", worldKnowledge.getBiomeName());
+        situation.put("Nearby Players", worldKnowledge.getNearbyPlayerNames());
+        situation.put("Nearby Blocks", worldKnowledge.getNearbyBlocksSummary());
+        situation.put("Position", formatPosition(worldKnowledge.getPosition()));
+        situation.put("Nearby Entities", worldKnowledge.getNearbyEntitiesSummary());
+        return situation;
+    }
+
+    /**
+     * Drop list items from the end (the summaries list the most common first) until the rendered
+     * situation fits {@code budgetTokens}. Position and biome are always kept.
+     */
+    private static void fitToBudget(Map<String, String> situation, int budgetTokens, String separator) {
+        for (String label : TRIM_ORDER) {
+            String value = situation.get(label);
+            if (value == null) {
+                continue;
+            }
+            List<String> items = new ArrayList<>(List.of(value.split(", ")));
+            while (estimateTokens(render(situation, separator)) > budgetTokens && !items.isEmpty()) {
+                items.remove(items.size() - 1);
+                situation.put(label, items.isEmpty() ? "none" : String.join(", ", items));
+            }
+        }
+    }
+
+    private static String render(Map<String, String> situation, String separator) {
+        StringBuilder sb = new StringBuilder();
+        for (Map.Entry<String, String> entry : situation.entrySet()) {
+            if (sb.length() > 0) {
+                sb.append(separator);
+            }
+            sb.append(entry.getKey()).append(": ").append(entry.getValue());
+        }
+        return sb.toString();
+    }
+
     private static String formatPosition(BlockPos pos) {
         return String.format("[%d, %d, %d]", pos.getX(), pos.getY(), pos.getZ());
     }
@@ -0,0 +1,441 @@
+package com.steve.ai.ai;
+
+import com.steve.ai.SteveMod;
+import com.steve.ai.config.SteveConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+/**
+ * Picks which provider answers a planning request.
+ *
+ * Keeps a sliding window of latencies and outcomes per provider. A provider that fails several times
+ * in a row has its circuit opened and is skipped until a cooldown passes; then one trial request is let
+ * through. If the primary hasn't answered within its observed p95, the same request is hedged to the
+ * next available provider, and whichever returns a valid parsed result first wins; the other call is
+ * cancelled. Providers that fail outright are followed by the next one in the fallback order.
+ *
+ * Stats are server-wide; the router instance only holds the clients.
+ */
+public class ProviderRouter {
+    private static final int WINDOW_SIZE = 100;
+    private static final int MIN_SAMPLES_FOR_P95 = 5;
+
+    private static final Map<String, ProviderStats> stats = new ConcurrentHashMap<>();
+    private static final int HEDGE_FAN_OUT = 2;  // Calls one request can have in flight: primary and one hedge
+    private static final AtomicInteger threadCounter = new AtomicInteger(0);
+    private static volatile ThreadPoolExecutor requestExecutor;
+
+    private final Map<String, AIClient> clients = new LinkedHashMap<>();
+
+    public enum BreakerState {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    public static class ProviderStats {
+        private final String name;
+        private final long[] latenciesMs = new long[WINDOW_SIZE];
+        private final boolean[] outcomes = new boolean[WINDOW_SIZE];
+        private int next;
+        private int samples;
+        private long requests;
+        private long failures;
+        private long hedgesStarted;
+        private long hedgeWins;
+        private int consecutiveFailures;
+        private BreakerState state = BreakerState.CLOSED;
+        private long openUntilMs;
+        private boolean trialInFlight;
+
+        ProviderStats(String name) {
+            this.name = name;
+        }
+
+        private synchronized void record(long latencyMs, boolean success) {
+            latenciesMs[next] = latencyMs;
+            outcomes[next] = success;
+            next = (next + 1) % WINDOW_SIZE;
+            samples = Math.min(samples + 1, WINDOW_SIZE);
+            requests++;
+
+            if (success) {
+                consecutiveFailures = 0;
+                if (state != BreakerState.CLOSED) {
+                    SteveMod.LOGGER.info("Provider '{}' recovered, closing circuit", name);
+                }
+                state = BreakerState.CLOSED;
+            } else {
+                failures++;
+                consecutiveFailures++;
+                if (state == BreakerState.HALF_OPEN
+                        || consecutiveFailures >= SteveConfig.ROUTER_BREAKER_FAILURES.get()) {
+                    open();
+                }
+            }
+            trialInFlight = false;
+        }
+
+        private void open() {
+            state = BreakerState.OPEN;
+            openUntilMs = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(SteveConfig.ROUTER_BREAKER_COOLDOWN_SECONDS.get());
+            SteveMod.LOGGER.warn("Provider '{}' failed {} times in a row, circuit open for {}s",
+                name, consecutiveFailures, SteveConfig.ROUTER_BREAKER_COOLDOWN_SECONDS.get());
+        }
+
+        /**
+         * Whether a request may go to this provider now. Claims the single trial slot when half-open.
+         */
+        private synchronized boolean tryAcquire() {
+            if (state == BreakerState.OPEN) {
+                if (System.currentTimeMillis() < openUntilMs) {
+                    return false;
+                }
+                state = BreakerState.HALF_OPEN;
+            }
+            if (state == BreakerState.HALF_OPEN) {
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+            }
+            return true;
+        }
+
+        private synchronized boolean isAvailable() {
+            return state != BreakerState.OPEN || System.currentTimeMillis() >= openUntilMs;
+        }
+
+        private synchronized void releaseTrial() {
+            trialInFlight = false;
+        }
+
+        private synchronized void onHedgeStarted() {
+            hedgesStarted++;
+        }
+
+        private synchronized void onHedgeWon() {
+            hedgeWins++;
+        }
+
+        /**
+         * Latency percentile over successful requests in the window, or -1 without enough samples.
+         */
+        public synchronized long percentile(double p) {
+            long[] sorted = new long[samples];
+            int count = 0;
+            for (int i = 0; i < samples; i++) {
+                if (outcomes[i]) {
+                    sorted[count++] = latenciesMs[i];
+                }
+            }
+            if (count < MIN_SAMPLES_FOR_P95) {
+                return -1;
+            }
+            Arrays.sort(sorted, 0, count);
+            int index = (int) Math.ceil(p * count) - 1;
+            return sorted[Math.max(0, Math.min(count - 1, index))];
+        }
+
+        public synchronized double errorRate() {
+            if (samples == 0) {
+                return 0.0;
+            }
+            int failed = 0;
+            for (int i = 0; i < samples; i++) {
+                if (!outcomes[i]) failed++;
+            }
+            return (double) failed / samples;
+        }
+
+        public synchronized String describe() {
+            String circuit = state == BreakerState.OPEN
+                ? "OPEN " + Math.max(0, (openUntilMs - System.currentTimeMillis()) / 1000) + "s"
+                : state.name();
+            return String.format("%s [%s] requests=%d failed=%d errorRate(last %d)=%.0f%% p50=%s p95=%s p99=%s hedges=%d hedgeWins=%d",
+                name, circuit, requests, failures, samples, errorRate() * 100,
+                formatMs(percentile(0.50)), formatMs(percentile(0.95)), formatMs(percentile(0.99)),
+                hedgesStarted, hedgeWins);
+        }
+
+        private static String formatMs(long ms) {
+            return ms < 0 ? "-" : ms + "ms";
+        }
+    }
+
+    public ProviderRouter(List<AIClient> clients) {
+        for (AIClient client : clients) {
+            this.clients.put(client.getName(), client);
+        }
+        ensureThreads(clients.size() * HEDGE_FAN_OUT);
+    }
+
+    /**
+     * Router threads, providers x hedge fan-out of the largest router created so far. When all are
+     * busy a primary or fallback call runs on the planning worker that asked for it, and no hedge is
+     * started.
+     */
+    private static synchronized void ensureThreads(int threads) {
+        if (requestExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "Steve-LLM-" + threadCounter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+            executor.allowCoreThreadTimeOut(true);
+            requestExecutor = executor;
+        } else if (threads > requestExecutor.getMaximumPoolSize()) {
+            // Raise the maximum first, the core size may not exceed it
+            requestExecutor.setMaximumPoolSize(threads);
+            requestExecutor.setCorePoolSize(threads);
+        }
+    }
+
+    private static boolean hasIdleThread() {
+        return requestExecutor.getActiveCount() < requestExecutor.getMaximumPoolSize();
+    }
+
+    private static ProviderStats getStats(String provider) {
+        return stats.computeIfAbsent(provider, ProviderStats::new);
+    }
+
+    /**
+     * Record the outcome of a request made outside the router (e.g. a streamed one).
+     */
+    public static void record(String provider, long latencyNanos, boolean success) {
+        getStats(provider).record(TimeUnit.NANOSECONDS.toMillis(latencyNanos), success);
+    }
+
+    public static boolean isAvailable(String provider) {
+        return getStats(provider).isAvailable();
+    }
+
+    /**
+     * Send the request to {@code primary} (then the configured fallbacks) and return the first
+     * response that {@code parser} (given the provider and its response) turns into a non-null result,
+     * or null if every provider failed.
+     * Blocks the calling planning worker; the provider calls themselves run on router threads, or on
+     * the worker itself when every router thread is busy (hedges are skipped then).
+     */
+    public <T> T route(String primary, ChatRequest chat, BiFunction<String, String, T> parser) {
+        List<String> order = buildOrder(primary);
+
+        // Provider calls run on router threads, so carry the caller's scheduling priority over
+        RequestScheduler.Priority priority = RequestScheduler.getCurrentPriority();
+        BlockingQueue<Future<Attempt<T>>> finished = new LinkedBlockingQueue<>();
+        ExecutorCompletionService<Attempt<T>> completion = new ExecutorCompletionService<>(requestExecutor, finished);
+        Map<Future<Attempt<T>>, String> running = new LinkedHashMap<>();
+        int nextIndex = 0;
+        while (running.isEmpty() && nextIndex < order.size()) {
+            String provider = order.get(nextIndex++);
+            Future<Attempt<T>> started = start(provider, () -> call(provider, priority, chat, parser), false,
+                completion, finished);
+            if (started != null) {
+                running.put(started, provider);
+            }
+        }
+        if (running.isEmpty()) {
+            SteveMod.LOGGER.error("No AI providers available (all circuits open)");
+            return null;
+        }
+        String first = running.values().iterator().next();
+
+        boolean hedged = false;
+        try {
+            while (!running.isEmpty()) {
+                Future<Attempt<T>> done;
+                long hedgeDelayMs = hedgeDelayMs(first);
+                if (!hedged && nextIndex < order.size() && SteveConfig.ROUTER_HEDGING.get() && hasIdleThread()) {
+                    done = completion.poll(hedgeDelayMs, TimeUnit.MILLISECONDS);
+                    if (done == null) {
+                        // Primary is slower than usual: race it against the next provider
+                        String hedge = order.get(nextIndex);
+                        hedged = true;
+                        Future<Attempt<T>> started = start(hedge, () -> call(hedge, priority, chat, parser), true,
+                            completion, finished);
+                        if (started != null) {
+                            nextIndex++;
+                            getStats(first).onHedgeStarted();
+                            SteveMod.LOGGER.info("'{}' slower than {}ms, hedging request to '{}'", first, hedgeDelayMs, hedge);
+                            running.put(started, hedge);
+                        }
+                        continue;
+                    }
+                } else {
+                    done = completion.take();
+                }
+
+                String provider = running.remove(done);
+                Attempt<T> attempt = getAttempt(done);
+                if (attempt != null && attempt.result != null) {
+                    if (hedged && !provider.equals(first)) {
+                        getStats(first).onHedgeWon();
+                    }
+                    SteveMod.LOGGER.info("Plan from '{}' in {}ms", provider, attempt.latencyMs);
+                    return attempt.result;
+                }
+
+                // Failed outright: move on to the next provider unless a hedge is still racing
+                hedged = true;  // No hedging on top of fallbacks
+                while (running.isEmpty() && nextIndex < order.size()) {
+                    String fallback = order.get(nextIndex++);
+                    Future<Attempt<T>> started = start(fallback, () -> call(fallback, priority, chat, parser), false,
+                        completion, finished);
+                    if (started != null) {
+                        SteveMod.LOGGER.warn("'{}' failed, trying '{}' as fallback", provider, fallback);
+                        running.put(started, fallback);
+                    }
+                }
+            }
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            for (Future<Attempt<T>> loser : running.keySet()) {
+                loser.cancel(true);
+            }
+        }
+    }
+
+    /**
+     * Start {@code call} to {@code provider}, claiming its half-open trial slot only now that it is
+     * really attempted. Null if its circuit lets nothing through, or for a hedge when no router thread
+     * is free; a primary or fallback call with no free thread runs right here instead.
+     */
+    private static <T> Future<Attempt<T>> start(String provider, Callable<Attempt<T>> call, boolean hedge,
+                                                ExecutorCompletionService<Attempt<T>> completion,
+                                                BlockingQueue<Future<Attempt<T>>> finished) {
+        ProviderStats providerStats = getStats(provider);
+        if (!providerStats.tryAcquire()) {
+            SteveMod.LOGGER.debug("Skipping '{}', circuit open", provider);
+            return null;
+        }
+        try {
+            return completion.submit(call);
+        } catch (RejectedExecutionException e) {
+            if (hedge) {
+                providerStats.releaseTrial();
+                SteveMod.LOGGER.debug("No router thread free, not hedging to '{}'", provider);
+                return null;
+            }
+            FutureTask<Attempt<T>> inline = new FutureTask<>(call);
+            inline.run();
+            finished.add(inline);
+            return inline;
+        }
+    }
+
+    private static class Attempt<T> {
+        final T result;
+        final long latencyMs;
+
+        Attempt(T result, long latencyMs) {
+            this.result = result;
+            this.latencyMs = latencyMs;
+        }
+    }
+
+    private static <T> Attempt<T> getAttempt(Future<Attempt<T>> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            SteveMod.LOGGER.error("Provider request failed", e.getCause());
+            return null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private <T> Attempt<T> call(String provider, RequestScheduler.Priority priority, ChatRequest chat,
+                                BiFunction<String, String, T> parser) {
+        ProviderStats providerStats = getStats(provider);
+        long start = System.nanoTime();
+        T result = null;
+        try {
+            AIClient client = clients.get(provider);
+            String response = RequestScheduler.callWithPriority(priority, () -> client.sendRequest(chat));
+            if (Thread.currentThread().isInterrupted()) {
+                providerStats.releaseTrial();  // Cancelled loser, says nothing about the provider
+                return new Attempt<>(null, 0);
+            }
+            if (response != null) {
+                ReplayClient.record(provider, chat, response);
+                long parseStart = System.nanoTime();
+                result = parser.apply(provider, response);
+                LLMMetrics.recordResponse(provider, result != null, System.nanoTime() - parseStart);
+            }
+        } catch (RuntimeException e) {
+            SteveMod.LOGGER.error("Error calling provider '{}'", provider, e);
+        }
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        providerStats.record(latencyMs, result != null);
+        return new Attempt<>(result, latencyMs);
+    }
+
+    private long hedgeDelayMs(String provider) {
+        long p95 = getStats(provider).percentile(0.95);
+        if (p95 < 0) {
+            return SteveConfig.ROUTER_HEDGE_DEFAULT_MS.get();
+        }
+        return Math.max(p95, SteveConfig.ROUTER_HEDGE_MIN_MS.get());
+    }
+
+    /**
+     * Primary first, then configured fallbacks; providers with an open circuit are skipped. Trial
+     * slots are claimed later, by {@link #start}.
+     */
+    private List<String> buildOrder(String primary) {
+        List<String> candidates = new ArrayList<>();
+        if (clients.containsKey(primary)) {
+            candidates.add(primary);
+        } else {
+            SteveMod.LOGGER.warn("Unknown AI provider '{}', using Groq", primary);
+            candidates.add("groq");
+        }
+        for (String fallback : SteveConfig.ROUTER_FALLBACK_PROVIDERS.get().split(",")) {
+            String name = fallback.trim().toLowerCase(Locale.ROOT);
+            if (clients.containsKey(name) && !candidates.contains(name)) {
+                candidates.add(name);
+            }
+        }
+
+        List<String> order = new ArrayList<>();
+        for (String name : candidates) {
+            if (getStats(name).isAvailable()) {
+                order.add(name);
+            } else {
+                SteveMod.LOGGER.debug("Skipping '{}', circuit open", name);
+            }
+        }
+        return order;
+    }
+
+    public static List<String> describeProviders() {
+        List<String> lines = new ArrayList<>();
+        for (ProviderStats providerStats : stats.values()) {
+            lines.add(providerStats.describe());
+        }
+        return lines;
+    }
+}
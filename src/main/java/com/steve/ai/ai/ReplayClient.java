@@ -0,0 +1,258 @@
+package com.steve.ai.ai;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.steve.ai.SteveMod;
+import com.steve.ai.config.SteveConfig;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Offline provider ("replay") that answers from responses recorded in earlier sessions, for load
+ * testing the planning pipeline without network access or API costs.
+ *
+ * With replay.record on, every response a real provider returns is stored under a hash of its prompts.
+ * The corpus is a gzipped JSON-lines file, loaded on server start and written on server stop.
+ * Lookups try the exact prompts first, then just the request part of the user prompt (the command, or
+ * the failed task when replanning; conversation and situation differ between Steves), then rotate through the whole corpus so every request
+ * gets some recorded plan. Latency and failures are synthetic and come from a seeded random source.
+ */
+public class ReplayClient implements AIClient {
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private static final Map<String, Entry> byPrompt = new LinkedHashMap<>();
+    private static final Map<String, List<Entry>> byTail = new HashMap<>();
+    private static final List<Entry> all = new ArrayList<>();
+    private static SplittableRandom random;
+    private static int nextRotation;
+    private static boolean dirty;
+
+    private static final AtomicLong exactHits = new AtomicLong();
+    private static final AtomicLong tailHits = new AtomicLong();
+    private static final AtomicLong rotated = new AtomicLong();
+    private static final AtomicLong injectedErrors = new AtomicLong();
+    private static final AtomicLong recorded = new AtomicLong();
+
+    // Field names are kept short, there can be thousands of these
+    private static class Entry {
+        String k;  // Hash of system + user prompt
+        String t;  // Hash of the request part of the user prompt
+        String r;  // Raw response text
+    }
+
+    @Override
+    public String getName() {
+        return "replay";
+    }
+
+    @Override
+    public String sendRequest(ChatRequest chat) {
+        String response;
+        boolean fail;
+        long latencyMs;
+        synchronized (ReplayClient.class) {
+            response = lookup(chat);
+            SplittableRandom rng = getRandom();
+            fail = rng.nextDouble() < SteveConfig.REPLAY_ERROR_RATE.get();
+            int jitter = SteveConfig.REPLAY_LATENCY_JITTER_MS.get();
+            latencyMs = SteveConfig.REPLAY_LATENCY_MS.get() + (jitter > 0 ? rng.nextInt(-jitter, jitter + 1) : 0);
+        }
+
+        long start = System.nanoTime();
+        try {
+            Thread.sleep(Math.max(0, latencyMs));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        if (fail || response == null) {
+            if (fail) {
+                injectedErrors.incrementAndGet();
+            } else {
+                SteveMod.LOGGER.warn("Replay corpus is empty, record a session first (replay.record = true)");
+            }
+            LLMMetrics.recordRequest(getName(), fail ? 500 : 404, 0, elapsed, elapsed);
+            return null;
+        }
+        LLMMetrics.recordRequest(getName(), 200, 0, elapsed, elapsed);
+        return response;
+    }
+
+    private static String lookup(ChatRequest chat) {
+        Entry exact = byPrompt.get(promptKey(chat));
+        if (exact != null) {
+            exactHits.incrementAndGet();
+            return exact.r;
+        }
+
+        List<Entry> sameTail = byTail.get(tailKey(chat));
+        if (sameTail != null) {
+            tailHits.incrementAndGet();
+            return sameTail.get(getRandom().nextInt(sameTail.size())).r;
+        }
+
+        if (all.isEmpty()) {
+            return null;
+        }
+        rotated.incrementAndGet();
+        return all.get(nextRotation++ % all.size()).r;
+    }
+
+    private static SplittableRandom getRandom() {
+        if (random == null) {
+            random = new SplittableRandom(SteveConfig.REPLAY_SEED.get());
+        }
+        return random;
+    }
+
+    /**
+     * Store a real provider's response for later replay. No-op unless replay.record is on.
+     */
+    public static void record(String provider, ChatRequest chat, String response) {
+        if (!SteveConfig.REPLAY_RECORD.get() || provider.equals("replay") || response == null) {
+            return;
+        }
+
+        Entry entry = new Entry();
+        entry.k = promptKey(chat);
+        entry.t = tailKey(chat);
+        entry.r = response;
+        synchronized (ReplayClient.class) {
+            if (byPrompt.size() >= SteveConfig.REPLAY_MAX_ENTRIES.get() && !byPrompt.containsKey(entry.k)) {
+                return;
+            }
+            add(entry);
+            dirty = true;
+        }
+        recorded.incrementAndGet();
+    }
+
+    private static void add(Entry entry) {
+        Entry previous = byPrompt.put(entry.k, entry);
+        if (previous != null) {
+            all.remove(previous);
+            List<Entry> tail = byTail.get(previous.t);
+            if (tail != null) {
+                tail.remove(previous);
+            }
+        }
+        all.add(entry);
+        byTail.computeIfAbsent(entry.t, k -> new ArrayList<>()).add(entry);
+    }
+
+    private static String promptKey(ChatRequest chat) {
+        return hash(chat.getSystemPrompt() + "\u0000" + chat.getUserPrompt());
+    }
+
+    private static String tailKey(ChatRequest chat) {
+        return hash(PromptBuilder.requestPart(chat.getUserPrompt()));
+    }
+
+    private static String hash(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(32);
+            for (int i = 0; i < 16; i++) {
+                hex.append(String.format("%02x", digest[i]));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Path corpusFile(Path dataDir) {
+        return dataDir.resolve(SteveConfig.REPLAY_CORPUS.get());  // Absolute paths are used as is
+    }
+
+    /**
+     * Load the corpus (server start). Only needed when replaying or adding to an existing corpus.
+     */
+    public static synchronized void load(Path dataDir) {
+        boolean replaying = SteveConfig.AI_PROVIDER.get().equalsIgnoreCase("replay");
+        if (!replaying && !SteveConfig.REPLAY_RECORD.get()) {
+            return;
+        }
+
+        Path file = corpusFile(dataDir);
+        if (!Files.exists(file)) {
+            if (replaying) {
+                SteveMod.LOGGER.warn("Replay corpus {} not found", file);
+            }
+            return;
+        }
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            byPrompt.clear();
+            byTail.clear();
+            all.clear();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    Entry entry = GSON.fromJson(line, Entry.class);
+                    if (entry != null && entry.k != null && entry.r != null) {
+                        add(entry);
+                    }
+                }
+            }
+            random = null;  // Same seed, same sequence on every run
+            nextRotation = 0;
+            dirty = false;
+            SteveMod.LOGGER.info("Loaded {} recorded responses from {}", byPrompt.size(), file);
+        } catch (Exception e) {
+            SteveMod.LOGGER.warn("Could not read replay corpus {}", file, e);
+        }
+    }
+
+    /**
+     * Write the corpus if anything was recorded (server stop).
+     */
+    public static synchronized void save(Path dataDir) {
+        if (!dirty) {
+            return;
+        }
+
+        Path file = corpusFile(dataDir);
+        try {
+            Files.createDirectories(file.getParent());
+            try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8))) {
+                for (Entry entry : all) {
+                    writer.write(GSON.toJson(entry));
+                    writer.newLine();
+                }
+            }
+            dirty = false;
+            SteveMod.LOGGER.info("Saved {} recorded responses to {}", all.size(), file);
+        } catch (IOException e) {
+            SteveMod.LOGGER.warn("Could not write replay corpus {}", file, e);
+        }
+    }
+
+    public static synchronized String describe() {
+        return String.format("corpus=%d recorded=%d exact=%d sameCommand=%d rotated=%d injectedErrors=%d latency=%d±%dms errorRate=%.2f",
+            all.size(), recorded.get(), exactHits.get(), tailHits.get(), rotated.get(), injectedErrors.get(),
+            SteveConfig.REPLAY_LATENCY_MS.get(), SteveConfig.REPLAY_LATENCY_JITTER_MS.get(), SteveConfig.REPLAY_ERROR_RATE.get());
+    }
+}
@@ -0,0 +1,332 @@
+package com.steve.ai.ai;
+
+import com.steve.ai.SteveMod;
+import com.steve.ai.config.SteveConfig;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Central admission control for provider requests.
+ *
+ * Each provider has a token bucket refilled at its configured requests-per-minute, an optional
+ * concurrency cap (for local LM Studio servers) and a "blocked until" time set from Retry-After and
+ * x-ratelimit-* response headers, or from exponential backoff when a 429 carries no hint. Requests
+ * waiting for a provider are admitted in priority order: player commands before background replans,
+ * then first come first served.
+ *
+ * The priority is taken from the calling thread; see {@link #callWithPriority}.
+ */
+public class RequestScheduler {
+    private static final long ACQUIRE_TIMEOUT_MS = 60_000;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    private static final Pattern DURATION_PART = Pattern.compile("(\\d+(?:\\.\\d+)?)(ms|h|m|s)");
+
+    private static final Map<String, ProviderLimiter> limiters = new ConcurrentHashMap<>();
+    private static final ThreadLocal<Priority> currentPriority = ThreadLocal.withInitial(() -> Priority.PLAYER);
+
+    public enum Priority {
+        PLAYER,
+        BACKGROUND
+    }
+
+    private static class Waiter implements Comparable<Waiter> {
+        final Priority priority;
+        final long sequence;
+
+        Waiter(Priority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Waiter other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(sequence, other.sequence);
+        }
+    }
+
+    public static class ProviderLimiter {
+        private final String provider;
+        private final PriorityQueue<Waiter> waiters = new PriorityQueue<>();
+        private long nextSequence;
+        private double tokens = -1;  // Filled to capacity on first use
+        private long lastRefillNanos = System.nanoTime();
+        private int inFlight;
+        private long blockedUntilMs;
+        private int consecutiveThrottles;
+
+        private long granted;
+        private long delayed;
+        private long totalWaitMs;
+        private long throttled;
+        private long timeouts;
+        private int peakQueue;
+
+        ProviderLimiter(String provider) {
+            this.provider = provider;
+        }
+
+        private synchronized void acquire(Priority priority) throws InterruptedException, HttpTimeoutException {
+            Waiter waiter = new Waiter(priority, nextSequence++);
+            waiters.add(waiter);
+            peakQueue = Math.max(peakQueue, waiters.size());
+            long start = System.currentTimeMillis();
+            long deadline = start + ACQUIRE_TIMEOUT_MS;
+
+            try {
+                long waitMs;
+                while ((waitMs = waitTime(waiter)) > 0) {
+                    long remaining = deadline - System.currentTimeMillis();
+                    if (remaining <= 0) {
+                        timeouts++;
+                        throw new HttpTimeoutException("Timed out waiting for " + provider + " rate limit");
+                    }
+                    wait(Math.min(waitMs, remaining));
+                }
+
+                if (getRequestsPerMinute() > 0) {
+                    tokens -= 1;
+                }
+                inFlight++;
+                granted++;
+                long waited = System.currentTimeMillis() - start;
+                if (waited > 0) {
+                    delayed++;
+                    totalWaitMs += waited;
+                }
+            } finally {
+                waiters.remove(waiter);
+                notifyAll();
+            }
+        }
+
+        /**
+         * Milliseconds until {@code waiter} might be admitted, 0 if it can go now.
+         */
+        private long waitTime(Waiter waiter) {
+            if (waiters.peek() != waiter) {
+                return 1000;  // Woken by notifyAll when the head leaves
+            }
+
+            long now = System.currentTimeMillis();
+            if (now < blockedUntilMs) {
+                return blockedUntilMs - now;
+            }
+
+            int maxConcurrent = getMaxConcurrent();
+            if (maxConcurrent > 0 && inFlight >= maxConcurrent) {
+                return 1000;  // Woken by release()
+            }
+
+            int rpm = getRequestsPerMinute();
+            if (rpm > 0) {
+                refill(rpm);
+                if (tokens < 1) {
+                    double msPerToken = 60_000.0 / rpm;
+                    return Math.max(1, (long) Math.ceil((1 - tokens) * msPerToken));
+                }
+            }
+            return 0;
+        }
+
+        private void refill(int rpm) {
+            long now = System.nanoTime();
+            int capacity = SteveConfig.RATE_LIMIT_BURST.get();
+            if (tokens < 0) {
+                tokens = capacity;
+            } else {
+                double elapsedMinutes = (now - lastRefillNanos) / 60_000_000_000.0;
+                tokens = Math.min(capacity, tokens + elapsedMinutes * rpm);
+            }
+            lastRefillNanos = now;
+        }
+
+        private synchronized void release() {
+            inFlight--;
+            notifyAll();
+        }
+
+        private synchronized void onResponse(HttpResponse<?> response) {
+            int status = response.statusCode();
+            long now = System.currentTimeMillis();
+            long retryAfterMs = parseRetryAfter(response);
+
+            if (status == 429 || status == 503) {
+                throttled++;
+                consecutiveThrottles++;
+                tokens = Math.min(tokens, 0);
+                long delayMs = retryAfterMs >= 0
+                    ? retryAfterMs
+                    : Math.min(MAX_BACKOFF_MS, 1000L << Math.min(consecutiveThrottles - 1, 5));
+                blockedUntilMs = Math.max(blockedUntilMs, now + delayMs);
+                SteveMod.LOGGER.warn("{} throttled us ({}), holding requests for {}ms", provider, status, delayMs);
+                return;
+            }
+
+            if (status < 400) {
+                consecutiveThrottles = 0;
+            }
+
+            // OpenAI/Groq report the remaining quota; stop before we hit the wall
+            Optional<String> remaining = response.headers().firstValue("x-ratelimit-remaining-requests");
+            if (remaining.isPresent() && remaining.get().trim().equals("0")) {
+                long resetMs = response.headers().firstValue("x-ratelimit-reset-requests")
+                    .map(RequestScheduler::parseDurationMs)
+                    .orElse(-1L);
+                if (resetMs > 0) {
+                    blockedUntilMs = Math.max(blockedUntilMs, now + resetMs);
+                    SteveMod.LOGGER.info("{} request quota used up, next request in {}ms", provider, resetMs);
+                }
+            }
+        }
+
+        private int getRequestsPerMinute() {
+            return switch (provider) {
+                case "groq" -> SteveConfig.RATE_LIMIT_GROQ_RPM.get();
+                case "gemini" -> SteveConfig.RATE_LIMIT_GEMINI_RPM.get();
+                case "openai" -> SteveConfig.RATE_LIMIT_OPENAI_RPM.get();
+                case "lmstudio" -> SteveConfig.RATE_LIMIT_LMSTUDIO_RPM.get();
+                default -> 0;
+            };
+        }
+
+        private int getMaxConcurrent() {
+            return provider.equals("lmstudio") ? SteveConfig.LMSTUDIO_MAX_CONCURRENT.get() : 0;
+        }
+
+        public synchronized String describe() {
+            long now = System.currentTimeMillis();
+            String blocked = now < blockedUntilMs ? " blockedFor=" + (blockedUntilMs - now) + "ms" : "";
+            int rpm = getRequestsPerMinute();
+            return String.format("%s [%s] granted=%d delayed=%d avgWait=%dms throttled=%d timeouts=%d queued=%d peakQueue=%d inFlight=%d%s",
+                provider, rpm > 0 ? rpm + " rpm" : "unlimited", granted, delayed,
+                delayed > 0 ? totalWaitMs / delayed : 0, throttled, timeouts, waiters.size(), peakQueue, inFlight, blocked);
+        }
+    }
+
+    private static ProviderLimiter getLimiter(String provider) {
+        return limiters.computeIfAbsent(provider, ProviderLimiter::new);
+    }
+
+    /**
+     * Send a provider request once the provider's limits allow it. Rate-limit headers on the
+     * response are applied before {@code reader} sees it. Timings and the status go to {@link LLMMetrics}.
+     */
+    public static <T, R> R send(String provider, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler,
+                                HttpTransport.ResponseReader<T, R> reader) throws IOException, InterruptedException {
+        ProviderLimiter limiter = getLimiter(provider);
+        long start = System.nanoTime();
+        limiter.acquire(currentPriority.get());
+        long admitted = System.nanoTime();
+        long[] headersAt = {-1};
+        int[] status = {-1};
+        try {
+            HttpResponse.BodyHandler<T> timedHandler = info -> {
+                headersAt[0] = System.nanoTime();
+                return bodyHandler.apply(info);
+            };
+            return HttpTransport.send(request, timedHandler, response -> {
+                status[0] = response.statusCode();
+                limiter.onResponse(response);
+                return reader.read(response);
+            });
+        } finally {
+            limiter.release();
+            LLMMetrics.recordRequest(provider, status[0], admitted - start,
+                headersAt[0] >= 0 ? headersAt[0] - admitted : -1, System.nanoTime() - admitted);
+        }
+    }
+
+    public static <T> HttpResponse<T> send(String provider, HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException {
+        return send(provider, request, bodyHandler, response -> response);
+    }
+
+    public static Priority getCurrentPriority() {
+        return currentPriority.get();
+    }
+
+    /**
+     * Run {@code call} with requests made on this thread scheduled at {@code priority}.
+     */
+    public static <V> V callWithPriority(Priority priority, Supplier<V> call) {
+        Priority previous = currentPriority.get();
+        currentPriority.set(priority);
+        try {
+            return call.get();
+        } finally {
+            currentPriority.set(previous);
+        }
+    }
+
+    /**
+     * Retry-After (seconds or HTTP date) or OpenAI's retry-after-ms, in milliseconds; -1 if absent.
+     */
+    private static long parseRetryAfter(HttpResponse<?> response) {
+        Optional<String> retryAfterMs = response.headers().firstValue("retry-after-ms");
+        if (retryAfterMs.isPresent()) {
+            try {
+                return (long) Double.parseDouble(retryAfterMs.get().trim());
+            } catch (NumberFormatException ignored) {
+            }
+        }
+
+        Optional<String> retryAfter = response.headers().firstValue("retry-after");
+        if (retryAfter.isEmpty()) {
+            return -1;
+        }
+        String value = retryAfter.get().trim();
+        try {
+            return (long) (Double.parseDouble(value) * 1000);
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis());
+            } catch (Exception ignored) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * Parse durations like "1m30.5s", "2.5s" or "120ms" (x-ratelimit-reset-*); -1 if unparseable.
+     */
+    static long parseDurationMs(String value) {
+        Matcher matcher = DURATION_PART.matcher(value.trim());
+        double totalMs = 0;
+        boolean found = false;
+        while (matcher.find()) {
+            double amount = Double.parseDouble(matcher.group(1));
+            totalMs += switch (matcher.group(2)) {
+                case "h" -> amount * 3_600_000;
+                case "m" -> amount * 60_000;
+                case "s" -> amount * 1000;
+                default -> amount;
+            };
+            found = true;
+        }
+        return found ? (long) Math.ceil(totalMs) : -1;
+    }
+
+    public static List<String> describeLimiters() {
+        List<String> lines = new ArrayList<>();
+        for (ProviderLimiter limiter : limiters.values()) {
+            lines.add(limiter.describe());
+        }
+        return lines;
+    }
+}
@@ -1,49 +1,57 @@
 package com.steve.ai.ai;
 
-import com.google.gson.JsonArray;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.steve.ai.SteveMod;
 import com.steve.ai.action.Task;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Turns model output into tasks in a single pass.
+ *
+ * The JSON object is located by one scan that skips <think>/<reasoning> blocks and anything else
+ * before the first '{' (markdown fences, chatter), then read with a lenient {@link JsonReader} that
+ * builds {@link Task}s directly. Missing commas between values, a common model mistake, are inserted
+ * on the fly while the reader consumes the text. Anything after the top-level object is ignored.
+ */
 public class ResponseParser {
+    private static final String[][] SKIPPED_BLOCKS = {
+        {"<think>", "</think>"},
+        {"<reasoning>", "</reasoning>"}
+    };
     
     public static ParsedResponse parseAIResponse(String response) {
         if (response == null || response.isEmpty()) {
             return null;
         }
 
-        try {
-            String jsonString = extractJSON(response);
-            
-            JsonObject json = JsonParser.parseString(jsonString).getAsJsonObject();
-            
-            String reasoning = json.has("reasoning") ? json.get("reasoning").getAsString() : "";
-            String plan = json.has("plan") ? json.get("plan").getAsString() : "";
+        try (JsonReader reader = openJson(response)) {
+            if (reader == null) {
+                SteveMod.LOGGER.error("No JSON object in AI response: {}", response);
+                return null;
+            }
+
+            String reasoning = "";
+            String plan = "";
             List<Task> tasks = new ArrayList<>();
-            
-            if (json.has("tasks") && json.get("tasks").isJsonArray()) {
-                JsonArray tasksArray = json.getAsJsonArray("tasks");
-                
-                for (JsonElement taskElement : tasksArray) {
-                    if (taskElement.isJsonObject()) {
-                        JsonObject taskObj = taskElement.getAsJsonObject();
-                        Task task = parseTask(taskObj);
-                        if (task != null) {
-                            tasks.add(task);
-                        }
-                    }
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "reasoning" -> reasoning = readString(reader);
+                    case "plan" -> plan = readString(reader);
+                    case "tasks" -> tasks = readTasks(reader);
+                    default -> reader.skipValue();
                 }
             }
             
-            if (!reasoning.isEmpty()) {            }
-            
             return new ParsedResponse(reasoning, plan, tasks);
             
         } catch (Exception e) {
@@ -52,110 +60,373 @@ public class ResponseParser {
         }
     }
 
-    private static String extractJSON(String response) {
-        String cleaned = response.trim();
-        
-        // Удаляем <think> блоки (LM Studio может добавлять их)
-        cleaned = cleaned.replaceAll("(?s)<think>.*?</think>", "");
-        cleaned = cleaned.replaceAll("(?s)<think>.*?</think>", "");
-        cleaned = cleaned.replaceAll("(?s)<reasoning>.*?</reasoning>", "");
-        
-        // Ищем JSON объект в тексте (может быть обернут в markdown или текст)
-        int jsonStart = cleaned.indexOf("{");
-        if (jsonStart != -1) {
-            // Находим начало JSON
-            cleaned = cleaned.substring(jsonStart);
-            
-            // Находим конец JSON (последняя закрывающая скобка)
-            int depth = 0;
-            int jsonEnd = -1;
-            for (int i = 0; i < cleaned.length(); i++) {
-                char c = cleaned.charAt(i);
-                if (c == '{') depth++;
-                if (c == '}') {
-                    depth--;
-                    if (depth == 0) {
-                        jsonEnd = i + 1;
-                        break;
+    /**
+     * Parse a group-mode response into one plan per Steve, keyed by the names from {@code steveNames}.
+     * Steves the model left out are missing from the map. If the model ignored group mode and
+     * answered with a single task list, every Steve gets that list.
+     */
+    public static Map<String, ParsedResponse> parseGroupResponse(String response, List<String> steveNames) {
+        Map<String, ParsedResponse> plans = new HashMap<>();
+        if (response == null || response.isEmpty()) {
+            return plans;
+        }
+
+        try (JsonReader reader = openJson(response)) {
+            if (reader == null) {
+                SteveMod.LOGGER.error("No JSON object in group AI response: {}", response);
+                return plans;
+            }
+
+            String reasoning = "";
+            String teamPlan = "";
+            List<Task> sharedTasks = new ArrayList<>();
+            Map<String, ParsedResponse> assignments = null;  // Plan is null where the team plan applies
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                switch (reader.nextName()) {
+                    case "reasoning" -> reasoning = readString(reader);
+                    case "plan" -> teamPlan = readString(reader);
+                    case "tasks" -> sharedTasks = readTasks(reader);
+                    case "assignments" -> {
+                        if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                            assignments = readAssignments(reader);
+                        } else {
+                            reader.skipValue();
+                        }
                     }
+                    default -> reader.skipValue();
                 }
             }
-            
-            if (jsonEnd != -1) {
-                cleaned = cleaned.substring(0, jsonEnd);
-            }
-        }
-        
-        // Удаляем markdown code blocks
-        if (cleaned.startsWith("```json")) {
-            cleaned = cleaned.substring(7);
-        } else if (cleaned.startsWith("```")) {
-            cleaned = cleaned.substring(3);
-        }
-        
-        if (cleaned.endsWith("```")) {
-            cleaned = cleaned.substring(0, cleaned.length() - 3);
-        }
-        
-        cleaned = cleaned.trim();
-        
-        // Удаляем весь текст до первой открывающей скобки JSON
-        int firstBrace = cleaned.indexOf("{");
-        if (firstBrace > 0) {
-            cleaned = cleaned.substring(firstBrace);
-        }
-        
-        // Fix common JSON formatting issues
-        cleaned = cleaned.replaceAll("\\n\\s*", " ");
-        
-        // Fix missing commas between array/object elements (common AI mistake)
-        cleaned = cleaned.replaceAll("}\\s+\\{", "},{");
-        cleaned = cleaned.replaceAll("}\\s+\\[", "},[");
-        cleaned = cleaned.replaceAll("]\\s+\\{", "],{");
-        cleaned = cleaned.replaceAll("]\\s+\\[", "],[");
-        
-        return cleaned;
+
+            if (assignments == null) {
+                for (String name : steveNames) {
+                    plans.put(name, new ParsedResponse(reasoning, teamPlan, new ArrayList<>(sharedTasks)));
+                }
+                return plans;
+            }
+
+            for (Map.Entry<String, ParsedResponse> entry : assignments.entrySet()) {
+                String key = entry.getKey();
+                String name = steveNames.stream()
+                    .filter(n -> n.equalsIgnoreCase(key.trim()))
+                    .findFirst()
+                    .orElse(null);
+                if (name == null) {
+                    SteveMod.LOGGER.warn("Group plan has an assignment for unknown Steve '{}'", key);
+                    continue;
+                }
+
+                ParsedResponse assignment = entry.getValue();
+                String plan = assignment.getPlan() != null ? assignment.getPlan() : teamPlan;
+                plans.put(name, new ParsedResponse(reasoning, plan, assignment.getTasks()));
+            }
+        } catch (Exception e) {
+            SteveMod.LOGGER.error("Failed to parse group AI response: {}", response, e);
+        }
+        return plans;
     }
 
-    private static Task parseTask(JsonObject taskObj) {
-        if (!taskObj.has("action")) {
-            return null;
+    /**
+     * Parse a single task object, e.g. one cut out of a stream by {@link IncrementalPlanParser}.
+     * Returns null if it is not a task.
+     */
+    static Task parseTask(String json) throws IOException {
+        try (JsonReader reader = openJson(json)) {
+            return reader != null ? readTask(reader) : null;
+        }
+    }
+
+    /**
+     * Each assignment is {"plan": ..., "tasks": [...]} or just the task array.
+     */
+    private static Map<String, ParsedResponse> readAssignments(JsonReader reader) throws IOException {
+        Map<String, ParsedResponse> assignments = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            JsonToken token = reader.peek();
+            if (token == JsonToken.BEGIN_ARRAY) {
+                assignments.put(name, new ParsedResponse("", null, readTasks(reader)));
+            } else if (token == JsonToken.BEGIN_OBJECT) {
+                String plan = null;
+                List<Task> tasks = new ArrayList<>();
+                reader.beginObject();
+                while (reader.hasNext()) {
+                    switch (reader.nextName()) {
+                        case "plan" -> plan = readString(reader);
+                        case "tasks" -> tasks = readTasks(reader);
+                        default -> reader.skipValue();
+                    }
+                }
+                reader.endObject();
+                assignments.put(name, new ParsedResponse("", plan, tasks));
+            } else {
+                reader.skipValue();
+            }
+        }
+        reader.endObject();
+        return assignments;
+    }
+
+    private static List<Task> readTasks(JsonReader reader) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return tasks;
+        }
+
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                Task task = readTask(reader);
+                if (task != null) {
+                    tasks.add(task);
+                }
+            } else {
+                reader.skipValue();
+            }
         }
-        
-        String action = taskObj.get("action").getAsString();
+        reader.endArray();
+        return tasks;
+    }
+
+    private static Task readTask(JsonReader reader) throws IOException {
+        String action = null;
         Map<String, Object> parameters = new HashMap<>();
-        
-        if (taskObj.has("parameters") && taskObj.get("parameters").isJsonObject()) {
-            JsonObject paramsObj = taskObj.getAsJsonObject("parameters");
-            
-            for (String key : paramsObj.keySet()) {
-                JsonElement value = paramsObj.get(key);
-                
-                if (value.isJsonPrimitive()) {
-                    if (value.getAsJsonPrimitive().isNumber()) {
-                        parameters.put(key, value.getAsNumber());
-                    } else if (value.getAsJsonPrimitive().isBoolean()) {
-                        parameters.put(key, value.getAsBoolean());
+        String id = null;
+        List<String> dependsOn = new ArrayList<>();
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "action" -> action = readString(reader);
+                case "id" -> id = readString(reader);
+                case "dependsOn" -> readIds(reader, dependsOn);
+                case "parameters" -> {
+                    if (reader.peek() == JsonToken.BEGIN_OBJECT) {
+                        readParameters(reader, parameters);
                     } else {
-                        parameters.put(key, value.getAsString());
+                        reader.skipValue();
                     }
-                } else if (value.isJsonArray()) {
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+
+        if (action == null || action.isEmpty()) {
+            return null;
+        }
+        return new Task(action, parameters, id != null && !id.isBlank() ? id.trim() : null, dependsOn);
+    }
+
+    /**
+     * Task ids: an array of strings or numbers, or a single one.
+     */
+    private static void readIds(JsonReader reader, List<String> ids) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            String id = readString(reader);
+            if (!id.isBlank()) {
+                ids.add(id.trim());
+            }
+            return;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            String id = readString(reader);
+            if (!id.isBlank()) {
+                ids.add(id.trim());
+            }
+        }
+        reader.endArray();
+    }
+
+    /**
+     * Scalars and arrays of scalars; nested objects and nulls are dropped.
+     */
+    private static void readParameters(JsonReader reader, Map<String, Object> parameters) throws IOException {
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String key = reader.nextName();
+            switch (reader.peek()) {
+                case NUMBER -> parameters.put(key, readNumber(reader));
+                case BOOLEAN -> parameters.put(key, reader.nextBoolean());
+                case STRING -> parameters.put(key, reader.nextString());
+                case BEGIN_ARRAY -> {
                     List<Object> list = new ArrayList<>();
-                    for (JsonElement element : value.getAsJsonArray()) {
-                        if (element.isJsonPrimitive()) {
-                            if (element.getAsJsonPrimitive().isNumber()) {
-                                list.add(element.getAsNumber());
-                            } else {
-                                list.add(element.getAsString());
-                            }
+                    reader.beginArray();
+                    while (reader.hasNext()) {
+                        switch (reader.peek()) {
+                            case NUMBER -> list.add(readNumber(reader));
+                            case STRING -> list.add(reader.nextString());
+                            case BOOLEAN -> list.add(String.valueOf(reader.nextBoolean()));
+                            default -> reader.skipValue();
                         }
                     }
+                    reader.endArray();
                     parameters.put(key, list);
                 }
+                default -> reader.skipValue();
+            }
+        }
+        reader.endObject();
+    }
+
+    private static Number readNumber(JsonReader reader) throws IOException {
+        String literal = reader.nextString();
+        try {
+            return Integer.valueOf(literal);
+        } catch (NumberFormatException e) {
+            return Double.valueOf(literal);
+        }
+    }
+
+    private static String readString(JsonReader reader) throws IOException {
+        return switch (reader.peek()) {
+            case STRING, NUMBER -> reader.nextString();
+            case BOOLEAN -> String.valueOf(reader.nextBoolean());
+            default -> {
+                reader.skipValue();
+                yield "";
+            }
+        };
+    }
+
+    /**
+     * A lenient reader positioned at the response's JSON object, or null if there is none.
+     */
+    @SuppressWarnings("deprecation")  // setStrictness only exists in newer Gson than Minecraft ships
+    private static JsonReader openJson(String response) {
+        int start = findJsonStart(response);
+        if (start == -1) {
+            return null;
+        }
+        JsonReader reader = new JsonReader(new CommaRepairingReader(response, start));
+        reader.setLenient(true);
+        return reader;
+    }
+
+    /**
+     * Plain-text answer without <think>/<reasoning> blocks (reasoning models add them to any reply).
+     */
+    public static String stripThinking(String text) {
+        String result = text;
+        int strayClose = result.indexOf("</think>");
+        if (strayClose != -1 && result.lastIndexOf("<think>", strayClose) == -1) {
+            result = result.substring(strayClose + "</think>".length());
+        }
+        for (String[] block : SKIPPED_BLOCKS) {
+            int start;
+            while ((start = result.indexOf(block[0])) != -1) {
+                int end = result.indexOf(block[1], start + block[0].length());
+                result = end == -1 ? result.substring(0, start)
+                    : result.substring(0, start) + result.substring(end + block[1].length());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Index of the first '{' outside <think>/<reasoning> blocks, -1 if there is none.
+     */
+    private static int findJsonStart(String text) {
+        int pos = 0;
+        // Some chat templates open the think block in the prompt, so only the closing tag shows up
+        int strayClose = text.indexOf("</think>");
+        if (strayClose != -1 && text.lastIndexOf("<think>", strayClose) == -1) {
+            pos = strayClose + "</think>".length();
+        }
+
+        scan:
+        while (pos < text.length()) {
+            char c = text.charAt(pos);
+            if (c == '{') {
+                return pos;
+            }
+            if (c == '<') {
+                for (String[] block : SKIPPED_BLOCKS) {
+                    if (text.startsWith(block[0], pos)) {
+                        int end = text.indexOf(block[1], pos + block[0].length());
+                        if (end == -1) {
+                            return -1;  // Cut off while still thinking
+                        }
+                        pos = end + block[1].length();
+                        continue scan;
+                    }
+                }
+            }
+            pos++;
+        }
+        return -1;
+    }
+
+    /**
+     * Feeds the text to {@link JsonReader} from {@code start}, inserting a ',' wherever a value ends
+     * and the next one begins without a separator, e.g. between two task objects or after a number
+     * followed directly by the next key.
+     */
+    private static class CommaRepairingReader extends Reader {
+        private final String text;
+        private int pos;
+        private boolean inString;
+        private boolean escaped;
+        private boolean valueEnded;
+        private boolean spaceAfterValue;
+        private boolean pendingComma;
+
+        CommaRepairingReader(String text, int start) {
+            this.text = text;
+            this.pos = start;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            int count = 0;
+            while (count < length) {
+                if (pendingComma) {
+                    buffer[offset + count++] = ',';
+                    pendingComma = false;
+                    continue;
+                }
+                if (pos >= text.length()) {
+                    break;
+                }
+
+                char c = text.charAt(pos);
+                if (inString) {
+                    if (escaped) {
+                        escaped = false;
+                    } else if (c == '\\') {
+                        escaped = true;
+                    } else if (c == '"') {
+                        inString = false;
+                        valueEnded = true;
+                    }
+                } else if (Character.isWhitespace(c)) {
+                    spaceAfterValue = valueEnded;
+                } else {
+                    boolean startsValue = c == '"' || c == '{' || c == '['
+                        || (spaceAfterValue && (c == '-' || Character.isLetterOrDigit(c)));
+                    if (valueEnded && startsValue) {
+                        valueEnded = false;
+                        spaceAfterValue = false;
+                        pendingComma = true;
+                        continue;  // Emit the comma, then this character
+                    }
+                    inString = c == '"';
+                    valueEnded = c == '}' || c == ']' || c == '.' || Character.isLetterOrDigit(c);
+                    spaceAfterValue = false;
+                }
+                buffer[offset + count++] = c;
+                pos++;
             }
+            return count == 0 ? -1 : count;
+        }
+
+        @Override
+        public void close() {
         }
-        
-        return new Task(action, parameters);
     }
 
     public static class ParsedResponse {
@@ -180,6 +451,18 @@ public class ResponseParser {
         public List<Task> getTasks() {
             return tasks;
         }
+
+        /**
+         * Copy with its own task objects, for callers that hand the same plan to several executors.
+         */
+        public ParsedResponse copy() {
+            List<Task> copiedTasks = new ArrayList<>();
+            for (Task task : tasks) {
+                copiedTasks.add(new Task(task.getAction(), new LinkedHashMap<>(task.getParameters()),
+                    task.getId(), task.getDependsOn()));
+            }
+            return new ParsedResponse(reasoning, plan, copiedTasks);
+        }
     }
 }
 
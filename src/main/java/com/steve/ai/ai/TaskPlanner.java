@@ -2,43 +2,99 @@ package com.steve.ai.ai;
 
 import com.steve.ai.SteveMod;
 import com.steve.ai.action.Task;
+import com.steve.ai.agent.ConversationalMemory;
 import com.steve.ai.config.SteveConfig;
 import com.steve.ai.entity.SteveEntity;
 import com.steve.ai.memory.WorldKnowledge;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 public class TaskPlanner {
     private final OpenAIClient openAIClient;
     private final GeminiClient geminiClient;
     private final GroqClient groqClient;
     private final LMStudioClient lmStudioClient;
+    private final ReplayClient replayClient;
+    private final ProviderRouter router;
 
     public TaskPlanner() {
         this.openAIClient = new OpenAIClient();
         this.geminiClient = new GeminiClient();
         this.groqClient = new GroqClient();
         this.lmStudioClient = new LMStudioClient();
+        this.replayClient = new ReplayClient();
+        this.router = new ProviderRouter(List.of(groqClient, geminiClient, openAIClient, lmStudioClient, replayClient));
     }
 
-    public ResponseParser.ParsedResponse planTasks(SteveEntity steve, String command) {
+    /**
+     * Plans tasks for a command. Runs on a planning worker thread, so it must only read
+     * the world through the {@link WorldKnowledge} snapshot taken on the server thread.
+     */
+    public ResponseParser.ParsedResponse planTasks(SteveEntity steve, String command, WorldKnowledge worldKnowledge) {
+        return planTasks(steve, command, worldKnowledge, null);
+    }
+
+    /**
+     * Same as {@link #planTasks(SteveEntity, String, WorldKnowledge)}, but when streaming is enabled and the
+     * provider supports it, tasks and plan text are reported to {@code listener} while the response is
+     * still arriving. The returned response always holds the complete task list; tasks already reported
+     * come first, as the same objects and in the same order.
+     */
+    public ResponseParser.ParsedResponse planTasks(SteveEntity steve, String command, WorldKnowledge worldKnowledge,
+                                                   IncrementalPlanParser.Listener listener) {
+        String cacheKey = PlanCache.key(command, worldKnowledge);
+        return PlanCache.getOrPlan(cacheKey, () -> requestPlan(steve, command, worldKnowledge, listener));
+    }
+
+    private ResponseParser.ParsedResponse requestPlan(SteveEntity steve, String command, WorldKnowledge worldKnowledge,
+                                                      IncrementalPlanParser.Listener listener) {
         try {
-            String systemPrompt = PromptBuilder.buildSystemPrompt();
-            WorldKnowledge worldKnowledge = new WorldKnowledge(steve);
-            String userPrompt = PromptBuilder.buildUserPrompt(steve, command, worldKnowledge);
+            ChatRequest chat = new ChatRequest(
+                PromptBuilder.buildSystemPrompt(),
+                PromptBuilder.buildUserPrompt(steve, command, worldKnowledge),
+                PromptBuilder.maxOutputTokens(1),
+                PlanSchema.planSchema());
             
             String provider = SteveConfig.AI_PROVIDER.get().toLowerCase();
             SteveMod.LOGGER.info("Requesting AI plan for Steve '{}' using {}: {}", steve.getSteveName(), provider, command);
             
-            String response = getAIResponse(provider, systemPrompt, userPrompt);
+            if (listener != null && SteveConfig.STREAMING.get() && supportsStreaming(provider)
+                    && ProviderRouter.isAvailable(provider)) {
+                IncrementalPlanParser streamParser = new IncrementalPlanParser(validating(listener));
+                long start = System.nanoTime();
+                String streamed = getStreamingAIResponse(provider, chat, streamParser);
+                ResponseParser.ParsedResponse parsedResponse = null;
+                if (streamed != null) {
+                    ReplayClient.record(provider, chat, streamed);
+                    long parseStart = System.nanoTime();
+                    parsedResponse = validated(provider, ResponseParser.parseAIResponse(streamed));
+                    LLMMetrics.recordResponse(provider, parsedResponse != null, System.nanoTime() - parseStart);
+                }
+                ProviderRouter.record(provider, System.nanoTime() - start, parsedResponse != null);
+                
+                List<Task> streamedTasks = streamParser.getTasks().stream().filter(PlanSchema::isValid).toList();
+                if (parsedResponse != null) {
+                    parsedResponse = reconciled(parsedResponse, streamedTasks);
+                    SteveMod.LOGGER.info("Plan: {} ({} tasks)", parsedResponse.getPlan(), parsedResponse.getTasks().size());
+                    return parsedResponse;
+                }
+                if (!streamedTasks.isEmpty()) {
+                    // Stream broke after some tasks were handed out; keep what we have
+                    SteveMod.LOGGER.warn("Response stream ended early, keeping {} streamed tasks", streamedTasks.size());
+                    return new ResponseParser.ParsedResponse("", streamParser.getPlanText(), new ArrayList<>(streamedTasks));
+                }
+                SteveMod.LOGGER.warn("Streaming failed before any tasks arrived, routing a regular request");
+            }
             
-            if (response == null) {
-                SteveMod.LOGGER.error("Failed to get AI response for command: {}", command);
-                return null;
-            }            ResponseParser.ParsedResponse parsedResponse = ResponseParser.parseAIResponse(response);
+            ResponseParser.ParsedResponse parsedResponse = router.route(provider, chat,
+                (responder, response) -> validated(responder, ResponseParser.parseAIResponse(response)));
             
             if (parsedResponse == null) {
-                SteveMod.LOGGER.error("Failed to parse AI response");
+                SteveMod.LOGGER.error("Failed to get a valid AI plan for command: {}", command);
                 return null;
             }
             
@@ -52,62 +108,196 @@ public class TaskPlanner {
         }
     }
 
-    private String getAIResponse(String provider, String systemPrompt, String userPrompt) {
-        SteveMod.LOGGER.info("getAIResponse called with provider: '{}'", provider);
-        String response = switch (provider) {
-            case "groq" -> {
-                SteveMod.LOGGER.info("Using Groq client");
-                yield groqClient.sendRequest(systemPrompt, userPrompt);
+    /**
+     * Plans one command for several Steves with a single request. Returns a plan per Steve name;
+     * Steves the model gave nothing to are missing. Like {@link #planTasks}, runs on a planning worker
+     * and only reads the world through the snapshots, which are in the same order as {@code steveNames}.
+     */
+    public Map<String, ResponseParser.ParsedResponse> planGroupTasks(List<String> steveNames,
+                                                                    List<WorldKnowledge> worldKnowledge, String command) {
+        try {
+            ChatRequest chat = new ChatRequest(
+                PromptBuilder.buildGroupSystemPrompt(),
+                PromptBuilder.buildGroupUserPrompt(steveNames, worldKnowledge, command),
+                PromptBuilder.maxOutputTokens(steveNames.size()),
+                PlanSchema.groupSchema(steveNames));
+            
+            String provider = SteveConfig.AI_PROVIDER.get().toLowerCase();
+            SteveMod.LOGGER.info("Requesting group AI plan for {} using {}: {}", steveNames, provider, command);
+            
+            Map<String, ResponseParser.ParsedResponse> plans = router.route(provider, chat, (responder, response) -> {
+                Map<String, ResponseParser.ParsedResponse> parsed = new HashMap<>();
+                ResponseParser.parseGroupResponse(response, steveNames).forEach((name, plan) -> {
+                    ResponseParser.ParsedResponse valid = validated(responder, plan);
+                    if (valid != null) {
+                        parsed.put(name, valid);
+                    }
+                });
+                return parsed.isEmpty() ? null : parsed;
+            });
+            if (plans == null) {
+                SteveMod.LOGGER.error("Failed to get group AI plan for command: {}", command);
+                return Map.of();
             }
-            case "gemini" -> {
-                SteveMod.LOGGER.info("Using Gemini client");
-                yield geminiClient.sendRequest(systemPrompt, userPrompt);
+            
+            for (Map.Entry<String, ResponseParser.ParsedResponse> entry : plans.entrySet()) {
+                SteveMod.LOGGER.info("Group plan for '{}': {} ({} tasks)", 
+                    entry.getKey(), entry.getValue().getPlan(), entry.getValue().getTasks().size());
             }
-            case "openai" -> {
-                SteveMod.LOGGER.info("Using OpenAI client");
-                yield openAIClient.sendRequest(systemPrompt, userPrompt);
+            return plans;
+            
+        } catch (Exception e) {
+            SteveMod.LOGGER.error("Error planning group tasks", e);
+            return Map.of();
+        }
+    }
+
+    /**
+     * Ask for tasks replacing {@code failedTask}. Runs on a planning worker while Steve carries on with
+     * the rest of the queue, so the request goes out at background priority behind player commands.
+     * Returns null if no provider gave a usable answer; an empty task list means skip the failed task.
+     */
+    public ResponseParser.ParsedResponse replan(String steveName, Task failedTask, String error,
+                                                List<Task> remainingTasks, WorldKnowledge worldKnowledge) {
+        try {
+            ChatRequest chat = new ChatRequest(
+                PromptBuilder.buildSystemPrompt(),
+                PromptBuilder.buildReplanPrompt(failedTask, error, remainingTasks, worldKnowledge),
+                PromptBuilder.maxOutputTokens(1),
+                PlanSchema.planSchema());
+            
+            String provider = SteveConfig.AI_PROVIDER.get().toLowerCase();
+            SteveMod.LOGGER.info("Requesting replan for Steve '{}' using {}: {} failed ({})",
+                steveName, provider, failedTask.getAction(), error);
+            
+            ResponseParser.ParsedResponse parsedResponse = RequestScheduler.callWithPriority(
+                RequestScheduler.Priority.BACKGROUND,
+                () -> router.route(provider, chat, (responder, response) -> validated(responder, ResponseParser.parseAIResponse(response))));
+            
+            if (parsedResponse != null) {
+                SteveMod.LOGGER.info("Replan: {} ({} tasks)", parsedResponse.getPlan(), parsedResponse.getTasks().size());
             }
-            case "lmstudio" -> {
-                SteveMod.LOGGER.info("Using LM Studio client");
-                yield lmStudioClient.sendRequest(systemPrompt, userPrompt);
+            return parsedResponse;
+            
+        } catch (Exception e) {
+            SteveMod.LOGGER.error("Error replanning task", e);
+            return null;
+        }
+    }
+
+    /**
+     * {@link ConversationalMemory.Summarizer} backed by the configured provider, at background priority.
+     */
+    public String summarizeConversation(String previousSummary, List<ConversationalMemory.ChatMessage> turns, int maxTokens) {
+        ChatRequest chat = new ChatRequest(
+            PromptBuilder.buildSummarySystemPrompt(),
+            PromptBuilder.buildSummaryPrompt(previousSummary, turns),
+            Math.min(maxTokens * 2, SteveConfig.MAX_TOKENS.get()),
+            null);
+        String provider = SteveConfig.AI_PROVIDER.get().toLowerCase();
+        return RequestScheduler.callWithPriority(RequestScheduler.Priority.BACKGROUND,
+            () -> router.route(provider, chat, (responder, response) -> {
+                String summary = ResponseParser.stripThinking(response).trim();
+                return summary.isEmpty() ? null : summary;
+            }));
+    }
+
+    private static boolean supportsStreaming(String provider) {
+        return switch (provider) {
+            case "groq", "openai", "lmstudio" -> true;
+            default -> false;
+        };
+    }
+
+    private String getStreamingAIResponse(String provider, ChatRequest chat, IncrementalPlanParser parser) {
+        return switch (provider) {
+            case "groq" -> groqClient.sendStreamingRequest(chat, parser::feed);
+            case "openai" -> openAIClient.sendStreamingRequest(chat, parser::feed);
+            case "lmstudio" -> lmStudioClient.sendStreamingRequest(chat, parser::feed);
+            default -> null;
+        };
+    }
+
+    /**
+     * Drop tasks that fail {@link PlanSchema#isValid}. A plan whose tasks were all invalid counts
+     * as unparseable (null), so the router can try another provider.
+     */
+    private static ResponseParser.ParsedResponse validated(String provider, ResponseParser.ParsedResponse response) {
+        if (response == null) {
+            return null;
+        }
+
+        List<Task> valid = new ArrayList<>();
+        for (Task task : response.getTasks()) {
+            if (PlanSchema.isValid(task)) {
+                valid.add(task);
             }
-            default -> {
-                SteveMod.LOGGER.warn("Unknown AI provider '{}', using Groq", provider);
-                yield groqClient.sendRequest(systemPrompt, userPrompt);
+        }
+        int invalid = response.getTasks().size() - valid.size();
+        LLMMetrics.recordTasks(provider, response.getTasks().size(), invalid);
+
+        if (valid.isEmpty() && invalid > 0) {
+            return null;
+        }
+        return invalid > 0 ? new ResponseParser.ParsedResponse(response.getReasoning(), response.getPlan(), valid) : response;
+    }
+
+    /**
+     * The final plan, starting with exactly the tasks the stream already handed out. The lenient final
+     * parse may accept objects the stream parser skipped, so final tasks are matched to streamed ones
+     * by content rather than position; unmatched final tasks follow in their order. Retracted reasoning
+     * drafts are no longer in the stream parser's tasks, so they never reach {@code streamed}.
+     */
+    private static ResponseParser.ParsedResponse reconciled(ResponseParser.ParsedResponse response, List<Task> streamed) {
+        if (streamed.isEmpty()) {
+            return response;
+        }
+        List<Task> unmatched = new ArrayList<>(streamed);
+        List<Task> tasks = new ArrayList<>(streamed);
+        for (Task task : response.getTasks()) {
+            if (!removeSame(unmatched, task)) {
+                tasks.add(task);
             }
-        };
-        
-        if (response == null && !provider.equals("groq") && !provider.equals("lmstudio")) {
-            SteveMod.LOGGER.warn("{} failed, trying Groq as fallback", provider);
-            response = groqClient.sendRequest(systemPrompt, userPrompt);
         }
-        
-        return response;
+        if (!unmatched.isEmpty()) {
+            SteveMod.LOGGER.warn("{} streamed tasks are missing from the final plan, keeping them", unmatched.size());
+        }
+        return new ResponseParser.ParsedResponse(response.getReasoning(), response.getPlan(), tasks);
     }
 
-    public boolean validateTask(Task task) {
-        String action = task.getAction();
-        
-        return switch (action) {
-            case "pathfind" -> task.hasParameters("x", "y", "z");
-            case "mine" -> task.hasParameters("block", "quantity");
-            case "place" -> task.hasParameters("block", "x", "y", "z");
-            case "craft" -> task.hasParameters("item", "quantity");
-            case "attack" -> task.hasParameters("target");
-            case "follow" -> task.hasParameters("player");
-            case "gather" -> task.hasParameters("resource", "quantity");
-            case "build" -> task.hasParameters("structure", "blocks", "dimensions");
-            default -> {
-                SteveMod.LOGGER.warn("Unknown action type: {}", action);
-                yield false;
+    private static boolean removeSame(List<Task> tasks, Task task) {
+        for (int i = 0; i < tasks.size(); i++) {
+            Task other = tasks.get(i);
+            if (other.getAction().equals(task.getAction()) && other.getParameters().equals(task.getParameters())
+                    && Objects.equals(other.getId(), task.getId()) && other.getDependsOn().equals(task.getDependsOn())) {
+                tasks.remove(i);
+                return true;
             }
-        };
+        }
+        return false;
     }
 
-    public List<Task> validateAndFilterTasks(List<Task> tasks) {
-        return tasks.stream()
-            .filter(this::validateTask)
-            .toList();
+    /**
+     * Only hand valid tasks to {@code listener}, in the same order {@link #validated} keeps them.
+     */
+    private static IncrementalPlanParser.Listener validating(IncrementalPlanParser.Listener listener) {
+        return new IncrementalPlanParser.Listener() {
+            @Override
+            public void onPlanText(String planText, boolean complete) {
+                listener.onPlanText(planText, complete);
+            }
+
+            @Override
+            public void onTask(Task task) {
+                if (PlanSchema.isValid(task)) {
+                    listener.onTask(task);
+                }
+            }
+
+            @Override
+            public void onTasksRetracted(List<Task> drafts) {
+                listener.onTasksRetracted(drafts.stream().filter(PlanSchema::isValid).toList());
+            }
+        };
     }
 }
-
@@ -0,0 +1,114 @@
+package com.steve.ai.ai;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.steve.ai.SteveMod;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Input/output token counts per provider, taken from the usage block providers return with each
+ * response. Cached prompt tokens show how much of the prompt prefix the provider reused.
+ */
+public class TokenUsage {
+    private static final Map<String, ProviderUsage> usage = new ConcurrentHashMap<>();
+
+    public static class ProviderUsage {
+        private final String provider;
+        private long requests;
+        private long unreported;
+        private long inputTokens;
+        private long cachedInputTokens;
+        private long outputTokens;
+        private long maxTokensRequested;
+        private long lastInput;
+        private long lastCached;
+        private long lastOutput;
+
+        ProviderUsage(String provider) {
+            this.provider = provider;
+        }
+
+        private synchronized void record(long input, long cached, long output, int maxTokens) {
+            requests++;
+            inputTokens += input;
+            cachedInputTokens += cached;
+            outputTokens += output;
+            maxTokensRequested += maxTokens;
+            lastInput = input;
+            lastCached = cached;
+            lastOutput = output;
+        }
+
+        private synchronized void recordUnreported() {
+            unreported++;
+        }
+
+        public synchronized String describe() {
+            if (requests == 0) {
+                return String.format("%s: no usage reported (%d responses without usage)", provider, unreported);
+            }
+            double cachedPercent = inputTokens > 0 ? 100.0 * cachedInputTokens / inputTokens : 0.0;
+            return String.format("%s: requests=%d in=%d (avg %d, cached %.1f%%) out=%d (avg %d, avg limit %d) last=%d/%d/%d noUsage=%d",
+                provider, requests, inputTokens, inputTokens / requests, cachedPercent,
+                outputTokens, outputTokens / requests, maxTokensRequested / requests,
+                lastInput, lastCached, lastOutput, unreported);
+        }
+    }
+
+    private static ProviderUsage getUsage(String provider) {
+        return usage.computeIfAbsent(provider, ProviderUsage::new);
+    }
+
+    public static void record(String provider, long input, long cached, long output, int maxTokens) {
+        getUsage(provider).record(input, cached, output, maxTokens);
+        LLMMetrics.recordTokens(provider, input, output);
+        SteveMod.LOGGER.info("{} tokens: in={} (cached {}) out={} limit={}", provider, input, cached, output, maxTokens);
+    }
+
+    /**
+     * Record an OpenAI-style usage object (OpenAI, Groq, LM Studio). Counts the response as
+     * unreported when {@code usageElement} is missing.
+     */
+    public static void recordChatCompletion(String provider, JsonElement usageElement, int maxTokens) {
+        if (usageElement == null || !usageElement.isJsonObject()) {
+            getUsage(provider).recordUnreported();
+            return;
+        }
+        JsonObject usageObj = usageElement.getAsJsonObject();
+        long cached = 0;
+        if (usageObj.has("prompt_tokens_details") && usageObj.get("prompt_tokens_details").isJsonObject()) {
+            cached = getLong(usageObj.getAsJsonObject("prompt_tokens_details"), "cached_tokens");
+        }
+        record(provider, getLong(usageObj, "prompt_tokens"), cached, getLong(usageObj, "completion_tokens"), maxTokens);
+    }
+
+    /**
+     * Record Gemini's usageMetadata; thinking tokens count as output.
+     */
+    public static void recordGemini(String provider, JsonElement metadataElement, int maxTokens) {
+        if (metadataElement == null || !metadataElement.isJsonObject()) {
+            getUsage(provider).recordUnreported();
+            return;
+        }
+        JsonObject metadata = metadataElement.getAsJsonObject();
+        long output = getLong(metadata, "candidatesTokenCount") + getLong(metadata, "thoughtsTokenCount");
+        record(provider, getLong(metadata, "promptTokenCount"), getLong(metadata, "cachedContentTokenCount"), output, maxTokens);
+    }
+
+    private static long getLong(JsonObject obj, String key) {
+        JsonElement value = obj.get(key);
+        return value != null && value.isJsonPrimitive() ? value.getAsLong() : 0;
+    }
+
+    public static List<String> describeProviders() {
+        List<String> lines = new ArrayList<>();
+        for (ProviderUsage providerUsage : usage.values()) {
+            lines.add(providerUsage.describe());
+        }
+        return lines;
+    }
+}
@@ -50,6 +50,7 @@ public class SteveGUI {
         String text;
         int bubbleColor;
         boolean isUser; // true if message from user
+        boolean streaming; // still being updated while the plan is generated
         
         ChatMessage(String sender, String text, int bubbleColor, boolean isUser) {
             this.sender = sender;
@@ -121,6 +122,31 @@ public class SteveGUI {
         addMessage(steveName, text, STEVE_BUBBLE_COLOR, false);
     }
 
+    /**
+     * Show a Steve message that is still being generated. Repeated calls for the same Steve
+     * update the last message in place until {@code complete} is true. Safe to call from any thread.
+     */
+    public static void updateStreamingMessage(String steveName, String text, boolean complete) {
+        Minecraft.getInstance().execute(() -> {
+            ChatMessage last = null;
+            for (int i = messages.size() - 1; i >= 0; i--) {
+                ChatMessage msg = messages.get(i);
+                if (msg.streaming && msg.sender.equals(steveName)) {
+                    last = msg;
+                    break;
+                }
+            }
+
+            if (last == null) {
+                addSteveMessage(steveName, text);
+                last = messages.get(messages.size() - 1);
+            } else {
+                last.text = text;
+            }
+            last.streaming = !complete;
+        });
+    }
+
     /**
      * Add a system message to the history
      */
@@ -410,10 +436,13 @@ public class SteveGUI {
             }
         }
 
-        // Send command to all targeted Steves
+        // Several Steves are planned together in one AI request
         if (mc.player != null) {
-            for (String steveName : targetSteves) {
-                mc.player.connection.sendCommand("steve tell " + steveName + " " + command);
+            if (targetSteves.size() > 1) {
+                // Quoted: commas aren't allowed in unquoted Brigadier strings
+                mc.player.connection.sendCommand("steve tellmany \"" + String.join(",", targetSteves) + "\" " + command);
+            } else {
+                mc.player.connection.sendCommand("steve tell " + targetSteves.get(0) + " " + command);
             }
             
             if (targetSteves.size() > 1) {
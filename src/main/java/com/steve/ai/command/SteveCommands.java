@@ -1,19 +1,37 @@
 package com.steve.ai.command;
 
 import com.mojang.brigadier.CommandDispatcher;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.context.CommandContext;
 import com.steve.ai.SteveMod;
+import com.steve.ai.action.ActionExecutor;
+import com.steve.ai.action.TickBudget;
+import com.steve.ai.ai.HttpTransport;
+import com.steve.ai.ai.IntentCompiler;
+import com.steve.ai.ai.LLMMetrics;
 import com.steve.ai.ai.LMStudioClient;
+import com.steve.ai.ai.PlanCache;
+import com.steve.ai.ai.ProviderRouter;
+import com.steve.ai.ai.ReplayClient;
+import com.steve.ai.ai.RequestScheduler;
+import com.steve.ai.ai.TokenUsage;
 import com.steve.ai.config.SteveConfig;
 import com.steve.ai.entity.SteveEntity;
 import com.steve.ai.entity.SteveManager;
+import com.steve.ai.journal.EventJournal;
+import com.steve.ai.journal.JournalReader;
 import net.minecraft.commands.CommandSourceStack;
 import net.minecraft.commands.Commands;
 import net.minecraft.network.chat.Component;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.phys.Vec3;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 public class SteveCommands {
     
     public static void register(CommandDispatcher<CommandSourceStack> dispatcher) {
@@ -33,8 +51,42 @@ public class SteveCommands {
                 .then(Commands.argument("name", StringArgumentType.string())
                     .then(Commands.argument("command", StringArgumentType.greedyString())
                         .executes(SteveCommands::tellSteve))))
+            .then(Commands.literal("tellmany")
+                .then(Commands.argument("names", StringArgumentType.string())
+                    .then(Commands.argument("command", StringArgumentType.greedyString())
+                        .executes(SteveCommands::tellManySteves))))
             .then(Commands.literal("test-lmstudio")
                 .executes(SteveCommands::testLMStudio))
+            .then(Commands.literal("stats")
+                .then(Commands.literal("http")
+                    .executes(SteveCommands::showHttpStats))
+                .then(Commands.literal("router")
+                    .executes(SteveCommands::showRouterStats))
+                .then(Commands.literal("ratelimit")
+                    .executes(SteveCommands::showRateLimitStats))
+                .then(Commands.literal("tokens")
+                    .executes(SteveCommands::showTokenStats))
+                .then(Commands.literal("intents")
+                    .executes(SteveCommands::showIntentStats))
+                .then(Commands.literal("llm")
+                    .executes(SteveCommands::showLLMStats))
+                .then(Commands.literal("replay")
+                    .executes(SteveCommands::showReplayStats))
+                .then(Commands.literal("ticks")
+                    .executes(SteveCommands::showTickStats))
+                .then(Commands.literal("jobs")
+                    .executes(SteveCommands::showJobStats))
+                .then(Commands.literal("cache")
+                    .executes(SteveCommands::showCacheStats)
+                    .then(Commands.literal("clear")
+                        .executes(SteveCommands::clearPlanCache))))
+            .then(Commands.literal("journal")
+                .executes(SteveCommands::summarizeJournal)
+                .then(Commands.literal("replay")
+                    .then(Commands.argument("count", IntegerArgumentType.integer(1, 200))
+                        .executes(context -> replayJournal(context, null))
+                        .then(Commands.argument("name", StringArgumentType.string())
+                            .executes(context -> replayJournal(context, StringArgumentType.getString(context, "name")))))))
         );
     }
 
@@ -126,9 +178,8 @@ public class SteveCommands {
             // Disabled command feedback message
             // source.sendSuccess(() -> Component.literal("Instructing " + name + ": " + command), true);
             
-            new Thread(() -> {
-                steve.getActionExecutor().processNaturalLanguageCommand(command);
-            }).start();
+            // Commands run on the server thread; planning itself is handed off to PlanningExecutor
+            steve.getActionExecutor().processNaturalLanguageCommand(command);
             
             return 1;
         } else {
@@ -137,6 +188,197 @@ public class SteveCommands {
         }
     }
 
+    /**
+     * One command for several Steves, planned in a single AI request.
+     * {@code names} is a comma-separated list, or "all".
+     */
+    private static int tellManySteves(CommandContext<CommandSourceStack> context) {
+        String names = StringArgumentType.getString(context, "names");
+        String command = StringArgumentType.getString(context, "command");
+        CommandSourceStack source = context.getSource();
+        
+        SteveManager manager = SteveMod.getSteveManager();
+        List<SteveEntity> steves = new ArrayList<>();
+        if (names.equalsIgnoreCase("all")) {
+            steves.addAll(manager.getAllSteves());
+        } else {
+            for (String name : names.split(",")) {
+                SteveEntity steve = manager.getSteve(name.trim());
+                if (steve == null) {
+                    source.sendFailure(Component.literal("Steve not found: " + name.trim()));
+                    return 0;
+                }
+                if (!steves.contains(steve)) {
+                    steves.add(steve);
+                }
+            }
+        }
+        
+        if (steves.isEmpty()) {
+            source.sendFailure(Component.literal("No active Steves"));
+            return 0;
+        }
+        
+        ActionExecutor.processGroupCommand(steves, command);
+        return 1;
+    }
+
+    private static int showHttpStats(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        
+        var endpoints = HttpTransport.describeEndpoints();
+        if (endpoints.isEmpty()) {
+            source.sendSuccess(() -> Component.literal("No AI requests sent yet"), false);
+        } else {
+            source.sendSuccess(() -> Component.literal("AI endpoints (" + endpoints.size() + "):"), false);
+            for (String line : endpoints) {
+                source.sendSuccess(() -> Component.literal(line), false);
+            }
+        }
+        return 1;
+    }
+
+    private static int showRouterStats(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        
+        var providers = ProviderRouter.describeProviders();
+        if (providers.isEmpty()) {
+            source.sendSuccess(() -> Component.literal("No AI requests routed yet"), false);
+        } else {
+            source.sendSuccess(() -> Component.literal("AI providers (primary: " + SteveConfig.AI_PROVIDER.get()
+                + ", fallbacks: " + SteveConfig.ROUTER_FALLBACK_PROVIDERS.get() + "):"), false);
+            for (String line : providers) {
+                source.sendSuccess(() -> Component.literal(line), false);
+            }
+        }
+        return 1;
+    }
+
+    private static int showRateLimitStats(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        
+        var limiters = RequestScheduler.describeLimiters();
+        if (limiters.isEmpty()) {
+            source.sendSuccess(() -> Component.literal("No AI requests scheduled yet"), false);
+        } else {
+            source.sendSuccess(() -> Component.literal("AI rate limits (" + limiters.size() + "):"), false);
+            for (String line : limiters) {
+                source.sendSuccess(() -> Component.literal(line), false);
+            }
+        }
+        return 1;
+    }
+
+    private static int showTokenStats(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        
+        var providers = TokenUsage.describeProviders();
+        if (providers.isEmpty()) {
+            source.sendSuccess(() -> Component.literal("No AI requests yet"), false);
+        } else {
+            source.sendSuccess(() -> Component.literal("AI token usage (last = in/cached/out):"), false);
+            for (String line : providers) {
+                source.sendSuccess(() -> Component.literal(line), false);
+            }
+        }
+        return 1;
+    }
+
+    private static int showLLMStats(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        
+        var providers = LLMMetrics.describeProviders();
+        if (providers.isEmpty()) {
+            source.sendSuccess(() -> Component.literal("No AI requests yet"), false);
+        } else {
+            source.sendSuccess(() -> Component.literal("LLM metrics (times in ms, see steve_llm_metrics.json for histograms):"), false);
+            for (String line : providers) {
+                source.sendSuccess(() -> Component.literal(line), false);
+            }
+        }
+        return 1;
+    }
+
+    private static int showReplayStats(CommandContext<CommandSourceStack> context) {
+        String stats = ReplayClient.describe();
+        context.getSource().sendSuccess(() -> Component.literal("Replay: " + stats), false);
+        return 1;
+    }
+
+    private static int showTickStats(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        
+        var steves = TickBudget.describe(10);
+        if (steves.isEmpty()) {
+            source.sendSuccess(() -> Component.literal("No Steve ticks recorded yet"), false);
+        } else {
+            source.sendSuccess(() -> Component.literal("Tick time per Steve (budget " + SteveConfig.TICK_BUDGET_MICROS.get() + "µs), slowest first:"), false);
+            for (String line : steves) {
+                source.sendSuccess(() -> Component.literal(line), false);
+            }
+        }
+        return 1;
+    }
+
+    private static int showJobStats(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        
+        var jobs = SteveMod.getSteveManager().getJobPool().describe();
+        if (jobs.isEmpty()) {
+            source.sendSuccess(() -> Component.literal("No shared jobs"), false);
+        } else {
+            source.sendSuccess(() -> Component.literal("Shared jobs:"), false);
+            for (String line : jobs) {
+                source.sendSuccess(() -> Component.literal(line), false);
+            }
+        }
+        return 1;
+    }
+
+    private static int summarizeJournal(CommandContext<CommandSourceStack> context) {
+        context.getSource().sendSuccess(() -> Component.literal("Journal: " + EventJournal.describe()), false);
+        return readJournal(context.getSource(), () -> JournalReader.summarize(EventJournal.getFile()));
+    }
+
+    private static int replayJournal(CommandContext<CommandSourceStack> context, String name) {
+        int count = IntegerArgumentType.getInteger(context, "count");
+        return readJournal(context.getSource(), () -> JournalReader.replay(EventJournal.getFile(), count, name));
+    }
+
+    /**
+     * Read the journal file off the server thread; it can be tens of megabytes.
+     */
+    private static int readJournal(CommandSourceStack source, Supplier<List<String>> reader) {
+        if (EventJournal.getFile() == null) {
+            source.sendFailure(Component.literal("The event journal is off (journal.enabled)"));
+            return 0;
+        }
+        CompletableFuture.supplyAsync(reader).thenAccept(lines -> source.getServer().execute(() -> {
+            for (String line : lines) {
+                source.sendSuccess(() -> Component.literal(line), false);
+            }
+        }));
+        return 1;
+    }
+
+    private static int showIntentStats(CommandContext<CommandSourceStack> context) {
+        String stats = IntentCompiler.describe();
+        context.getSource().sendSuccess(() -> Component.literal("Local commands: " + stats), false);
+        return 1;
+    }
+
+    private static int showCacheStats(CommandContext<CommandSourceStack> context) {
+        String stats = PlanCache.describe();
+        context.getSource().sendSuccess(() -> Component.literal("Plan cache: " + stats), false);
+        return 1;
+    }
+
+    private static int clearPlanCache(CommandContext<CommandSourceStack> context) {
+        PlanCache.clear();
+        context.getSource().sendSuccess(() -> Component.literal("Plan cache cleared"), true);
+        return 1;
+    }
+
     private static int testLMStudio(CommandContext<CommandSourceStack> context) {
         CommandSourceStack source = context.getSource();
         
@@ -2,19 +2,80 @@ package com.steve.ai.config;
 
 import net.minecraftforge.common.ForgeConfigSpec;
 
+import java.util.List;
+
 public class SteveConfig {
     public static final ForgeConfigSpec SPEC;
     public static final ForgeConfigSpec.ConfigValue<String> AI_PROVIDER;
+    public static final ForgeConfigSpec.BooleanValue STREAMING;
     public static final ForgeConfigSpec.ConfigValue<String> OPENAI_API_KEY;
     public static final ForgeConfigSpec.ConfigValue<String> OPENAI_MODEL;
     public static final ForgeConfigSpec.IntValue MAX_TOKENS;
     public static final ForgeConfigSpec.DoubleValue TEMPERATURE;
     public static final ForgeConfigSpec.IntValue ACTION_TICK_DELAY;
+    public static final ForgeConfigSpec.BooleanValue PREPARE_AHEAD;
     public static final ForgeConfigSpec.BooleanValue ENABLE_CHAT_RESPONSES;
     public static final ForgeConfigSpec.IntValue MAX_ACTIVE_STEVES;
     public static final ForgeConfigSpec.ConfigValue<String> LMSTUDIO_API_URL;
     public static final ForgeConfigSpec.ConfigValue<String> LMSTUDIO_MODEL;
     public static final ForgeConfigSpec.ConfigValue<String> LMSTUDIO_API_KEY;
+    public static final ForgeConfigSpec.IntValue PLANNING_THREADS;
+    public static final ForgeConfigSpec.IntValue PLANNING_QUEUE_SIZE;
+    public static final ForgeConfigSpec.IntValue PLANNING_BACKGROUND_THREADS;
+    public static final ForgeConfigSpec.IntValue HTTP_MAX_CONNECTIONS_PER_ENDPOINT;
+    public static final ForgeConfigSpec.BooleanValue PLAN_CACHE_ENABLED;
+    public static final ForgeConfigSpec.IntValue PLAN_CACHE_MAX_ENTRIES;
+    public static final ForgeConfigSpec.IntValue PLAN_CACHE_TTL_MINUTES;
+    public static final ForgeConfigSpec.BooleanValue PLAN_CACHE_PERSIST;
+    public static final ForgeConfigSpec.ConfigValue<String> ROUTER_FALLBACK_PROVIDERS;
+    public static final ForgeConfigSpec.BooleanValue ROUTER_HEDGING;
+    public static final ForgeConfigSpec.IntValue ROUTER_HEDGE_DEFAULT_MS;
+    public static final ForgeConfigSpec.IntValue ROUTER_HEDGE_MIN_MS;
+    public static final ForgeConfigSpec.IntValue ROUTER_BREAKER_FAILURES;
+    public static final ForgeConfigSpec.IntValue ROUTER_BREAKER_COOLDOWN_SECONDS;
+    public static final ForgeConfigSpec.IntValue RATE_LIMIT_GROQ_RPM;
+    public static final ForgeConfigSpec.IntValue RATE_LIMIT_GEMINI_RPM;
+    public static final ForgeConfigSpec.IntValue RATE_LIMIT_OPENAI_RPM;
+    public static final ForgeConfigSpec.IntValue RATE_LIMIT_LMSTUDIO_RPM;
+    public static final ForgeConfigSpec.IntValue RATE_LIMIT_BURST;
+    public static final ForgeConfigSpec.IntValue LMSTUDIO_MAX_CONCURRENT;
+    public static final ForgeConfigSpec.IntValue PROMPT_PLAN_TOKENS;
+    public static final ForgeConfigSpec.IntValue PROMPT_REASONING_TOKENS;
+    public static final ForgeConfigSpec.IntValue PROMPT_LOCAL_REASONING_TOKENS;
+    public static final ForgeConfigSpec.IntValue PROMPT_CONTEXT_TOKENS;
+    public static final ForgeConfigSpec.BooleanValue INTENTS_ENABLED;
+    public static final ForgeConfigSpec.ConfigValue<String> STRUCTURED_OUTPUT_OPENAI;
+    public static final ForgeConfigSpec.ConfigValue<String> STRUCTURED_OUTPUT_GROQ;
+    public static final ForgeConfigSpec.ConfigValue<String> STRUCTURED_OUTPUT_LMSTUDIO;
+    public static final ForgeConfigSpec.BooleanValue REPLAN_ENABLED;
+    public static final ForgeConfigSpec.IntValue REPLAN_MAX_ATTEMPTS;
+    public static final ForgeConfigSpec.IntValue METRICS_FLUSH_SECONDS;
+    public static final ForgeConfigSpec.BooleanValue REPLAY_RECORD;
+    public static final ForgeConfigSpec.ConfigValue<String> REPLAY_CORPUS;
+    public static final ForgeConfigSpec.IntValue REPLAY_MAX_ENTRIES;
+    public static final ForgeConfigSpec.IntValue REPLAY_LATENCY_MS;
+    public static final ForgeConfigSpec.IntValue REPLAY_LATENCY_JITTER_MS;
+    public static final ForgeConfigSpec.DoubleValue REPLAY_ERROR_RATE;
+    public static final ForgeConfigSpec.LongValue REPLAY_SEED;
+    public static final ForgeConfigSpec.IntValue CONVERSATION_TOKENS;
+    public static final ForgeConfigSpec.BooleanValue CONVERSATION_SUMMARIZE;
+    public static final ForgeConfigSpec.IntValue TICK_BUDGET_MICROS;
+    public static final ForgeConfigSpec.IntValue TICK_REPORT_MICROS;
+    public static final ForgeConfigSpec.BooleanValue LOD_ENABLED;
+    public static final ForgeConfigSpec.ConfigValue<String> LOD_DISTANCE_CURVE;
+    public static final ForgeConfigSpec.IntValue LOD_IDLE_INTERVAL;
+    public static final ForgeConfigSpec.BooleanValue JOBS_ENABLED;
+    public static final ForgeConfigSpec.IntValue JOBS_MIN_QUANTITY;
+    public static final ForgeConfigSpec.IntValue JOBS_SHARD_SIZE;
+    public static final ForgeConfigSpec.IntValue JOBS_MAX_HELPERS;
+    public static final ForgeConfigSpec.IntValue JOBS_HELP_RANGE;
+    public static final ForgeConfigSpec.BooleanValue JOURNAL_ENABLED;
+    public static final ForgeConfigSpec.IntValue JOURNAL_BUFFER_EVENTS;
+    public static final ForgeConfigSpec.IntValue JOURNAL_BLOCK_SAMPLING;
+    public static final ForgeConfigSpec.IntValue JOURNAL_MAX_FILE_MB;
+    public static final ForgeConfigSpec.BooleanValue SUSPEND_ENABLED;
+    public static final ForgeConfigSpec.IntValue SUSPEND_MAX_DEPTH;
+    public static final ForgeConfigSpec.IntValue SUSPEND_MAX_SECONDS;
 
     static {
         ForgeConfigSpec.Builder builder = new ForgeConfigSpec.Builder();
@@ -22,9 +83,14 @@ public class SteveConfig {
         builder.comment("AI API Configuration").push("ai");
         
         AI_PROVIDER = builder
-            .comment("AI provider to use: 'groq' (FASTEST, FREE), 'openai', 'gemini', or 'lmstudio' (local)")
+            .comment("AI provider to use: 'groq' (FASTEST, FREE), 'openai', 'gemini', 'lmstudio' (local), or 'replay' (recorded responses, see [replay])")
             .define("provider", "groq");
         
+        STREAMING = builder
+            .comment("Stream responses from OpenAI-compatible providers (groq, openai, lmstudio).",
+                     "Steves start the first task while the rest of the plan is still being generated")
+            .define("streaming", true);
+        
         builder.pop();
 
         builder.comment("OpenAI/Gemini API Configuration (same key field used for both)").push("openai");
@@ -38,7 +104,8 @@ public class SteveConfig {
             .define("model", "gpt-4-turbo-preview");
         
         MAX_TOKENS = builder
-            .comment("Maximum tokens per API request")
+            .comment("Hard cap on output tokens per API request (the limit actually sent is sized from [prompt] planTokens,",
+                     "and at least [prompt] localReasoningTokens for LM Studio)")
             .defineInRange("maxTokens", 8000, 100, 65536);
         
         TEMPERATURE = builder
@@ -69,6 +136,11 @@ public class SteveConfig {
             .comment("Ticks between action checks (20 ticks = 1 second)")
             .defineInRange("actionTickDelay", 20, 1, 100);
         
+        PREPARE_AHEAD = builder
+            .comment("Prepare the next queued task on a worker thread while the current action runs, and start it",
+                     "as soon as that action finishes instead of waiting for the next action check")
+            .define("prepareAhead", true);
+        
         ENABLE_CHAT_RESPONSES = builder
             .comment("Allow Steves to respond in chat")
             .define("enableChatResponses", true);
@@ -79,6 +151,306 @@ public class SteveConfig {
         
         builder.pop();
 
+        builder.comment("Command Planning Pipeline").push("planning");
+        
+        PLANNING_THREADS = builder
+            .comment("Worker threads that send planning requests to the AI provider")
+            .defineInRange("threads", 2, 1, 16);
+        
+        PLANNING_QUEUE_SIZE = builder
+            .comment("Maximum commands waiting for a planning worker; further commands are rejected")
+            .defineInRange("queueSize", 32, 1, 1024);
+        
+        PLANNING_BACKGROUND_THREADS = builder
+            .comment("Low-priority workers for replans and conversation summaries, kept apart from player commands")
+            .defineInRange("backgroundThreads", 1, 1, 8);
+        
+        builder.pop();
+
+        builder.comment("Shared HTTP transport used by all AI providers").push("http");
+        
+        HTTP_MAX_CONNECTIONS_PER_ENDPOINT = builder
+            .comment("Maximum concurrent requests per API endpoint (for HTTP/1.1 endpoints this is the connection count)")
+            .defineInRange("maxConnectionsPerEndpoint", 4, 1, 64);
+        
+        builder.pop();
+
+        builder.comment("Plan cache: reuse plans for repeated commands instead of asking the AI again").push("cache");
+        
+        PLAN_CACHE_ENABLED = builder
+            .comment("Cache plans keyed by command and surroundings (biome, nearby blocks and players)")
+            .define("enabled", true);
+        
+        PLAN_CACHE_MAX_ENTRIES = builder
+            .comment("Maximum cached plans; least recently used ones are dropped first")
+            .defineInRange("maxEntries", 256, 1, 10000);
+        
+        PLAN_CACHE_TTL_MINUTES = builder
+            .comment("Minutes before a cached plan expires")
+            .defineInRange("ttlMinutes", 60, 1, 10080);
+        
+        PLAN_CACHE_PERSIST = builder
+            .comment("Save the cache to the world's data folder on shutdown and load it on startup")
+            .define("persist", false);
+        
+        builder.pop();
+
+        builder.comment("Provider routing: fallbacks, hedged requests and circuit breakers").push("router");
+        
+        ROUTER_FALLBACK_PROVIDERS = builder
+            .comment("Comma-separated providers to try after [ai].provider, in order")
+            .define("fallbackProviders", "groq");
+        
+        ROUTER_HEDGING = builder
+            .comment("Send the request to the next provider too when the primary is slower than its usual p95")
+            .define("hedging", true);
+        
+        ROUTER_HEDGE_DEFAULT_MS = builder
+            .comment("Hedge delay in milliseconds until enough latency samples are collected")
+            .defineInRange("hedgeDefaultMs", 8000, 100, 120000);
+        
+        ROUTER_HEDGE_MIN_MS = builder
+            .comment("Never hedge earlier than this many milliseconds")
+            .defineInRange("hedgeMinMs", 1500, 0, 120000);
+        
+        ROUTER_BREAKER_FAILURES = builder
+            .comment("Consecutive failures before a provider is skipped for a while")
+            .defineInRange("breakerFailures", 3, 1, 100);
+        
+        ROUTER_BREAKER_COOLDOWN_SECONDS = builder
+            .comment("Seconds a failing provider is skipped before one trial request is let through")
+            .defineInRange("breakerCooldownSeconds", 30, 1, 3600);
+        
+        builder.pop();
+
+        builder.comment("Request rate limits per provider (requests per minute, 0 = unlimited)").push("ratelimit");
+        
+        RATE_LIMIT_GROQ_RPM = builder
+            .comment("Groq requests per minute (free tier: 30)")
+            .defineInRange("groqRpm", 30, 0, 100000);
+        
+        RATE_LIMIT_GEMINI_RPM = builder
+            .comment("Gemini requests per minute (free tier: 15)")
+            .defineInRange("geminiRpm", 15, 0, 100000);
+        
+        RATE_LIMIT_OPENAI_RPM = builder
+            .comment("OpenAI requests per minute (depends on your account tier)")
+            .defineInRange("openaiRpm", 60, 0, 100000);
+        
+        RATE_LIMIT_LMSTUDIO_RPM = builder
+            .comment("LM Studio requests per minute")
+            .defineInRange("lmstudioRpm", 0, 0, 100000);
+        
+        RATE_LIMIT_BURST = builder
+            .comment("Requests that may be sent back to back before the per-minute rate applies")
+            .defineInRange("burst", 3, 1, 1000);
+        
+        LMSTUDIO_MAX_CONCURRENT = builder
+            .comment("Maximum simultaneous requests to LM Studio (local servers slow down badly when overloaded, 0 = unlimited)")
+            .defineInRange("lmstudioMaxConcurrent", 1, 0, 64);
+        
+        builder.pop();
+
+        builder.comment("Prompt and token budgets").push("prompt");
+        
+        PROMPT_PLAN_TOKENS = builder
+            .comment("Output tokens allowed per Steve in a plan (plans are usually under 300 tokens)")
+            .defineInRange("planTokens", 400, 100, 8000);
+        
+        PROMPT_REASONING_TOKENS = builder
+            .comment("Extra output tokens for hosted models that think before answering (Gemini 2.5)")
+            .defineInRange("reasoningTokens", 1024, 0, 32000);
+        
+        PROMPT_LOCAL_REASONING_TOKENS = builder
+            .comment("Minimum output tokens for LM Studio requests: local reasoning models (qwen3 and similar) may think",
+                     "for thousands of tokens before answering. Larger requests keep their own limit")
+            .defineInRange("localReasoningTokens", 4096, 0, 65536);
+        
+        PROMPT_CONTEXT_TOKENS = builder
+            .comment("Approximate token budget for the world description in each request; least important details are cut first")
+            .defineInRange("contextTokens", 120, 30, 4000);
+        
+        builder.pop();
+
+        builder.comment("Local command compiler").push("intents");
+        
+        INTENTS_ENABLED = builder
+            .comment("Turn simple commands ('follow me', 'mine iron 16', 'stop', ...) into tasks locally, without an AI request")
+            .define("enabled", true);
+        
+        builder.pop();
+
+        builder.comment("Structured output: 'schema' sends the plan JSON schema as response_format,",
+                        "'tools' as a forced function call, 'off' asks for free-form JSON text").push("structured");
+        
+        STRUCTURED_OUTPUT_OPENAI = builder
+            .comment("OpenAI structured output mode. \"schema\" (json_schema response format) needs gpt-4o-2024-08-06,",
+                     "gpt-4o-mini or newer; older models such as gpt-4-turbo-preview and gpt-3.5-turbo reject it, so the",
+                     "default is \"tools\", which every chat model with function calling supports")
+            .defineInList("openai", "tools", List.of("off", "schema", "tools"));
+        
+        STRUCTURED_OUTPUT_GROQ = builder
+            .comment("Groq structured output mode (json_schema is only available on some Groq models; tool calls work on all)")
+            .defineInList("groq", "tools", List.of("off", "schema", "tools"));
+        
+        STRUCTURED_OUTPUT_LMSTUDIO = builder
+            .comment("LM Studio structured output mode (schema = grammar-constrained sampling)")
+            .defineInList("lmstudio", "schema", List.of("off", "schema", "tools"));
+        
+        builder.pop();
+
+        builder.comment("Replanning when a task fails").push("replan");
+        
+        REPLAN_ENABLED = builder
+            .comment("Ask the AI in the background for replacement tasks when a task fails, instead of giving up on it")
+            .define("enabled", true);
+        
+        REPLAN_MAX_ATTEMPTS = builder
+            .comment("Maximum background replans per command")
+            .defineInRange("maxAttempts", 3, 0, 20);
+        
+        builder.pop();
+
+        builder.comment("Planning metrics").push("metrics");
+        
+        METRICS_FLUSH_SECONDS = builder
+            .comment("How often LLM metrics are written to steve_llm_metrics.json in the world's data folder (0 = only on shutdown)")
+            .defineInRange("flushSeconds", 60, 0, 3600);
+        
+        builder.pop();
+
+        builder.comment("Record/replay provider for offline load testing (provider = 'replay')").push("replay");
+        
+        REPLAY_RECORD = builder
+            .comment("Record every response from a real provider into the corpus")
+            .define("record", false);
+        
+        REPLAY_CORPUS = builder
+            .comment("Corpus file, relative to the world's data folder or absolute")
+            .define("corpus", "steve_replay.jsonl.gz");
+        
+        REPLAY_MAX_ENTRIES = builder
+            .comment("Stop recording once the corpus holds this many responses")
+            .defineInRange("maxEntries", 5000, 1, 1000000);
+        
+        REPLAY_LATENCY_MS = builder
+            .comment("Synthetic latency of a replayed response in milliseconds")
+            .defineInRange("latencyMs", 800, 0, 120000);
+        
+        REPLAY_LATENCY_JITTER_MS = builder
+            .comment("Random +/- jitter added to the synthetic latency")
+            .defineInRange("latencyJitterMs", 300, 0, 60000);
+        
+        REPLAY_ERROR_RATE = builder
+            .comment("Fraction of replayed requests that fail, to exercise retries and fallbacks (0.0 - 1.0)")
+            .defineInRange("errorRate", 0.0, 0.0, 1.0);
+        
+        REPLAY_SEED = builder
+            .comment("Seed for latency and error injection, so runs are repeatable")
+            .defineInRange("seed", 42L, Long.MIN_VALUE, Long.MAX_VALUE);
+        
+        builder.pop();
+
+        builder.comment("Conversation history sent with each command").push("conversation");
+        
+        CONVERSATION_TOKENS = builder
+            .comment("Token budget per Steve for earlier commands and replies (a third goes to the summary of older turns, 0 = no history)")
+            .defineInRange("tokens", 240, 0, 4096);
+        
+        CONVERSATION_SUMMARIZE = builder
+            .comment("Summarize older turns with a background AI request (otherwise only their commands are kept)")
+            .define("summarize", true);
+        
+        builder.pop();
+
+        builder.comment("Server tick budget for Steve work").push("tickbudget");
+        
+        TICK_BUDGET_MICROS = builder
+            .comment("Time each Steve may spend per server tick in microseconds; heavy work (build plans, block scans) continues next tick")
+            .defineInRange("microsPerSteve", 2000, 100, 50000);
+        
+        TICK_REPORT_MICROS = builder
+            .comment("Log a warning when one Steve's tick takes longer than this, in microseconds (0 = never)")
+            .defineInRange("reportMicros", 10000, 0, 1000000);
+        
+        builder.pop();
+
+        builder.comment("Reduced logic tick rate for idle Steves and Steves far from players").push("lod");
+        
+        LOD_ENABLED = builder
+            .comment("Run Steve logic less often when idle or far from every player (movement and physics are unaffected)")
+            .define("enabled", true);
+        
+        LOD_DISTANCE_CURVE = builder
+            .comment("Comma-separated distance:interval pairs - from that many blocks to the nearest player, logic runs every interval ticks")
+            .define("distanceCurve", "48:2,96:4,160:8");
+        
+        LOD_IDLE_INTERVAL = builder
+            .comment("Logic tick interval for Steves with nothing to do (1 = every tick)")
+            .defineInRange("idleInterval", 4, 1, 40);
+        
+        builder.pop();
+
+        builder.comment("Shared jobs: idle Steves help with large mining tasks").push("jobs");
+        
+        JOBS_ENABLED = builder
+            .comment("Split large mining tasks into shards that idle Steves pick up")
+            .define("enabled", true);
+        
+        JOBS_MIN_QUANTITY = builder
+            .comment("Smallest quantity that is shared")
+            .defineInRange("minQuantity", 16, 2, 10000);
+        
+        JOBS_SHARD_SIZE = builder
+            .comment("Blocks a Steve takes on at a time")
+            .defineInRange("shardSize", 8, 1, 1000);
+        
+        JOBS_MAX_HELPERS = builder
+            .comment("Most Steves helping with one job, besides the one it was given to")
+            .defineInRange("maxHelpers", 4, 0, 50);
+        
+        JOBS_HELP_RANGE = builder
+            .comment("Idle Steves within this many blocks of the job's Steve come to help")
+            .defineInRange("helpRange", 64, 8, 512);
+        
+        builder.pop();
+
+        builder.comment("Binary event journal of Steve activity (steve_journal.bin in the world's data folder)").push("journal");
+        
+        JOURNAL_ENABLED = builder
+            .comment("Record action starts and ends, block placements, mined blocks, AI calls and replans")
+            .define("enabled", true);
+        
+        JOURNAL_BUFFER_EVENTS = builder
+            .comment("Events held in memory until the background writer saves them; more are dropped and counted")
+            .defineInRange("bufferEvents", 16384, 256, 1048576);
+        
+        JOURNAL_BLOCK_SAMPLING = builder
+            .comment("Record every Nth placed or mined block (1 = all of them)")
+            .defineInRange("blockSampling", 1, 1, 10000);
+        
+        JOURNAL_MAX_FILE_MB = builder
+            .comment("Size at which the journal moves to steve_journal.old.bin and starts over")
+            .defineInRange("maxFileMB", 64, 1, 4096);
+        
+        builder.pop();
+
+        builder.comment("Pausing builds, mining and combat for a new command and resuming them afterwards").push("suspend");
+        
+        SUSPEND_ENABLED = builder
+            .comment("Put the current action aside on a new command instead of cancelling it; it resumes when the new command is done")
+            .define("enabled", true);
+        
+        SUSPEND_MAX_DEPTH = builder
+            .comment("Most actions put aside at once; the oldest is cancelled beyond this")
+            .defineInRange("maxDepth", 3, 1, 16);
+        
+        SUSPEND_MAX_SECONDS = builder
+            .comment("An action put aside for longer than this is cancelled instead of resumed")
+            .defineInRange("maxSeconds", 600, 10, 86400);
+        
+        builder.pop();
+
         SPEC = builder.build();
     }
 }
@@ -97,6 +97,10 @@ public class SteveEntity extends PathfinderMob {
         CompoundTag memoryTag = new CompoundTag();
         this.memory.saveToNBT(memoryTag);
         tag.put("Memory", memoryTag);
+        
+        CompoundTag executorTag = new CompoundTag();
+        this.actionExecutor.saveToNBT(executorTag);
+        tag.put("Executor", executorTag);
     }
 
     @Override
@@ -109,6 +113,10 @@ public class SteveEntity extends PathfinderMob {
         if (tag.contains("Memory")) {
             this.memory.loadFromNBT(tag.getCompound("Memory"));
         }
+        
+        if (tag.contains("Executor")) {
+            this.actionExecutor.loadFromNBT(tag.getCompound("Executor"));
+        }
     }
 
     @Override
@@ -1,6 +1,8 @@
 package com.steve.ai.entity;
 
 import com.steve.ai.SteveMod;
+import com.steve.ai.action.JobPool;
+import com.steve.ai.action.TickBudget;
 import com.steve.ai.config.SteveConfig;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.phys.Vec3;
@@ -11,6 +13,9 @@ import java.util.concurrent.ConcurrentHashMap;
 public class SteveManager {
     private final Map<String, SteveEntity> activeSteves;
     private final Map<UUID, SteveEntity> stevesByUUID;
+    private final Map<ServerLevel, List<SteveEntity>> stevesByLevel = new HashMap<>();  // Server thread only
+    private final JobPool jobPool = new JobPool();
+    private static final int JOB_ASSIGN_INTERVAL = 20; // Ticks between handing out shards to idle Steves
 
     public SteveManager() {
         this.activeSteves = new ConcurrentHashMap<>();
@@ -64,6 +69,8 @@ public class SteveManager {
         SteveEntity steve = activeSteves.remove(name);
         if (steve != null) {
             stevesByUUID.remove(steve.getUUID());
+            TickBudget.forget(name);
+            jobPool.closeOwnedBy(name);
             steve.discard();            return true;
         }
         return false;
@@ -75,7 +82,9 @@ public class SteveManager {
             steve.discard();
         }
         activeSteves.clear();
-        stevesByUUID.clear();    }
+        stevesByUUID.clear();
+        stevesByLevel.clear();
+        TickBudget.reset();    }
 
     public Collection<SteveEntity> getAllSteves() {
         return Collections.unmodifiableCollection(activeSteves.values());
@@ -113,14 +122,15 @@ public class SteveManager {
                 name = name + "_" + steve.getUUID().toString().substring(0, 8);
                 steve.setSteveName(name);
                 SteveMod.LOGGER.warn("Renamed Steve to avoid name conflict: {}", name);
-            } else {
+            } else if (existing == steve) {
                 // Это тот же Стив, уже зарегистрирован
                 return false;
             }
+            // Same UUID, new entity object: Steve changed dimension and the copy takes over
         }
         
         // Проверяем, не зарегистрирован ли уже Стив с таким UUID
-        if (stevesByUUID.containsKey(steve.getUUID())) {
+        if (stevesByUUID.get(steve.getUUID()) == steve) {
             return false;
         }
         
@@ -130,26 +140,98 @@ public class SteveManager {
         return true;
     }
 
-    public void tick(ServerLevel level) {
-        // Регистрируем незарегистрированных Стивов в мире
-        for (var entity : level.getAllEntities()) {
-            if (entity instanceof SteveEntity steve) {
-                if (!stevesByUUID.containsKey(steve.getUUID())) {
-                    registerExistingSteve(steve);
-                }
+    /**
+     * A Steve entity was added to {@code level}: spawned, loaded with its chunk, or arrived from
+     * another dimension. Called from EntityJoinLevelEvent.
+     */
+    public void onSteveJoinedLevel(SteveEntity steve, ServerLevel level) {
+        registerExistingSteve(steve);
+        List<SteveEntity> steves = stevesByLevel.computeIfAbsent(level, k -> new ArrayList<>());
+        if (!steves.contains(steve)) {
+            steves.add(steve);
+        }
+    }
+
+    /**
+     * A Steve entity left {@code level}: killed, discarded, unloaded with its chunk, or moved to
+     * another dimension. Called from EntityLeaveLevelEvent.
+     */
+    public void onSteveLeftLevel(SteveEntity steve, ServerLevel level) {
+        List<SteveEntity> steves = stevesByLevel.get(level);
+        if (steves != null) {
+            steves.remove(steve);
+        }
+        unregister(steve);
+    }
+
+    /**
+     * Drop the index of an unloaded level.
+     */
+    public void onLevelUnloaded(ServerLevel level) {
+        List<SteveEntity> steves = stevesByLevel.remove(level);
+        if (steves != null) {
+            for (SteveEntity steve : steves) {
+                unregister(steve);
             }
         }
+    }
+
+    private void unregister(SteveEntity steve) {
+        String name = steve.getSteveName();
+        // Only this entity: after a dimension change the copy in the new level is already registered
+        if (name != null && activeSteves.remove(name, steve)) {
+            stevesByUUID.remove(steve.getUUID(), steve);
+            TickBudget.forget(name);
+            jobPool.closeOwnedBy(name);
+            SteveMod.LOGGER.info("Cleaned up Steve: {}", name);
+        }
+    }
+
+    /**
+     * Per level, per server tick. Registration is event driven, so this only looks at the Steves in
+     * {@code level}.
+     */
+    public void tick(ServerLevel level) {
+        List<SteveEntity> steves = stevesByLevel.get(level);
+        if (steves == null || steves.isEmpty()) {
+            return;
+        }
         
-        // Clean up dead or removed Steves
-        Iterator<Map.Entry<String, SteveEntity>> iterator = activeSteves.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<String, SteveEntity> entry = iterator.next();
-            SteveEntity steve = entry.getValue();
-            
+        // Dead Steves stay in the level for their death animation; unregister them right away
+        for (int i = steves.size() - 1; i >= 0; i--) {
+            SteveEntity steve = steves.get(i);
             if (!steve.isAlive() || steve.isRemoved()) {
-                iterator.remove();
-                stevesByUUID.remove(steve.getUUID());
-                SteveMod.LOGGER.info("Cleaned up Steve: {}", entry.getKey());
+                steves.remove(i);
+                unregister(steve);
+            }
+        }
+        
+        if (level.getGameTime() % JOB_ASSIGN_INTERVAL == 0 && jobPool.hasOpenShards()) {
+            assignJobs(steves);
+        }
+    }
+
+    public JobPool getJobPool() {
+        return jobPool;
+    }
+
+    /**
+     * Hand idle Steves of one level a shard of a nearby shared job.
+     */
+    private void assignJobs(List<SteveEntity> steves) {
+        for (int i = 0; i < steves.size(); i++) {
+            SteveEntity steve = steves.get(i);
+            if (!steve.getActionExecutor().isAvailableForJobs()) {
+                continue;
+            }
+            JobPool.Job job = jobPool.claimHelp(steve);
+            if (job == null) {
+                continue;
+            }
+            SteveMod.LOGGER.info("Steve '{}' is helping '{}' mine {}", steve.getSteveName(), job.owner.getSteveName(), job.block);
+            steve.getActionExecutor().helpWithJob(job);
+            if (!jobPool.hasOpenShards()) {
+                return;
             }
         }
     }
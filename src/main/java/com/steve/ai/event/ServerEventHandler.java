@@ -1,18 +1,37 @@
 package com.steve.ai.event;
 
 import com.steve.ai.SteveMod;
+import com.steve.ai.action.TaskPreparer;
+import com.steve.ai.ai.LLMMetrics;
+import com.steve.ai.ai.PlanCache;
+import com.steve.ai.ai.PlanningExecutor;
+import com.steve.ai.ai.ReplayClient;
+import com.steve.ai.config.SteveConfig;
+import com.steve.ai.entity.SteveEntity;
 import com.steve.ai.entity.SteveManager;
+import com.steve.ai.journal.EventJournal;
 import com.steve.ai.memory.StructureRegistry;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.level.storage.LevelResource;
 import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityJoinLevelEvent;
+import net.minecraftforge.event.entity.EntityLeaveLevelEvent;
 import net.minecraftforge.event.entity.player.PlayerEvent;
+import net.minecraftforge.event.server.ServerStartedEvent;
+import net.minecraftforge.event.level.LevelEvent;
+import net.minecraftforge.event.server.ServerStoppingEvent;
+import net.minecraftforge.eventbus.api.EventPriority;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.common.Mod;
 
+import java.nio.file.Path;
+
 @Mod.EventBusSubscriber(modid = SteveMod.MODID, bus = Mod.EventBusSubscriber.Bus.FORGE)
 public class ServerEventHandler {
     private static boolean stevesSpawned = false;
+    private static int ticksSinceMetricsFlush = 0;
 
     @SubscribeEvent
     public static void onPlayerLoggedIn(PlayerEvent.PlayerLoggedInEvent event) {
@@ -21,12 +40,7 @@ public class ServerEventHandler {
                 // Clear structure registry for fresh spatial awareness
                 StructureRegistry.clear();
                 
-                // Регистрируем всех существующих Стивов, загруженных из сохранения
-                if (player.level() instanceof ServerLevel level) {
-                    SteveManager manager = SteveMod.getSteveManager();
-                    manager.tick(level);
-                    SteveMod.LOGGER.info("Registered existing Steves on world load");
-                }
+                // Steves loaded from the save register themselves through EntityJoinLevelEvent
                 
                 // Убрано автоматическое создание Стивов - теперь они создаются только через команду /steve spawn
                 // Если нужно автоматически создавать Стивов, раскомментируйте код ниже:
@@ -73,13 +87,44 @@ public class ServerEventHandler {
         }
         
         // Вызываем tick для всех загруженных уровней сервера
-        // Это регистрирует незарегистрированных Стивов и очищает мертвых
+        // Это очищает мертвых Стивов и раздает им общие задания
         var server = event.getServer();
         if (server != null) {
             SteveManager manager = SteveMod.getSteveManager();
             for (ServerLevel level : server.getAllLevels()) {
                 manager.tick(level);
             }
+            
+            int flushSeconds = SteveConfig.METRICS_FLUSH_SECONDS.get();
+            if (flushSeconds > 0 && ++ticksSinceMetricsFlush >= flushSeconds * 20) {
+                ticksSinceMetricsFlush = 0;
+                LLMMetrics.save(getDataDir(server), false);
+            }
+        }
+    }
+
+    /**
+     * Steves register when they enter a level, including when their chunk loads. Lowest priority so
+     * a join another mod cancels is not registered.
+     */
+    @SubscribeEvent(priority = EventPriority.LOWEST)
+    public static void onEntityJoinLevel(EntityJoinLevelEvent event) {
+        if (event.getEntity() instanceof SteveEntity steve && event.getLevel() instanceof ServerLevel level) {
+            SteveMod.getSteveManager().onSteveJoinedLevel(steve, level);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onEntityLeaveLevel(EntityLeaveLevelEvent event) {
+        if (event.getEntity() instanceof SteveEntity steve && event.getLevel() instanceof ServerLevel level) {
+            SteveMod.getSteveManager().onSteveLeftLevel(steve, level);
+        }
+    }
+
+    @SubscribeEvent
+    public static void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            SteveMod.getSteveManager().onLevelUnloaded(level);
         }
     }
 
@@ -87,5 +132,25 @@ public class ServerEventHandler {
     public static void onPlayerLoggedOut(PlayerEvent.PlayerLoggedOutEvent event) {
         stevesSpawned = false;
     }
-}
 
+    @SubscribeEvent
+    public static void onServerStarted(ServerStartedEvent event) {
+        PlanCache.load(getDataDir(event.getServer()));
+        ReplayClient.load(getDataDir(event.getServer()));
+        EventJournal.open(getDataDir(event.getServer()));
+    }
+
+    @SubscribeEvent
+    public static void onServerStopping(ServerStoppingEvent event) {
+        PlanningExecutor.shutdown();
+        TaskPreparer.shutdown();
+        PlanCache.save(getDataDir(event.getServer()));
+        LLMMetrics.save(getDataDir(event.getServer()), true);
+        ReplayClient.save(getDataDir(event.getServer()));
+        EventJournal.close();
+    }
+
+    private static Path getDataDir(MinecraftServer server) {
+        return server.getWorldPath(LevelResource.ROOT).resolve("data");
+    }
+}
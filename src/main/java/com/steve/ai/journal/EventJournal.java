@@ -0,0 +1,358 @@
+package com.steve.ai.journal;
+
+import com.steve.ai.SteveMod;
+import com.steve.ai.config.SteveConfig;
+import net.minecraft.core.registries.BuiltInRegistries;
+import net.minecraft.world.level.block.Block;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Structured record of what Steves do, written to steve_journal.bin in the world's data folder.
+ *
+ * Recording copies a few fields into a fixed ring of primitive arrays and returns; nothing is
+ * formatted or written on the caller's thread. A background writer drains the ring a few times a
+ * second. When the ring is full, events are dropped and counted instead of blocking the server.
+ * Placed and mined blocks can be sampled (journal.blockSampling). {@link JournalReader} reads the file
+ * back for /steve journal.
+ *
+ * File format: the header "SJNL" and an int version, then records. Every record starts with a type
+ * byte. {@link #DEFINE} records (short id, UTF text) name the strings used by the records after them.
+ * Every other record is: long epoch millis, short Steve name id, short text id, int x, int y, int z
+ * and int value. Id -1 means no string.
+ */
+public class EventJournal {
+    public static final String FILE_NAME = "steve_journal.bin";
+    public static final String OLD_FILE_NAME = "steve_journal.old.bin";
+    static final int MAGIC = 0x534A4E4C;  // "SJNL"
+    static final int VERSION = 1;
+    static final byte DEFINE = 0;
+
+    private static final long DRAIN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int MAX_STRINGS = Short.MAX_VALUE;
+
+    public enum Type {
+        ACTION_START(1, false),  // text: action, value: 0
+        ACTION_END(2, false),    // text: action, value: 1 success, 0 failure
+        BLOCK_PLACED(3, true),   // text: block
+        BLOCK_MINED(4, true),    // text: block
+        LLM_CALL(5, false),      // text: provider, x: HTTP status (-1 no response), value: total ms
+        REPLAN(6, false);        // text: failed task's action, value: replan attempt
+
+        final byte code;
+        final boolean sampled;
+
+        Type(int code, boolean sampled) {
+            this.code = (byte) code;
+            this.sampled = sampled;
+        }
+
+        private static final Type[] BY_CODE = new Type[8];
+        static {
+            for (Type type : values()) {
+                BY_CODE[type.code] = type;
+            }
+        }
+
+        static Type byCode(byte code) {
+            return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+        }
+    }
+
+    private static final Object lock = new Object();
+    private static final Type[] TYPES = Type.values();
+
+    // Ring, guarded by lock. Text slots hold a String or a Block, named by the writer.
+    private static int capacity;
+    private static byte[] types;
+    private static long[] times;
+    private static String[] steves;
+    private static Object[] texts;
+    private static int[] xs, ys, zs, values;
+    private static int head;
+    private static int size;
+    private static final int[] sampleCounters = new int[TYPES.length];
+    private static long recorded;
+    private static long dropped;
+
+    private static volatile boolean open;
+    private static volatile boolean running;
+    private static Thread writerThread;
+    private static Path dataDir;
+
+    public static void blockPlaced(String steve, int x, int y, int z, Block block) {
+        record(Type.BLOCK_PLACED, steve, block, x, y, z, 0);
+    }
+
+    public static void blockMined(String steve, int x, int y, int z, Block block) {
+        record(Type.BLOCK_MINED, steve, block, x, y, z, 0);
+    }
+
+    public static void actionStarted(String steve, String action, int x, int y, int z) {
+        record(Type.ACTION_START, steve, action, x, y, z, 0);
+    }
+
+    public static void actionEnded(String steve, String action, int x, int y, int z, boolean success) {
+        record(Type.ACTION_END, steve, action, x, y, z, success ? 1 : 0);
+    }
+
+    public static void llmCall(String provider, int status, long totalNanos) {
+        record(Type.LLM_CALL, null, provider, status, 0, 0, (int) TimeUnit.NANOSECONDS.toMillis(totalNanos));
+    }
+
+    public static void replan(String steve, String action, int attempt) {
+        record(Type.REPLAN, steve, action, 0, 0, 0, attempt);
+    }
+
+    private static void record(Type type, String steve, Object text, int x, int y, int z, int value) {
+        if (!open) {
+            return;
+        }
+        synchronized (lock) {
+            if (type.sampled) {
+                int sampling = SteveConfig.JOURNAL_BLOCK_SAMPLING.get();
+                if (sampling > 1 && sampleCounters[type.ordinal()]++ % sampling != 0) {
+                    return;
+                }
+            }
+            if (size == capacity) {
+                dropped++;
+                return;
+            }
+            int i = head + size;
+            if (i >= capacity) {
+                i -= capacity;
+            }
+            types[i] = type.code;
+            times[i] = System.currentTimeMillis();
+            steves[i] = steve;
+            texts[i] = text;
+            xs[i] = x;
+            ys[i] = y;
+            zs[i] = z;
+            values[i] = value;
+            size++;
+            recorded++;
+        }
+    }
+
+    /**
+     * Start journaling into {@code dir} (server start). Does nothing when journal.enabled is off.
+     */
+    public static synchronized void open(Path dir) {
+        if (open || !SteveConfig.JOURNAL_ENABLED.get()) {
+            return;
+        }
+        synchronized (lock) {
+            capacity = SteveConfig.JOURNAL_BUFFER_EVENTS.get();
+            types = new byte[capacity];
+            times = new long[capacity];
+            steves = new String[capacity];
+            texts = new Object[capacity];
+            xs = new int[capacity];
+            ys = new int[capacity];
+            zs = new int[capacity];
+            values = new int[capacity];
+            head = 0;
+            size = 0;
+            recorded = 0;
+            dropped = 0;
+        }
+        dataDir = dir;
+        running = true;
+        open = true;
+        writerThread = new Thread(new Writer(dir), "Steve-Journal");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        SteveMod.LOGGER.info("Event journal recording to {}", dir.resolve(FILE_NAME));
+    }
+
+    /**
+     * Stop recording and write what is left (server stop).
+     */
+    public static synchronized void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writerThread = null;
+    }
+
+    public static Path getFile() {
+        return dataDir != null ? dataDir.resolve(FILE_NAME) : null;
+    }
+
+    public static String describe() {
+        synchronized (lock) {
+            return String.format("%s, %d recorded, %d dropped, %d waiting to be written",
+                open ? "recording" : "off", recorded, dropped, size);
+        }
+    }
+
+    /**
+     * Writer thread: moves the ring into its own arrays under the lock, then encodes and writes
+     * without holding it.
+     */
+    private static class Writer implements Runnable {
+        private final Path dir;
+        private final Map<String, Short> stringIds = new HashMap<>();
+        private DataOutputStream out;
+        private long existingBytes;  // Already in the file when it was opened for appending
+
+        private byte[] batchTypes = new byte[0];
+        private long[] batchTimes = new long[0];
+        private String[] batchSteves = new String[0];
+        private Object[] batchTexts = new Object[0];
+        private int[] batchXs = new int[0], batchYs = new int[0], batchZs = new int[0], batchValues = new int[0];
+
+        Writer(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        public void run() {
+            try {
+                openFile();
+                while (running) {
+                    LockSupport.parkNanos(DRAIN_INTERVAL_NANOS);
+                    drain();
+                }
+                drain();
+            } catch (IOException e) {
+                SteveMod.LOGGER.warn("Event journal stopped, could not write {}", dir.resolve(FILE_NAME), e);
+                open = false;
+            } finally {
+                closeFile();
+            }
+        }
+
+        private void drain() throws IOException {
+            int count;
+            synchronized (lock) {
+                count = size;
+                if (count == 0) {
+                    return;
+                }
+                if (batchTypes.length < capacity) {
+                    batchTypes = new byte[capacity];
+                    batchTimes = new long[capacity];
+                    batchSteves = new String[capacity];
+                    batchTexts = new Object[capacity];
+                    batchXs = new int[capacity];
+                    batchYs = new int[capacity];
+                    batchZs = new int[capacity];
+                    batchValues = new int[capacity];
+                }
+                for (int n = 0; n < count; n++) {
+                    int i = (head + n) % capacity;
+                    batchTypes[n] = types[i];
+                    batchTimes[n] = times[i];
+                    batchSteves[n] = steves[i];
+                    batchTexts[n] = texts[i];
+                    batchXs[n] = xs[i];
+                    batchYs[n] = ys[i];
+                    batchZs[n] = zs[i];
+                    batchValues[n] = values[i];
+                    steves[i] = null;
+                    texts[i] = null;
+                }
+                head = (head + count) % capacity;
+                size = 0;
+            }
+
+            for (int n = 0; n < count; n++) {
+                short steve = stringId(batchSteves[n]);
+                short text = stringId(nameOf(batchTexts[n]));
+                out.writeByte(batchTypes[n]);
+                out.writeLong(batchTimes[n]);
+                out.writeShort(steve);
+                out.writeShort(text);
+                out.writeInt(batchXs[n]);
+                out.writeInt(batchYs[n]);
+                out.writeInt(batchZs[n]);
+                out.writeInt(batchValues[n]);
+                batchSteves[n] = null;
+                batchTexts[n] = null;
+            }
+            out.flush();
+
+            if (existingBytes + out.size() > SteveConfig.JOURNAL_MAX_FILE_MB.get() * 1024L * 1024L) {
+                rotate();
+            }
+        }
+
+        private short stringId(String text) throws IOException {
+            if (text == null) {
+                return -1;
+            }
+            Short id = stringIds.get(text);
+            if (id != null) {
+                return id;
+            }
+            if (stringIds.size() >= MAX_STRINGS) {
+                stringIds.clear();  // Ids are reused; the reader follows the newest definition
+            }
+            short newId = (short) stringIds.size();
+            stringIds.put(text, newId);
+            out.writeByte(DEFINE);
+            out.writeShort(newId);
+            out.writeUTF(text);
+            return newId;
+        }
+
+        private static String nameOf(Object text) {
+            if (text instanceof Block block) {
+                return BuiltInRegistries.BLOCK.getKey(block).toString();
+            }
+            return text != null ? text.toString() : null;
+        }
+
+        private void openFile() throws IOException {
+            Files.createDirectories(dir);
+            Path file = dir.resolve(FILE_NAME);
+            existingBytes = Files.exists(file) ? Files.size(file) : 0;
+            out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024));
+            stringIds.clear();  // Appended records define their strings again
+            if (existingBytes == 0) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.flush();
+            }
+        }
+
+        private void rotate() throws IOException {
+            closeFile();
+            Files.move(dir.resolve(FILE_NAME), dir.resolve(OLD_FILE_NAME), StandardCopyOption.REPLACE_EXISTING);
+            openFile();
+        }
+
+        private void closeFile() {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    SteveMod.LOGGER.warn("Could not close event journal", e);
+                }
+                out = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.steve.ai.journal;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reads the file written by {@link EventJournal}. Used by /steve journal, off the server thread.
+ */
+public class JournalReader {
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("MM-dd HH:mm:ss");
+
+    /**
+     * One decoded record.
+     */
+    public static class Event {
+        public final EventJournal.Type type;
+        public final long time;
+        public final String steve;
+        public final String text;
+        public final int x, y, z;
+        public final int value;
+
+        Event(EventJournal.Type type, long time, String steve, String text, int x, int y, int z, int value) {
+            this.type = type;
+            this.time = time;
+            this.steve = steve;
+            this.text = text;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+            this.value = value;
+        }
+
+        public String describe() {
+            String when = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault()).format(TIME);
+            String what = switch (type) {
+                case ACTION_START -> steve + " started " + text + " at " + x + " " + y + " " + z;
+                case ACTION_END -> steve + (value != 0 ? " finished " : " failed ") + text + " at " + x + " " + y + " " + z;
+                case BLOCK_PLACED -> steve + " placed " + text + " at " + x + " " + y + " " + z;
+                case BLOCK_MINED -> steve + " mined " + text + " at " + x + " " + y + " " + z;
+                case LLM_CALL -> "AI call to " + text + ": status " + x + ", " + value + "ms";
+                case REPLAN -> steve + " replanning failed " + text + " (attempt " + value + ")";
+            };
+            return "[" + when + "] " + what;
+        }
+    }
+
+    @FunctionalInterface
+    private interface Visitor {
+        void visit(Event event);
+    }
+
+    private static void read(Path file, Visitor visitor) throws IOException {
+        Map<Short, String> strings = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 64 * 1024))) {
+            if (in.readInt() != EventJournal.MAGIC) {
+                throw new IOException("Not a Steve event journal: " + file);
+            }
+            int version = in.readInt();
+            if (version != EventJournal.VERSION) {
+                throw new IOException("Unsupported journal version " + version);
+            }
+            while (true) {
+                byte code;
+                try {
+                    code = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                try {
+                    if (code == EventJournal.DEFINE) {
+                        short id = in.readShort();
+                        strings.put(id, in.readUTF());
+                        continue;
+                    }
+                    EventJournal.Type type = EventJournal.Type.byCode(code);
+                    if (type == null) {
+                        throw new IOException("Corrupt journal: unknown record type " + code);
+                    }
+                    long time = in.readLong();
+                    String steve = strings.get(in.readShort());
+                    String text = strings.get(in.readShort());
+                    visitor.visit(new Event(type, time, steve, text, in.readInt(), in.readInt(), in.readInt(), in.readInt()));
+                } catch (EOFException e) {
+                    return;  // Record cut off by a crash; everything before it is fine
+                }
+            }
+        }
+    }
+
+    /**
+     * Totals per event type, per Steve and per AI provider.
+     */
+    public static List<String> summarize(Path file) {
+        List<String> lines = new ArrayList<>();
+        Map<EventJournal.Type, Integer> byType = new TreeMap<>();
+        Map<String, int[]> bySteve = new TreeMap<>();  // started, failed, placed, mined, replans
+        Map<String, long[]> byProvider = new TreeMap<>();  // calls, total ms, errors
+        long[] span = {Long.MAX_VALUE, Long.MIN_VALUE};
+
+        try {
+            read(file, event -> {
+                byType.merge(event.type, 1, Integer::sum);
+                span[0] = Math.min(span[0], event.time);
+                span[1] = Math.max(span[1], event.time);
+                if (event.type == EventJournal.Type.LLM_CALL) {
+                    long[] provider = byProvider.computeIfAbsent(String.valueOf(event.text), k -> new long[3]);
+                    provider[0]++;
+                    provider[1] += event.value;
+                    if (event.x != 200) {
+                        provider[2]++;
+                    }
+                    return;
+                }
+                int[] steve = bySteve.computeIfAbsent(String.valueOf(event.steve), k -> new int[5]);
+                switch (event.type) {
+                    case ACTION_START -> steve[0]++;
+                    case ACTION_END -> steve[1] += event.value == 0 ? 1 : 0;
+                    case BLOCK_PLACED -> steve[2]++;
+                    case BLOCK_MINED -> steve[3]++;
+                    case REPLAN -> steve[4]++;
+                    default -> { }
+                }
+            });
+        } catch (NoSuchFileException e) {
+            lines.add("No journal recorded yet");
+            return lines;
+        } catch (IOException e) {
+            lines.add("Could not read journal: " + e.getMessage());
+            return lines;
+        }
+
+        if (byType.isEmpty()) {
+            lines.add("Journal is empty");
+            return lines;
+        }
+        lines.add(String.format("%d events over %d min: %s", byType.values().stream().mapToInt(Integer::intValue).sum(),
+            (span[1] - span[0]) / 60_000, byType));
+        bySteve.forEach((name, counts) -> lines.add(String.format("%s: %d actions (%d failed), %d placed, %d mined, %d replans",
+            name, counts[0], counts[1], counts[2], counts[3], counts[4])));
+        byProvider.forEach((name, counts) -> lines.add(String.format("AI %s: %d calls, avg %dms, %d errors",
+            name, counts[0], counts[1] / Math.max(1, counts[0]), counts[2])));
+        return lines;
+    }
+
+    /**
+     * The last {@code count} events, oldest first, only those of {@code steve} if it is not null.
+     */
+    public static List<String> replay(Path file, int count, String steve) {
+        Deque<Event> last = new ArrayDeque<>(count);
+        try {
+            read(file, event -> {
+                if (steve != null && !steve.equalsIgnoreCase(event.steve)) {
+                    return;
+                }
+                if (last.size() == count) {
+                    last.removeFirst();
+                }
+                last.addLast(event);
+            });
+        } catch (NoSuchFileException e) {
+            return List.of("No journal recorded yet");
+        } catch (IOException e) {
+            return List.of("Could not read journal: " + e.getMessage());
+        }
+
+        List<String> lines = new ArrayList<>(last.size());
+        for (Event event : last) {
+            lines.add(event.describe());
+        }
+        return lines;
+    }
+}
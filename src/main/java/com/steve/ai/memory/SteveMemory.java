@@ -1,5 +1,7 @@
 package com.steve.ai.memory;
 
+import com.steve.ai.agent.ConversationalMemory;
+import com.steve.ai.config.SteveConfig;
 import com.steve.ai.entity.SteveEntity;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
@@ -15,6 +17,7 @@ public class SteveMemory {
     private String currentGoal;
     private final Queue<String> taskQueue;
     private final LinkedList<String> recentActions;
+    private final ConversationalMemory conversation;
     private static final int MAX_RECENT_ACTIONS = 20;
 
     public SteveMemory(SteveEntity steve) {
@@ -22,6 +25,14 @@ public class SteveMemory {
         this.currentGoal = "";
         this.taskQueue = new LinkedList<>();
         this.recentActions = new LinkedList<>();
+        this.conversation = new ConversationalMemory(SteveConfig.CONVERSATION_TOKENS.get());
+    }
+
+    /**
+     * Commands and replies, summarized past the token budget; goes into the planning prompt.
+     */
+    public ConversationalMemory getConversation() {
+        return conversation;
     }
 
     public String getCurrentGoal() {
@@ -14,100 +14,110 @@ import net.minecraft.world.phys.AABB;
 
 import java.util.*;
 
+/**
+ * Immutable snapshot of what a Steve can see around him.
+ * Must be created on the server thread; once built it only holds plain values,
+ * so planner threads can read it without touching the world.
+ */
 public class WorldKnowledge {
-    private final SteveEntity steve;
-    private final int scanRadius = 16;
-    private Map<Block, Integer> nearbyBlocks;
-    private List<Entity> nearbyEntities;
-    private String biomeName;
+    private static final int SCAN_RADIUS = 16;
+
+    private final BlockPos position;
+    private final String biomeName;
+    private final Map<Block, Integer> nearbyBlocks;
+    private final List<String> nearbyPlayerNames;
+    private final String nearbyBlocksSummary;
+    private final String nearbyEntitiesSummary;
 
     public WorldKnowledge(SteveEntity steve) {
-        this.steve = steve;
-        scan();
-    }
+        this.position = steve.blockPosition().immutable();
+        this.biomeName = scanBiome(steve);
+        this.nearbyBlocks = Collections.unmodifiableMap(scanBlocks(steve));
 
-    private void scan() {
-        scanBiome();
-        scanBlocks();
-        scanEntities();
+        List<Entity> nearbyEntities = scanEntities(steve);
+        this.nearbyPlayerNames = List.copyOf(collectPlayerNames(nearbyEntities));
+        this.nearbyBlocksSummary = summarizeBlocks(nearbyBlocks);
+        this.nearbyEntitiesSummary = summarizeEntities(nearbyEntities);
     }
 
-    private void scanBiome() {
+    private static String scanBiome(SteveEntity steve) {
         Level level = steve.level();
         BlockPos pos = steve.blockPosition();
-        
+
         Biome biome = level.getBiome(pos).value();
         var biomeRegistry = level.registryAccess().registryOrThrow(Registries.BIOME);
         var biomeKey = biomeRegistry.getKey(biome);
-        
-        if (biomeKey != null) {
-            biomeName = biomeKey.getPath();
-        } else {
-            biomeName = "unknown";
-        }
+
+        return biomeKey != null ? biomeKey.getPath() : "unknown";
     }
 
-    private void scanBlocks() {
-        nearbyBlocks = new HashMap<>();
+    private static Map<Block, Integer> scanBlocks(SteveEntity steve) {
+        Map<Block, Integer> blocks = new HashMap<>();
         Level level = steve.level();
         BlockPos stevePos = steve.blockPosition();
-        
-        for (int x = -scanRadius; x <= scanRadius; x += 2) {
-            for (int y = -scanRadius; y <= scanRadius; y += 2) {
-                for (int z = -scanRadius; z <= scanRadius; z += 2) {
+
+        for (int x = -SCAN_RADIUS; x <= SCAN_RADIUS; x += 2) {
+            for (int y = -SCAN_RADIUS; y <= SCAN_RADIUS; y += 2) {
+                for (int z = -SCAN_RADIUS; z <= SCAN_RADIUS; z += 2) {
                     BlockPos checkPos = stevePos.offset(x, y, z);
                     BlockState state = level.getBlockState(checkPos);
                     Block block = state.getBlock();
-                    
+
                     if (block != Blocks.AIR && block != Blocks.CAVE_AIR && block != Blocks.VOID_AIR) {
-                        nearbyBlocks.put(block, nearbyBlocks.getOrDefault(block, 0) + 1);
+                        blocks.put(block, blocks.getOrDefault(block, 0) + 1);
                     }
                 }
             }
         }
+        return blocks;
     }
 
-    private void scanEntities() {
-        Level level = steve.level();
-        AABB searchBox = steve.getBoundingBox().inflate(scanRadius);
-        nearbyEntities = level.getEntities(steve, searchBox);
+    private static List<Entity> scanEntities(SteveEntity steve) {
+        AABB searchBox = steve.getBoundingBox().inflate(SCAN_RADIUS);
+        return steve.level().getEntities(steve, searchBox);
     }
 
-    public String getBiomeName() {
-        return biomeName;
+    private static List<String> collectPlayerNames(List<Entity> entities) {
+        List<String> playerNames = new ArrayList<>();
+        for (Entity entity : entities) {
+            if (entity instanceof Player player) {
+                playerNames.add(player.getName().getString());
+            }
+        }
+        return playerNames;
     }
 
-    public String getNearbyBlocksSummary() {
-        if (nearbyBlocks.isEmpty()) {
+    private static String summarizeBlocks(Map<Block, Integer> blocks) {
+        if (blocks.isEmpty()) {
             return "none";
         }
-        
-        List<Map.Entry<Block, Integer>> sorted = nearbyBlocks.entrySet().stream()
+
+        List<Map.Entry<Block, Integer>> sorted = blocks.entrySet().stream()
             .sorted((a, b) -> b.getValue().compareTo(a.getValue()))
             .limit(5)
             .toList();
-        
+
         StringBuilder sb = new StringBuilder();
         for (int i = 0; i < sorted.size(); i++) {
             if (i > 0) sb.append(", ");
             Map.Entry<Block, Integer> entry = sorted.get(i);
             sb.append(entry.getKey().getName().getString());
         }
-        
+
         return sb.toString();
     }
 
-    public String getNearbyEntitiesSummary() {
-        if (nearbyEntities.isEmpty()) {
+    private static String summarizeEntities(List<Entity> entities) {
+        if (entities.isEmpty()) {
             return "none";
         }
-        
+
         Map<String, Integer> entityCounts = new HashMap<>();
-        for (Entity entity : nearbyEntities) {
+        for (Entity entity : entities) {
             String name = entity.getType().toString();
             entityCounts.put(name, entityCounts.getOrDefault(name, 0) + 1);
         }
-        
+
         StringBuilder sb = new StringBuilder();
         int count = 0;
         for (Map.Entry<String, Integer> entry : entityCounts.entrySet()) {
@@ -116,31 +126,39 @@ public class WorldKnowledge {
             count++;
             if (count >= 5) break;
         }
-        
+
         return sb.toString();
     }
 
+    public BlockPos getPosition() {
+        return position;
+    }
+
+    public String getBiomeName() {
+        return biomeName;
+    }
+
+    public String getNearbyBlocksSummary() {
+        return nearbyBlocksSummary;
+    }
+
+    public String getNearbyEntitiesSummary() {
+        return nearbyEntitiesSummary;
+    }
+
     public Map<Block, Integer> getNearbyBlocks() {
         return nearbyBlocks;
     }
 
-    public List<Entity> getNearbyEntities() {
-        return nearbyEntities;
+    public List<String> getNearbyPlayers() {
+        return nearbyPlayerNames;
     }
 
     public String getNearbyPlayerNames() {
-        List<String> playerNames = new ArrayList<>();
-        for (Entity entity : nearbyEntities) {
-            if (entity instanceof Player player) {
-                playerNames.add(player.getName().getString());
-            }
-        }
-        
-        if (playerNames.isEmpty()) {
+        if (nearbyPlayerNames.isEmpty()) {
             return "none";
         }
-        
-        return String.join(", ", playerNames);
+
+        return String.join(", ", nearbyPlayerNames);
     }
 }
-
@@ -52,7 +52,16 @@ public class StructureTemplateLoader {
     /**
      * Load a structure from an NBT file (either custom or Minecraft's native format)
      */
-    public static LoadedTemplate loadFromNBT(ServerLevel level, String structureName) {        File structuresDir = new File(System.getProperty("user.dir"), "structures");
+    public static LoadedTemplate loadFromNBT(ServerLevel level, String structureName) {
+        LoadedTemplate fromFile = loadFromFiles(structureName);
+        return fromFile != null ? fromFile : loadFromResources(level, structureName);
+    }
+    
+    /**
+     * Look for the structure in the structures folder. Reads files only, so it may run off the server thread.
+     */
+    public static LoadedTemplate loadFromFiles(String structureName) {
+        File structuresDir = new File(System.getProperty("user.dir"), "structures");
         SteveMod.LOGGER.info("Structures directory: {}", structuresDir.getAbsolutePath());
         
         File exactMatch = new File(structuresDir, structureName + ".nbt");
@@ -86,7 +95,13 @@ public class StructureTemplateLoader {
                 return loadFromFile(files[0], structureName);
             }
         }
-        
+        return null;
+    }
+    
+    /**
+     * Look for the structure among the mod's structure templates. Server thread only.
+     */
+    public static LoadedTemplate loadFromResources(ServerLevel level, String structureName) {
         try {
             ResourceLocation resourceLocation = new ResourceLocation("steve", structureName);
             var templateManager = level.getStructureManager();
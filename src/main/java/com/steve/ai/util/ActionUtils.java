@@ -23,22 +23,20 @@ public class ActionUtils {
     public static Player findNearestPlayer(SteveEntity steve) {
         List<? extends Player> players = steve.level().players();
 
-        if (players.isEmpty()) {
-            return null;
-        }
-
         Player nearest = null;
-        double nearestDistance = Double.MAX_VALUE;
+        double nearestDistanceSqr = Double.MAX_VALUE;
 
-        for (Player player : players) {
+        // Indexed loop: this runs from action ticks, and an iterator per call adds up over many Steves
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
             if (!player.isAlive() || player.isRemoved() || player.isSpectator()) {
                 continue;
             }
 
-            double distance = steve.distanceTo(player);
-            if (distance < nearestDistance) {
+            double distanceSqr = steve.distanceToSqr(player);
+            if (distanceSqr < nearestDistanceSqr) {
                 nearest = player;
-                nearestDistance = distance;
+                nearestDistanceSqr = distanceSqr;
             }
         }
 